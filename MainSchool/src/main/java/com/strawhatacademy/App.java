@@ -1,5 +1,8 @@
 package com.strawhatacademy;
 
+import com.strawhatacademy.dao.ChangeLogPoller;
+import com.strawhatacademy.dao.DatabaseConnection;
+import com.strawhatacademy.dao.GradeSummaryVerifier;
 import com.strawhatacademy.ui.LoginForm;
 import javax.swing.SwingUtilities;
 
@@ -20,7 +23,20 @@ public class App {
             e.printStackTrace();
             return;
         }
-        
+
+        // Release pooled database connections when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ChangeLogPoller.shutdown();
+            GradeSummaryVerifier.shutdown();
+            DatabaseConnection.shutdown();
+        }, "db-pool-shutdown"));
+
+        // Periodically reconcile the running grade summaries with the grades table
+        GradeSummaryVerifier.start();
+
+        // Pick up grades, subjects and enrollments changed by other clients
+        ChangeLogPoller.start();
+
         // 2. Start the Swing UI on the Event Dispatch Thread (EDT)
         SwingUtilities.invokeLater(new Runnable() {
             @Override
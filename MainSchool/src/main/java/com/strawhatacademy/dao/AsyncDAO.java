@@ -0,0 +1,275 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.GradeType;
+import com.strawhatacademy.model.Subject;
+import com.strawhatacademy.model.User;
+import java.awt.EventQueue;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade over UserDAO, GradeDAO and SubjectDAO for the Swing forms.
+ * Every call runs on a virtual thread, at most MAX_CONCURRENT_CALLS at a time
+ * so a burst of UI actions cannot exhaust the connection pool. The returned
+ * future is completed on the Event Dispatch Thread, so callbacks may touch
+ * Swing components directly. Cancelling a future before its call starts skips
+ * the call; cancelling afterwards discards the result.
+ */
+public class AsyncDAO {
+
+    private static final int MAX_CONCURRENT_CALLS = Integer.getInteger("strawhat.async.maxConcurrency", 16);
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    // Fair, so queued calls start in the order the user triggered them
+    private static final Semaphore PERMITS = new Semaphore(MAX_CONCURRENT_CALLS, true);
+
+    private static final AsyncDAO INSTANCE = new AsyncDAO();
+
+    private final UserDAO userDAO = new UserDAO();
+    private final GradeDAO gradeDAO = new GradeDAO();
+    private final SubjectDAO subjectDAO = new SubjectDAO();
+    private final GradeStatisticsDAO statisticsDAO = new GradeStatisticsDAO();
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+    // Set while a reload triggered by an IfPresent lookup is queued or running
+    private final AtomicBoolean referenceReloadQueued = new AtomicBoolean();
+
+    private AsyncDAO() {}
+
+    public static AsyncDAO getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs any blocking call off the EDT and completes the future on the EDT.
+     * @param call The blocking DAO call.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        EXECUTOR.execute(() -> {
+            try {
+                PERMITS.acquire();
+            } catch (InterruptedException e) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                if (result.isDone()) return; // cancelled while queued
+                T value = call.get();
+                EventQueue.invokeLater(() -> result.complete(value));
+            } catch (Throwable t) {
+                EventQueue.invokeLater(() -> result.completeExceptionally(t));
+            } finally {
+                PERMITS.release();
+            }
+        });
+        return result;
+    }
+
+    // --- Users ---
+
+    public CompletableFuture<User> login(String username, String password) {
+        return supply(() -> userDAO.login(username, password));
+    }
+
+    public CompletableFuture<Boolean> registerUser(User user, String password) {
+        return supply(() -> userDAO.registerUser(user, password));
+    }
+
+    public CompletableFuture<List<User>> getStudents() {
+        return supply(userDAO::getStudents);
+    }
+
+    // --- Grades ---
+
+    public CompletableFuture<List<Grade>> getStudentGradesPage(int studentId, int afterGradeId, int limit) {
+        return supply(() -> gradeDAO.getStudentGradesPage(studentId, afterGradeId, limit));
+    }
+
+    public CompletableFuture<List<TeacherGradeRow>> getTeacherAssignedGradesPage(int teacherId, int afterGradeId, int limit) {
+        return supply(() -> gradeDAO.getTeacherAssignedGradesPage(teacherId, afterGradeId, limit));
+    }
+
+    public CompletableFuture<List<TeacherGradeRow>> getAllGradesPage(int afterGradeId, int limit) {
+        return supply(() -> gradeDAO.getAllGradesPage(afterGradeId, limit));
+    }
+
+    public CompletableFuture<Timestamp> getGradeWatermark() {
+        return supply(gradeDAO::getGradeWatermark);
+    }
+
+    public CompletableFuture<GradeDelta> getStudentGradeChanges(int studentId, Timestamp since) {
+        return supply(() -> gradeDAO.getStudentGradeChanges(studentId, since));
+    }
+
+    public CompletableFuture<GradeDelta> getTeacherGradeChanges(int teacherId, Timestamp since) {
+        return supply(() -> gradeDAO.getTeacherGradeChanges(teacherId, since));
+    }
+
+    public CompletableFuture<GradeDelta> getAllGradeChanges(Timestamp since) {
+        return supply(() -> gradeDAO.getAllGradeChanges(since));
+    }
+
+    public CompletableFuture<Grade> getGradeById(int gradeId) {
+        return supply(() -> gradeDAO.getGradeById(gradeId));
+    }
+
+    public CompletableFuture<TeacherGradeRow> getGradeRow(int gradeId) {
+        return supply(() -> gradeDAO.getGradeRow(gradeId));
+    }
+
+    public CompletableFuture<Boolean> addGrade(Grade grade) {
+        return supply(() -> gradeDAO.addGrade(grade));
+    }
+
+    public CompletableFuture<GradeWriteResult> upsertGrade(Grade grade) {
+        return supply(() -> gradeDAO.upsertGrade(grade));
+    }
+
+    public CompletableFuture<GradeWriteResult> updateGrade(Grade grade) {
+        return supply(() -> gradeDAO.updateGrade(grade));
+    }
+
+    public CompletableFuture<Boolean> deleteGrade(int gradeId) {
+        return supply(() -> gradeDAO.deleteGrade(gradeId));
+    }
+
+    public CompletableFuture<GradeBatchResult> addGrades(Collection<Grade> grades) {
+        return supply(() -> gradeDAO.addGrades(grades));
+    }
+
+    // --- Statistics ---
+
+    public CompletableFuture<List<GradeStatistics>> getStatistics(GradeStatisticsDAO.GroupBy groupBy) {
+        return supply(() -> statisticsDAO.getStatistics(groupBy));
+    }
+
+    public CompletableFuture<List<GradeStatistics>> getStudentStatistics(int studentId, GradeStatisticsDAO.GroupBy groupBy) {
+        return supply(() -> statisticsDAO.getStudentStatistics(studentId, groupBy));
+    }
+
+    public CompletableFuture<List<GradeStatistics>> getTeacherStatistics(int teacherId, GradeStatisticsDAO.GroupBy groupBy) {
+        return supply(() -> statisticsDAO.getTeacherStatistics(teacherId, groupBy));
+    }
+
+    public CompletableFuture<GradeSummary> getStudentSummary(int studentId) {
+        return supply(() -> statisticsDAO.getStudentSummary(studentId));
+    }
+
+    public CompletableFuture<GradeSummary> getSubjectSummary(int subjectId) {
+        return supply(() -> statisticsDAO.getSubjectSummary(subjectId));
+    }
+
+    public CompletableFuture<GradeHistogram> getSubjectHistogram(int subjectId, GradeType type) {
+        return supply(() -> statisticsDAO.getSubjectHistogram(subjectId, type));
+    }
+
+    public CompletableFuture<GradeHistogram> getTeacherHistogram(int teacherId, GradeType type) {
+        return supply(() -> statisticsDAO.getTeacherHistogram(teacherId, type));
+    }
+
+    public CompletableFuture<GradeHistogram> getSchoolHistogram(GradeType type) {
+        return supply(() -> statisticsDAO.getSchoolHistogram(type));
+    }
+
+    // --- Subjects ---
+
+    public CompletableFuture<List<Subject>> getSubjectsPage(int afterSubjectId, int limit) {
+        return supply(() -> subjectDAO.getSubjectsPage(afterSubjectId, limit));
+    }
+
+    public CompletableFuture<List<Subject>> getTeacherSubjectsPage(int teacherId, int afterSubjectId, int limit) {
+        return supply(() -> subjectDAO.getTeacherSubjectsPage(teacherId, afterSubjectId, limit));
+    }
+
+    /**
+     * Served from ReferenceDataCache; only queries when the cache is cold.
+     */
+    public CompletableFuture<List<Subject>> getTeacherSubjects(int teacherId) {
+        return supply(() -> referenceData.getTeacherSubjects(teacherId));
+    }
+
+    /**
+     * Every subject, served from ReferenceDataCache.
+     */
+    public CompletableFuture<List<Subject>> getAllSubjects() {
+        return supply(referenceData::getAllSubjects);
+    }
+
+    /**
+     * Warms the reference cache so table cells can resolve names without blocking.
+     */
+    public CompletableFuture<Void> preloadReferenceData() {
+        return supply(() -> {
+            referenceData.getSubjectName(0);
+            referenceData.getTeacherName(0);
+            return null;
+        });
+    }
+
+    /**
+     * For the EDT, e.g. table cells: the name ReferenceDataCache has loaded,
+     * without querying. A stale or missing snapshot is reloaded in the
+     * background, which publishes ReferenceDataRefreshed.
+     * @return The subject name, or null if unknown or not loaded yet.
+     */
+    public String getSubjectNameIfPresent(int subjectId) {
+        String name = referenceData.getSubjectNameIfPresent(subjectId);
+        reloadReferenceDataIfStale();
+        return name;
+    }
+
+    /**
+     * For the EDT; see getSubjectNameIfPresent.
+     * @return "First Last" of a teacher or admin, or null if unknown or not loaded yet.
+     */
+    public String getTeacherNameIfPresent(int teacherId) {
+        String name = referenceData.getTeacherNameIfPresent(teacherId);
+        reloadReferenceDataIfStale();
+        return name;
+    }
+
+    private void reloadReferenceDataIfStale() {
+        if (referenceData.isCurrent() || !referenceReloadQueued.compareAndSet(false, true)) return;
+        preloadReferenceData().whenComplete((v, e) -> referenceReloadQueued.set(false));
+    }
+
+    public CompletableFuture<Boolean> addSubject(String name, int teacherId) {
+        return supply(() -> subjectDAO.addSubject(name, teacherId));
+    }
+
+    public CompletableFuture<Boolean> deleteSubject(int subjectId) {
+        return supply(() -> subjectDAO.deleteSubject(subjectId));
+    }
+
+    public CompletableFuture<EnrollmentResult> enrollStudent(int studentId, int subjectId) {
+        return supply(() -> subjectDAO.enrollStudent(studentId, subjectId));
+    }
+
+    public CompletableFuture<Boolean> unenrollStudent(int studentId, int subjectId) {
+        return supply(() -> subjectDAO.unenrollStudent(studentId, subjectId));
+    }
+
+    public CompletableFuture<Boolean> setCapacity(int subjectId, Integer capacity) {
+        return supply(() -> subjectDAO.setCapacity(subjectId, capacity));
+    }
+
+    public CompletableFuture<SubjectSeats> getSeats(int subjectId) {
+        return supply(() -> subjectDAO.getSeats(subjectId));
+    }
+
+    public CompletableFuture<List<User>> getRoster(int subjectId) {
+        return supply(() -> subjectDAO.getRoster(subjectId));
+    }
+
+    public CompletableFuture<List<Integer>> getEnrolledSubjectIds(int studentId) {
+        return supply(() -> subjectDAO.getEnrolledSubjectIds(studentId));
+    }
+}
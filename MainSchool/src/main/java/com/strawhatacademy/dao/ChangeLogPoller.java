@@ -0,0 +1,333 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.event.ChangesMissed;
+import com.strawhatacademy.event.DomainEvent;
+import com.strawhatacademy.event.EventBus;
+import com.strawhatacademy.event.GradeDeleted;
+import com.strawhatacademy.event.GradeRecorded;
+import com.strawhatacademy.event.GradeUpdated;
+import com.strawhatacademy.event.GradesChanged;
+import com.strawhatacademy.event.StudentEnrolled;
+import com.strawhatacademy.event.StudentUnenrolled;
+import com.strawhatacademy.event.SubjectAdded;
+import com.strawhatacademy.event.SubjectDeleted;
+import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.Subject;
+import com.strawhatacademy.util.IntObjectMap;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings this client up to date with writes made by other clients sharing the
+ * database. Triggers append every grade, subject and enrollment change to
+ * change_log under an increasing seq, tagged with the writer's @client_id
+ * (see DatabaseConnection.getClientId()). Each poll reads the rows after the
+ * last seq seen, a primary-key range scan that is empty when nothing changed,
+ * skips this client's own rows (already published in-process) and publishes
+ * the rest on the EventBus, so caches and open views update as for a local write.
+ */
+public class ChangeLogPoller {
+
+    private static final long POLL_MILLIS = Long.getLong("strawhat.changes.pollIntervalMs", 2_000L);
+    // Also how far back GradeDAO can find deleted grades
+    static final long RETENTION_MILLIS = Long.getLong("strawhat.changes.retentionMs", 86_400_000L);
+    private static final long PRUNE_MILLIS = 3_600_000L;
+    // How long a hole in seq may be an uncommitted write before it is taken for a rollback;
+    // raised to the server's innodb_lock_wait_timeout plus a margin when that is longer
+    private static final long MIN_GAP_GRACE_MILLIS = Long.getLong("strawhat.changes.gapGraceMs", 60_000L);
+    private static final long LOCK_WAIT_MARGIN_MILLIS = 10_000L;
+    // change_log rows per read
+    private static final int BATCH_SIZE = 1000;
+    // More remote grade changes than this in one batch are published as a single GradesChanged
+    private static final int MAX_GRADE_EVENTS = 200;
+
+    private static final String LATEST_SEQ_SQL = "SELECT COALESCE(MAX(seq), 0) FROM change_log";
+    private static final String LOCK_WAIT_TIMEOUT_SQL = "SELECT @@innodb_lock_wait_timeout";
+    private static final String CHANGES_SQL =
+        "SELECT seq, entity, op, entity_id, subject_id, student_id, client_id FROM change_log " +
+        "WHERE seq > ? ORDER BY seq LIMIT ?";
+    // The rows named by other clients' entries in a seq window, in one query each
+    private static final String CHANGED_GRADES_SQL =
+        "SELECT " + GradeDAO.G_GRADE_COLUMNS + " FROM grades g JOIN " +
+        "(SELECT DISTINCT entity_id FROM change_log WHERE seq > ? AND seq <= ? " +
+        "AND entity = 'grade' AND op <> 'delete' AND NOT (client_id <=> ?)) c ON g.grade_id = c.entity_id";
+    private static final String ADDED_SUBJECTS_SQL =
+        "SELECT s.subject_id, s.subject_name, s.teacher_id FROM subjects s JOIN change_log c ON s.subject_id = c.entity_id " +
+        "WHERE c.seq > ? AND c.seq <= ? AND c.entity = 'subject' AND c.op = 'insert' AND NOT (c.client_id <=> ?)";
+    private static final String PRUNE_SQL =
+        "DELETE FROM change_log WHERE changed_at < NOW(6) - INTERVAL ? SECOND LIMIT 10000";
+
+    /**
+     * One change_log row.
+     */
+    private static class Change {
+        final long seq;
+        final String entity;
+        final String op;
+        final int entityId;
+        final int subjectId;
+        final int studentId;
+        final boolean remote;
+
+        Change(long seq, String entity, String op, int entityId, int subjectId, int studentId, boolean remote) {
+            this.seq = seq;
+            this.entity = entity;
+            this.op = op;
+            this.entityId = entityId;
+            this.subjectId = subjectId;
+            this.studentId = studentId;
+            this.remote = remote;
+        }
+    }
+
+    private static final RowMapper.Factory<Change> CHANGE_MAPPER = cols -> {
+        int seq = cols.indexOf("seq");
+        int entity = cols.indexOf("entity");
+        int op = cols.indexOf("op");
+        int entityId = cols.indexOf("entity_id");
+        int subjectId = cols.indexOf("subject_id");
+        int studentId = cols.indexOf("student_id");
+        int clientId = cols.indexOf("client_id");
+        String self = DatabaseConnection.getClientId();
+        return rs -> new Change(rs.getLong(seq), rs.getString(entity), rs.getString(op), rs.getInt(entityId),
+                rs.getInt(subjectId), rs.getInt(studentId), !self.equals(rs.getString(clientId)));
+    };
+
+    private static final RowMapper.Factory<Long> SEQ_MAPPER = cols -> rs -> rs.getLong(1);
+
+    private static ScheduledExecutorService scheduler;
+    // Only touched on the scheduler thread; -1 until the starting point is known
+    private static long lastSeq = -1;
+    private static long lastPolled;
+    private static long lastPruned;
+    // Holes in seq not yet applied past: first missing seq -> {last missing seq, first seen at}
+    private static final TreeMap<Long, long[]> holes = new TreeMap<>();
+    // 0 until read from the server
+    private static volatile long gapGraceMillis;
+
+    private ChangeLogPoller() {}
+
+    /**
+     * Starts polling (strawhat.changes.pollIntervalMs, default 2 seconds) from
+     * the newest change at the time of the first poll.
+     */
+    public static synchronized void start() {
+        if (scheduler != null || POLL_MILLIS <= 0) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-log-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(ChangeLogPoller::poll, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * How long a write may stay uncommitted after taking its seq or its
+     * updated_at: the server's innodb_lock_wait_timeout plus a margin, and at
+     * least strawhat.changes.gapGraceMs (default one minute).
+     */
+    static long gapGraceMillis() {
+        long grace = gapGraceMillis;
+        if (grace > 0) return grace;
+        Long seconds = QueryStreams.first(LOCK_WAIT_TIMEOUT_SQL, QueryStreams.NO_PARAMETERS, SEQ_MAPPER,
+                "Error reading innodb_lock_wait_timeout");
+        if (seconds == null) return MIN_GAP_GRACE_MILLIS;
+        grace = Math.max(MIN_GAP_GRACE_MILLIS, seconds * 1000 + LOCK_WAIT_MARGIN_MILLIS);
+        gapGraceMillis = grace;
+        return grace;
+    }
+
+    /**
+     * Any exception escaping a run would cancel the scheduled task for good.
+     */
+    private static void poll() {
+        try {
+            pollOnce();
+        } catch (RuntimeException e) {
+            System.err.println("Error polling change log: " + e);
+        }
+    }
+
+    private static void pollOnce() {
+        long now = System.currentTimeMillis();
+        if (lastSeq < 0 || now - lastPolled > RETENTION_MILLIS) {
+            // First poll, or asleep for so long that the log may have been pruned past us
+            Long latest = QueryStreams.first(LATEST_SEQ_SQL, QueryStreams.NO_PARAMETERS, SEQ_MAPPER, "Error reading change log");
+            if (latest == null) return;
+            if (lastSeq >= 0) {
+                ReferenceDataCache.getInstance().invalidateAll();
+                EventBus.getInstance().publish(new ChangesMissed());
+            }
+            lastSeq = latest;
+            lastPolled = now;
+            holes.clear();
+            return;
+        }
+        List<Change> batch;
+        boolean more;
+        do {
+            long after = lastSeq;
+            batch = QueryStreams.list(CHANGES_SQL, ps -> {
+                ps.setLong(1, after);
+                ps.setInt(2, BATCH_SIZE);
+            }, CHANGE_MAPPER, "Error reading change log");
+            more = batch.size() == BATCH_SIZE;
+            int ready = contiguous(after, batch, now, gapGraceMillis());
+            if (ready < batch.size()) {
+                batch = batch.subList(0, ready);
+                more = false;
+            }
+            if (!batch.isEmpty() && !apply(after, batch)) return;
+        } while (more);
+        lastPolled = now;
+        if (now - lastPruned > PRUNE_MILLIS) {
+            prune();
+            lastPruned = now;
+        }
+    }
+
+    /**
+     * Seqs are taken when a row is inserted but become visible when its
+     * transaction commits, so a later seq can be read while an earlier one is
+     * still pending. Stopping before a hole keeps that row from being skipped.
+     * Each hole is timed from when its own seqs were first seen missing, and
+     * only a hole that outlasts the grace period is taken for a rolled-back
+     * insert and skipped; later holes in the batch still wait their turn.
+     * @return How many leading rows of the batch can be applied.
+     */
+    private static int contiguous(long after, List<Change> batch, long now, long grace) {
+        long expected = after + 1;
+        int i = 0;
+        while (i < batch.size()) {
+            long seq = batch.get(i).seq;
+            if (seq == expected) {
+                i++;
+                expected++;
+                continue;
+            }
+            // expected .. seq - 1 are missing; part of a hole seen earlier keeps its time
+            Map.Entry<Long, long[]> known = holes.floorEntry(expected);
+            long seenAt;
+            if (known != null && known.getValue()[0] >= expected) {
+                seenAt = known.getValue()[1];
+            } else {
+                seenAt = now;
+                holes.put(expected, new long[]{seq - 1, now});
+            }
+            if (now - seenAt < grace) break;
+            expected = seq;
+        }
+        // Forget holes that are now behind us
+        long passed = expected;
+        holes.headMap(passed).values().removeIf(h -> h[0] < passed);
+        return i;
+    }
+
+    /**
+     * Publishes the remote changes of one batch in seq order and moves past it.
+     * @return false if the rows they name could not be read; the batch is retried next poll.
+     */
+    private static boolean apply(long after, List<Change> batch) {
+        long upTo = batch.get(batch.size() - 1).seq;
+        String self = DatabaseConnection.getClientId();
+        // Only the last entry per grade is published: the row is read as it is now
+        Map<Integer, Long> lastGradeSeq = new HashMap<>();
+        boolean subjectsChanged = false;
+        boolean subjectsAdded = false;
+        for (Change c : batch) {
+            if (!c.remote) continue;
+            if (c.entity.equals("grade")) lastGradeSeq.put(c.entityId, c.seq);
+            else if (c.entity.equals("subject")) {
+                subjectsChanged = true;
+                if (c.op.equals("insert")) subjectsAdded = true;
+            }
+        }
+
+        boolean bulk = lastGradeSeq.size() > MAX_GRADE_EVENTS;
+        IntObjectMap<Grade> grades = new IntObjectMap<>();
+        if (!bulk && !lastGradeSeq.isEmpty()
+                && !QueryStreams.forEach(CHANGED_GRADES_SQL, ps -> bindWindow(ps, after, upTo, self), GradeDAO.GRADE_MAPPER,
+                        0, g -> grades.put(g.getGradeId(), g), "Error reading changed grades")) {
+            return false;
+        }
+        IntObjectMap<Subject> subjects = new IntObjectMap<>();
+        if (subjectsAdded
+                && !QueryStreams.forEach(ADDED_SUBJECTS_SQL, ps -> bindWindow(ps, after, upTo, self), SubjectDAO.SUBJECT_MAPPER,
+                        0, s -> subjects.put(s.getSubjectId(), s), "Error reading added subjects")) {
+            return false;
+        }
+        if (subjectsChanged) ReferenceDataCache.getInstance().invalidateSubjects();
+
+        EventBus events = EventBus.getInstance();
+        if (bulk) events.publish(new GradesChanged());
+        for (Change c : batch) {
+            if (!c.remote) continue;
+            DomainEvent event = null;
+            switch (c.entity) {
+                case "grade":
+                    if (bulk || lastGradeSeq.get(c.entityId) != c.seq) break;
+                    if (c.op.equals("delete")) {
+                        event = new GradeDeleted(c.entityId);
+                    } else {
+                        // Gone again if null; its delete follows
+                        Grade g = grades.get(c.entityId);
+                        if (g != null) event = c.op.equals("insert") ? new GradeRecorded(g) : new GradeUpdated(g);
+                    }
+                    break;
+                case "subject":
+                    if (c.op.equals("delete")) {
+                        event = new SubjectDeleted(c.entityId);
+                    } else if (c.op.equals("insert") && subjects.get(c.entityId) != null) {
+                        event = new SubjectAdded(subjects.get(c.entityId));
+                    }
+                    break;
+                case "enrollment":
+                    event = c.op.equals("insert")
+                            ? new StudentEnrolled(c.subjectId, c.studentId, false)
+                            : new StudentUnenrolled(c.subjectId, c.studentId);
+                    break;
+                default:
+            }
+            if (event != null) events.publish(event);
+        }
+        lastSeq = upTo;
+        return true;
+    }
+
+    private static void bindWindow(PreparedStatement ps, long after, long upTo, String self) throws SQLException {
+        ps.setLong(1, after);
+        ps.setLong(2, upTo);
+        ps.setString(3, self);
+    }
+
+    /**
+     * Deletes log rows older than the retention period (strawhat.changes.retentionMs,
+     * default one day). Any client may do it; a client that was away longer resyncs.
+     */
+    private static void prune() {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return;
+        try (conn; PreparedStatement ps = conn.prepareStatement(PRUNE_SQL)) {
+            ps.setLong(1, RETENTION_MILLIS / 1000);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error pruning change log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.strawhatacademy.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small bounded pool of physical MySQL connections.
+ * Callers receive a proxy whose close() hands the connection back to the pool
+ * instead of tearing down the socket, so DAO code keeps its usual
+ * try-with-resources / closeConnection() handling. Each physical connection
+ * also carries a {@link StatementCache} so repeated SQL is prepared only once.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long acquireTimeoutNanos;
+    private final long validationIntervalNanos;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final String clientId;
+    private final StatementCacheStats statementStats = new StatementCacheStats();
+
+    // A fair lock so threads waiting for a connection are served in arrival order
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int total;
+    private int active;
+    private int waiters;
+    private boolean shutdown;
+
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    /**
+     * Creates the pool and starts the background idle-eviction task.
+     * @param url The JDBC URL.
+     * @param user The database user.
+     * @param password The database password.
+     * @param minSize Connections kept open even when idle.
+     * @param maxSize Upper bound on physical connections.
+     * @param idleTimeoutMillis Idle time after which connections above minSize are closed.
+     * @param acquireTimeoutMillis Maximum time a caller waits for a free connection.
+     * @param validationIntervalMillis Connections idle for longer than this are pinged before reuse.
+     * @param statementCacheSize Prepared statements kept per connection (LRU); 0 disables caching.
+     * @param clientId Stored in the @client_id session variable of every physical
+     * connection, so triggers can tag the changes this process makes; null for none.
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long acquireTimeoutMillis, long validationIntervalMillis,
+                          int statementCacheSize, String clientId) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        this.validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(validationIntervalMillis);
+        this.validationTimeoutSeconds = 2;
+        this.statementCacheSize = statementCacheSize;
+        this.clientId = clientId;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the acquisition timeout when the pool is exhausted.
+     * @return A pooled connection; closing it returns it to the pool.
+     * @throws SQLException if no connection could be obtained in time or the database is unreachable.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + acquireTimeoutNanos;
+
+        while (true) {
+            PooledConnection pc;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (shutdown) throw new SQLException("Connection pool has been shut down");
+                    // LIFO keeps the most recently used (warmest) connections busy
+                    pc = idle.pollFirst();
+                    if (pc != null) break;
+                    if (total < maxSize) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts.incrementAndGet();
+                        throw new SQLTimeoutException("Timed out after "
+                                + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos)
+                                + " ms waiting for a database connection (active=" + active + ", max=" + maxSize + ")");
+                    }
+                    waiters++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+                active++;
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    pc = new PooledConnection(openPhysical());
+                } catch (SQLException e) {
+                    lock.lock();
+                    try {
+                        total--;
+                        active--;
+                        available.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw e;
+                }
+            } else if (!isUsable(pc)) {
+                discard(pc, true);
+                continue;
+            }
+
+            borrows.incrementAndGet();
+            totalWaitNanos.addAndGet(System.nanoTime() - start);
+            return pc.lease();
+        }
+    }
+
+    /**
+     * Closes idle connections and refuses further borrows. Leased connections are
+     * closed as they are returned.
+     */
+    public void shutdown() {
+        housekeeper.shutdownNow();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (PooledConnection pc : idle) {
+                pc.close();
+                total--;
+            }
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return A consistent snapshot of the pool counters.
+     */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(active, idle.size(), total, waiters, maxSize,
+                    borrows.get(), totalWaitNanos.get(), timeouts.get(), created.get(), evicted.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Hit/miss counters shared by all per-connection statement caches.
+     */
+    public StatementCacheStats getStatementStats() {
+        return statementStats;
+    }
+
+    // --- Internals ---
+
+    private Connection openPhysical() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, password);
+        if (clientId != null) {
+            // Session state, so it survives resetForReuse and lasts as long as the socket
+            try (PreparedStatement ps = conn.prepareStatement("SET @client_id = ?")) {
+                ps.setString(1, clientId);
+                ps.execute();
+            } catch (SQLException e) {
+                closeQuietly(conn);
+                throw e;
+            }
+        }
+        created.incrementAndGet();
+        return conn;
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) return false;
+            // Skip the ping for connections that were returned moments ago
+            if (System.nanoTime() - pc.lastReturned < validationIntervalNanos) return true;
+            return pc.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        boolean healthy = resetForReuse(pc);
+        lock.lock();
+        try {
+            active--;
+            if (healthy && !shutdown) {
+                pc.lastReturned = System.nanoTime();
+                idle.addFirst(pc);
+            } else {
+                total--;
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (!healthy || shutdown) pc.close();
+    }
+
+    /**
+     * Undoes any session state a DAO left behind so the next borrower starts clean.
+     */
+    private boolean resetForReuse(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) return false;
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pc, boolean wasActive) {
+        pc.close();
+        lock.lock();
+        try {
+            total--;
+            if (wasActive) active--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts connections idle past the timeout and tops the pool back up to minSize.
+     */
+    private void housekeep() {
+        Deque<PooledConnection> toClose = new ArrayDeque<>();
+        int missing;
+        lock.lock();
+        try {
+            if (shutdown) return;
+            long now = System.nanoTime();
+            // Oldest idle connections sit at the tail
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && total - toClose.size() > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastReturned < idleTimeoutNanos) break;
+                it.remove();
+                toClose.add(pc);
+            }
+            total -= toClose.size();
+            missing = Math.max(0, minSize - total);
+            total += missing;
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection pc : toClose) {
+            pc.close();
+            evicted.incrementAndGet();
+        }
+        for (int i = 0; i < missing; i++) {
+            PooledConnection pc = null;
+            try {
+                pc = new PooledConnection(openPhysical());
+            } catch (SQLException e) {
+                System.err.println("Could not pre-open pooled connection: " + e.getMessage());
+            }
+            lock.lock();
+            try {
+                if (pc != null && !shutdown) {
+                    pc.lastReturned = System.nanoTime();
+                    idle.addLast(pc);
+                    available.signal();
+                } else {
+                    total--;
+                    if (pc != null) pc.close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        volatile long lastReturned = System.nanoTime();
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize, statementStats);
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this));
+        }
+
+        void close() {
+            statements.clear();
+            closeQuietly(physical);
+        }
+    }
+
+    /**
+     * The caller's view of a borrowed connection. Each borrow gets its own lease so a
+     * stale reference cannot touch a connection that has since been handed to someone else.
+     */
+    private final class Lease implements InvocationHandler {
+        private PooledConnection owner;
+
+        Lease(PooledConnection owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (owner != null) {
+                        PooledConnection pc = owner;
+                        owner = null;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return owner == null || owner.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (owner == null ? "returned" : owner.physical) + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                case "prepareStatement":
+                    if (owner != null && args.length <= 2 && (args.length == 1 || method.getParameterTypes()[1] == int.class)) {
+                        int keys = args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1];
+                        return owner.statements.prepare((Connection) proxy, (String) args[0], keys);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (owner == null) throw new SQLException("Connection has already been returned to the pool");
+            try {
+                return method.invoke(owner.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,28 +1,54 @@
 package com.strawhatacademy.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.UUID;
 
 /**
- * Manages the JDBC connection to the MySQL database.
+ * Manages the JDBC connections to the MySQL database.
+ * Connections are handed out from a shared bounded pool; closing one returns it to the pool.
  */
 public class DatabaseConnection {
 
-    // IMPORTANT: Replace these with your actual XAMPP MySQL credentials
-    private static final String URL = "jdbc:mysql://localhost:3306/strawhat_academy";
-    private static final String USER = "root"; // Default XAMPP username
-    private static final String PASSWORD = ""; // Default XAMPP password
+    // IMPORTANT: Replace these with your actual XAMPP MySQL credentials, or pass
+    // -Dstrawhat.db.url/user/password (the tests point these at a container)
+    private static final String BASE_URL = System.getProperty("strawhat.db.url", "jdbc:mysql://localhost:3306/strawhat_academy");
+    // Appended to any parameters the configured URL already has
+    private static final String URL = BASE_URL + (BASE_URL.indexOf('?') < 0 ? "?" : "&")
+            + "useServerPrepStmts=true"         // parse each cached statement once on the server
+            + "&rewriteBatchedStatements=true"  // send JDBC batches as multi-row statements
+            + "&useCursorFetch=true"            // a positive fetch size streams through a server-side cursor
+            + "&useAffectedRows=true";          // update counts are rows changed, so a no-op upsert reports 0
+    private static final String USER = System.getProperty("strawhat.db.user", "root"); // Default XAMPP username
+    private static final String PASSWORD = System.getProperty("strawhat.db.password", ""); // Default XAMPP password
+
+    // Pool sizing; each can be overridden with -Dstrawhat.pool.<name>=<value>
+    private static final int POOL_MIN_SIZE = Integer.getInteger("strawhat.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("strawhat.pool.maxSize", 20);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("strawhat.pool.idleTimeoutMs", 300_000L);
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = Long.getLong("strawhat.pool.acquireTimeoutMs", 10_000L);
+    private static final long POOL_VALIDATION_INTERVAL_MS = Long.getLong("strawhat.pool.validationIntervalMs", 1_000L);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("strawhat.pool.statementCacheSize", 64);
+
+    // Identifies this process's writes in change_log
+    private static final String CLIENT_ID = UUID.randomUUID().toString();
+
+    /**
+     * Lazily created so the pool is only started once the first DAO call is made.
+     */
+    private static final class PoolHolder {
+        static final ConnectionPool POOL = new ConnectionPool(URL, USER, PASSWORD,
+                POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS,
+                POOL_ACQUIRE_TIMEOUT_MS, POOL_VALIDATION_INTERVAL_MS, STATEMENT_CACHE_SIZE, CLIENT_ID);
+    }
 
     /**
-     * Establishes and returns a database connection.
+     * Borrows a database connection from the pool.
      * @return A valid Connection object, or null if connection fails.
      */
     public static Connection getConnection() {
-        Connection conn = null;
         try {
-            conn = DriverManager.getConnection(URL, USER, PASSWORD);
-            return conn;
+            return PoolHolder.POOL.borrow();
         } catch (SQLException e) {
             System.err.println("Database Connection Error: " + e.getMessage());
             return null;
@@ -30,7 +56,7 @@ public class DatabaseConnection {
     }
 
     /**
-     * Safely closes the database connection.
+     * Returns the connection to the pool.
      * @param conn The Connection object to close.
      */
     public static void closeConnection(Connection conn) {
@@ -42,4 +68,32 @@ public class DatabaseConnection {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The id every pooled connection sets as @client_id, unique per process.
+     */
+    public static String getClientId() {
+        return CLIENT_ID;
+    }
+
+    /**
+     * @return Live pool counters (active, idle, waiters, average wait).
+     */
+    public static PoolStats getPoolStats() {
+        return PoolHolder.POOL.getStats();
+    }
+
+    /**
+     * @return Prepared-statement cache hit ratio and per-statement reuse counts.
+     */
+    public static StatementCacheStats getStatementCacheStats() {
+        return PoolHolder.POOL.getStatementStats();
+    }
+
+    /**
+     * Closes all pooled connections. Called once when the application exits.
+     */
+    public static void shutdown() {
+        PoolHolder.POOL.shutdown();
+    }
+}
@@ -0,0 +1,15 @@
+package com.strawhatacademy.dao;
+
+/**
+ * Outcome of SubjectDAO.enrollStudent.
+ */
+public enum EnrollmentResult {
+    ENROLLED,
+    /** The subject is full; the student is queued for the next free seat. */
+    WAITLISTED,
+    ALREADY_ENROLLED,
+    ALREADY_WAITLISTED,
+    /** The same student and subject are already being enrolled by this client. */
+    IN_PROGRESS,
+    FAILED
+}
@@ -0,0 +1,77 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.Grade;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-row outcome of a batch grade write. Row i of the result corresponds to
+ * the i-th grade of the collection passed to the DAO.
+ */
+public class GradeBatchResult {
+
+    /**
+     * What happened to a single row of the batch.
+     */
+    public enum Status {
+        INSERTED,
+        UPDATED,
+        /** Rejected by unique_grade_per_student_subject_type. */
+        DUPLICATE,
+        /** Update matched no row: the grade was deleted or changed since it was read. */
+        NOT_FOUND,
+        FAILED
+    }
+
+    private final List<Grade> grades;
+    private final Status[] statuses;
+    private final String[] messages;
+
+    GradeBatchResult(List<Grade> grades) {
+        this.grades = grades;
+        this.statuses = new Status[grades.size()];
+        this.messages = new String[grades.size()];
+    }
+
+    void set(int row, Status status, String message) {
+        statuses[row] = status;
+        messages[row] = message;
+    }
+
+    // --- Getters ---
+    public int size() { return statuses.length; }
+    public Grade getGrade(int row) { return grades.get(row); }
+    public Status getStatus(int row) { return statuses[row]; }
+
+    /**
+     * @return The database error for FAILED rows, null otherwise.
+     */
+    public String getMessage(int row) { return messages[row]; }
+
+    public int count(Status status) {
+        int n = 0;
+        for (Status s : statuses) {
+            if (s == status) n++;
+        }
+        return n;
+    }
+
+    /**
+     * @return The grades whose row ended with the given status, in batch order.
+     */
+    public List<Grade> getGrades(Status status) {
+        List<Grade> matches = new ArrayList<>();
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == status) matches.add(grades.get(i));
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    @Override
+    public String toString() {
+        return "inserted=" + count(Status.INSERTED) + " updated=" + count(Status.UPDATED)
+                + " duplicate=" + count(Status.DUPLICATE) + " notFound=" + count(Status.NOT_FOUND)
+                + " failed=" + count(Status.FAILED);
+    }
+}
@@ -1,120 +1,658 @@
 package com.strawhatacademy.dao;
 
+import com.strawhatacademy.event.EventBus;
+import com.strawhatacademy.event.GradeDeleted;
+import com.strawhatacademy.event.GradeRecorded;
+import com.strawhatacademy.event.GradeUpdated;
+import com.strawhatacademy.event.GradesChanged;
 import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.GradeType;
+import com.strawhatacademy.util.IntObjectMap;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class GradeDAO {
 
+    // Rows per transaction in the batch APIs
+    private static final int BATCH_CHUNK_SIZE = 100;
+    // MySQL/MariaDB error code for a unique key violation
+    private static final int ER_DUP_ENTRY = 1062;
+    // A deadlock victim's whole transaction is rolled back, not just the statement
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    private static final EventBus EVENTS = EventBus.getInstance();
+
+    // The date as an epoch day and the type as its 1-based enum index, so mapping
+    // a row allocates neither a LocalDate nor a String (719528 = TO_DAYS('1970-01-01'))
+    private static final String GRADE_COLUMNS =
+        "grade_id, student_id, subject_id, grade_value, TO_DAYS(date_recorded) - 719528 AS epoch_day, type + 0 AS type_code, version";
+    static final String G_GRADE_COLUMNS =
+        "g.grade_id, g.student_id, g.subject_id, g.grade_value, TO_DAYS(g.date_recorded) - 719528 AS epoch_day, g.type + 0 AS type_code, g.version";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO grades (student_id, subject_id, grade_value, date_recorded, type) VALUES (?, ?, ?, ?, ?)";
+    // Optimistic: applies only if the row still has the version the caller read
+    private static final String UPDATE_SQL =
+        "UPDATE grades SET grade_value = ?, date_recorded = ?, type = ?, version = version + 1 " +
+        "WHERE grade_id = ? AND version = ?";
+    // Keyed on unique_grade_per_student_subject_type. LAST_INSERT_ID(grade_id) makes the
+    // generated key of an update the existing row's id. With useAffectedRows the update
+    // count is 1 for an insert, 2 for an update and 0 when nothing changed. Assignments
+    // run left to right, so version is compared against the old values.
+    private static final String UPSERT_SQL =
+        INSERT_SQL + " ON DUPLICATE KEY UPDATE grade_id = LAST_INSERT_ID(grade_id), " +
+        "version = IF(grade_value <=> VALUES(grade_value) AND date_recorded <=> VALUES(date_recorded), version, version + 1), " +
+        "grade_value = VALUES(grade_value), date_recorded = VALUES(date_recorded)";
+
+    private static final String STUDENT_GRADES_SQL =
+        "SELECT " + GRADE_COLUMNS + " " +
+        "FROM grades WHERE student_id = ?";
+    private static final String TEACHER_GRADES_SQL =
+        "SELECT " + G_GRADE_COLUMNS + ", " +
+        "p.first_name, p.last_name " +
+        "FROM grades g " +
+        "JOIN subjects s ON g.subject_id = s.subject_id " +
+        "JOIN profiles p ON g.student_id = p.user_id " +
+        "WHERE s.teacher_id = ?";
+    private static final String STUDENT_GRADES_PAGE_SQL =
+        STUDENT_GRADES_SQL + " AND grade_id > ? ORDER BY grade_id LIMIT ?";
+    private static final String TEACHER_GRADES_PAGE_SQL =
+        TEACHER_GRADES_SQL + " AND g.grade_id > ? ORDER BY g.grade_id LIMIT ?";
+    private static final String RECORDED_GRADES_BY_SUBJECT_SQL =
+        "SELECT " + GRADE_COLUMNS + " " +
+        "FROM grades WHERE grade_value IS NOT NULL " +
+        "ORDER BY subject_id, student_id";
+    private static final String GRADES_BY_SUBJECT_SQL =
+        "SELECT " + GRADE_COLUMNS + " " +
+        "FROM grades ORDER BY subject_id, student_id, type";
+    // Every student, with NULL grade columns for one without grades; the grades
+    // side follows the (student_id, subject_id, type) unique key, so rows arrive
+    // grouped without a sort
+    private static final String STUDENTS_WITH_GRADES_SQL =
+        "SELECT u.user_id AS student_id, g.grade_id, g.subject_id, g.grade_value, " +
+        "TO_DAYS(g.date_recorded) - 719528 AS epoch_day, g.type + 0 AS type_code, g.version, " +
+        "p.first_name, p.last_name " +
+        "FROM users u " +
+        "JOIN profiles p ON u.user_id = p.user_id " +
+        "LEFT JOIN grades g ON g.student_id = u.user_id " +
+        "WHERE u.role = 'Student' " +
+        "ORDER BY u.user_id, g.subject_id, g.type";
+    private static final String GRADE_ROW_SQL =
+        "SELECT " + G_GRADE_COLUMNS + ", " +
+        "p.first_name, p.last_name " +
+        "FROM grades g " +
+        "JOIN profiles p ON g.student_id = p.user_id " +
+        "WHERE g.grade_id = ?";
+    private static final String ALL_GRADES_PAGE_SQL =
+        "SELECT " + G_GRADE_COLUMNS + ", " +
+        "p.first_name, p.last_name " +
+        "FROM grades g " +
+        "JOIN profiles p ON g.student_id = p.user_id " +
+        "WHERE g.grade_id > ? ORDER BY g.grade_id LIMIT ?";
+
+    // updated_at and changed_at are statement times, not commit times: a row
+    // written up to ChangeLogPoller.gapGraceMillis() (the lock wait timeout plus
+    // a margin) before a delta query may commit after it, so each watermark
+    // lags the server time by that much and the next query reads such rows
+    // again. Merging is idempotent.
+    private static final String SERVER_TIME_SQL = "SELECT NOW(6)";
+    private static final String CHANGED_GRADES_SQL =
+        "SELECT " + G_GRADE_COLUMNS + ", " +
+        "p.first_name, p.last_name " +
+        "FROM grades g " +
+        "JOIN profiles p ON g.student_id = p.user_id " +
+        "WHERE g.updated_at >= ?";
+    private static final String STUDENT_CHANGED_GRADES_SQL =
+        CHANGED_GRADES_SQL + " AND g.student_id = ?";
+    private static final String TEACHER_CHANGED_GRADES_SQL =
+        "SELECT " + G_GRADE_COLUMNS + ", " +
+        "p.first_name, p.last_name " +
+        "FROM grades g " +
+        "JOIN subjects s ON g.subject_id = s.subject_id " +
+        "JOIN profiles p ON g.student_id = p.user_id " +
+        "WHERE g.updated_at >= ? AND s.teacher_id = ?";
+    // Not scoped: the subject of a deleted grade may be gone too, and ids a view doesn't show are ignored
+    private static final String DELETED_GRADES_SQL =
+        "SELECT DISTINCT entity_id FROM change_log " +
+        "WHERE changed_at >= ? AND entity = 'grade' AND op = 'delete'";
+
+    /**
+     * Maps a grades row; column positions are resolved once per result.
+     */
+    static final RowMapper.Factory<Grade> GRADE_MAPPER = cols -> {
+        int gradeId = cols.indexOf("grade_id");
+        int studentId = cols.indexOf("student_id");
+        int subjectId = cols.indexOf("subject_id");
+        int value = cols.indexOf("grade_value");
+        int epochDay = cols.indexOf("epoch_day");
+        int typeCode = cols.indexOf("type_code");
+        int version = cols.indexOf("version");
+        return rs -> new Grade(
+            rs.getInt(gradeId),
+            rs.getInt(studentId),
+            rs.getInt(subjectId),
+            rs.getDouble(value),
+            rs.getInt(epochDay),
+            GradeType.fromEnumIndex(rs.getInt(typeCode)),
+            rs.getInt(version)
+        );
+    };
+
+    /**
+     * GRADE_MAPPER for exports that must tell a missing grade from 0.00: a NULL
+     * grade_value is mapped to NaN.
+     */
+    private static final RowMapper.Factory<Grade> NULLABLE_GRADE_MAPPER = cols -> {
+        RowMapper<Grade> grade = GRADE_MAPPER.bind(cols);
+        int value = cols.indexOf("grade_value");
+        return rs -> {
+            Grade g = grade.mapRow(rs);
+            rs.getDouble(value);
+            if (rs.wasNull()) g.setGradeValue(Double.NaN);
+            return g;
+        };
+    };
+
+    /**
+     * Maps a gradebook row. Each student's display name is built once per result
+     * and shared by all of that student's rows.
+     */
+    static final RowMapper.Factory<TeacherGradeRow> TEACHER_GRADE_MAPPER = cols -> {
+        RowMapper<Grade> grade = GRADE_MAPPER.bind(cols);
+        int studentId = cols.indexOf("student_id");
+        int firstName = cols.indexOf("first_name");
+        int lastName = cols.indexOf("last_name");
+        IntObjectMap<String> names = new IntObjectMap<>();
+        return rs -> {
+            int sid = rs.getInt(studentId);
+            String name = names.get(sid);
+            if (name == null) {
+                name = rs.getString(firstName) + " " + rs.getString(lastName);
+                names.put(sid, name);
+            }
+            return new TeacherGradeRow(grade.mapRow(rs), name);
+        };
+    };
+
+    /**
+     * Maps a row of STUDENTS_WITH_GRADES_SQL: a student without grades has a
+     * null grade, and a grade without a value (NULL) has NaN.
+     */
+    private static final RowMapper.Factory<TeacherGradeRow> STUDENT_WITH_GRADE_MAPPER = cols -> {
+        RowMapper<Grade> grade = NULLABLE_GRADE_MAPPER.bind(cols);
+        int studentId = cols.indexOf("student_id");
+        int gradeId = cols.indexOf("grade_id");
+        int firstName = cols.indexOf("first_name");
+        int lastName = cols.indexOf("last_name");
+        return rs -> {
+            rs.getInt(gradeId);
+            Grade g = rs.wasNull() ? null : grade.mapRow(rs);
+            return new TeacherGradeRow(rs.getInt(studentId), g, rs.getString(firstName) + " " + rs.getString(lastName));
+        };
+    };
+
     public List<Grade> getStudentGrades(int studentId) {
-        List<Grade> grades = new ArrayList<>();
-        String sql = "SELECT grade_id, subject_id, grade_value, date_recorded, type " +
-                     "FROM grades WHERE student_id = ?";
+        return QueryStreams.list(STUDENT_GRADES_SQL, ps -> ps.setInt(1, studentId),
+                GRADE_MAPPER, "Error fetching student grades");
+    }
 
+    /**
+     * Retrieves grades for subjects taught by a teacher, including student names.
+     */
+    public List<TeacherGradeRow> getTeacherAssignedGrades(int teacherId) {
+        return QueryStreams.list(TEACHER_GRADES_SQL, ps -> ps.setInt(1, teacherId),
+                TEACHER_GRADE_MAPPER, "Error fetching teacher grades");
+    }
+
+    /**
+     * Keyset page of a student's grades: up to limit rows with grade_id greater than afterGradeId.
+     */
+    public List<Grade> getStudentGradesPage(int studentId, int afterGradeId, int limit) {
+        return QueryStreams.list(STUDENT_GRADES_PAGE_SQL, ps -> {
+                    ps.setInt(1, studentId);
+                    ps.setInt(2, afterGradeId);
+                    ps.setInt(3, limit);
+                }, GRADE_MAPPER, "Error fetching student grades page");
+    }
+
+    /**
+     * Keyset page of getTeacherAssignedGrades(), ordered by grade_id.
+     */
+    public List<TeacherGradeRow> getTeacherAssignedGradesPage(int teacherId, int afterGradeId, int limit) {
+        return QueryStreams.list(TEACHER_GRADES_PAGE_SQL, ps -> {
+                    ps.setInt(1, teacherId);
+                    ps.setInt(2, afterGradeId);
+                    ps.setInt(3, limit);
+                }, TEACHER_GRADE_MAPPER, "Error fetching teacher grades page");
+    }
+
+    /**
+     * One grade with its student's name, or null if it is gone.
+     */
+    public TeacherGradeRow getGradeRow(int gradeId) {
+        return QueryStreams.first(GRADE_ROW_SQL, ps -> ps.setInt(1, gradeId),
+                TEACHER_GRADE_MAPPER, "Error fetching grade row");
+    }
+
+    /**
+     * Keyset page over every grade in the school, for the admin gradebook.
+     */
+    public List<TeacherGradeRow> getAllGradesPage(int afterGradeId, int limit) {
+        return QueryStreams.list(ALL_GRADES_PAGE_SQL, ps -> {
+                    ps.setInt(1, afterGradeId);
+                    ps.setInt(2, limit);
+                }, TEACHER_GRADE_MAPPER, "Error fetching grades page");
+    }
+
+    /**
+     * @return The watermark to pass to the first getGradeChanges* call after a
+     * full load that starts now, or null if the database can't be reached.
+     */
+    public Timestamp getGradeWatermark() {
+        Timestamp now = QueryStreams.first(SERVER_TIME_SQL, QueryStreams.NO_PARAMETERS,
+                cols -> rs -> rs.getTimestamp(1), "Error reading server time");
+        return now == null ? null : new Timestamp(now.getTime() - ChangeLogPoller.gapGraceMillis());
+    }
+
+    /**
+     * Grades of a student changed or deleted since the watermark.
+     * @return The delta, or null on a database error.
+     */
+    public GradeDelta getStudentGradeChanges(int studentId, Timestamp since) {
+        return getGradeChanges(STUDENT_CHANGED_GRADES_SQL, ps -> {
+            ps.setTimestamp(1, since);
+            ps.setInt(2, studentId);
+        }, since);
+    }
+
+    /**
+     * Grades in a teacher's subjects changed or deleted since the watermark.
+     * @return The delta, or null on a database error.
+     */
+    public GradeDelta getTeacherGradeChanges(int teacherId, Timestamp since) {
+        return getGradeChanges(TEACHER_CHANGED_GRADES_SQL, ps -> {
+            ps.setTimestamp(1, since);
+            ps.setInt(2, teacherId);
+        }, since);
+    }
+
+    /**
+     * Every grade changed or deleted since the watermark.
+     * @return The delta, or null on a database error.
+     */
+    public GradeDelta getAllGradeChanges(Timestamp since) {
+        return getGradeChanges(CHANGED_GRADES_SQL, ps -> ps.setTimestamp(1, since), since);
+    }
+
+    /**
+     * Reads the changed rows through the updated_at index and the deletions from
+     * change_log. Both are range scans from the watermark, so the cost follows
+     * the number of changes (in the overlap window and since). The server time
+     * is read first and, less the overlap, becomes the next watermark.
+     */
+    private GradeDelta getGradeChanges(String changedSql, QueryStreams.Binder binder, Timestamp since) {
+        Timestamp now = QueryStreams.first(SERVER_TIME_SQL, QueryStreams.NO_PARAMETERS,
+                cols -> rs -> rs.getTimestamp(1), "Error reading server time");
+        if (now == null) return null;
+        Timestamp next = new Timestamp(now.getTime() - ChangeLogPoller.gapGraceMillis());
+        // Deletions this old may have been pruned from change_log
+        if (now.getTime() - since.getTime() > ChangeLogPoller.RETENTION_MILLIS) return GradeDelta.incomplete(next);
+
+        List<TeacherGradeRow> changed = new ArrayList<>();
+        if (!QueryStreams.forEach(changedSql, binder, TEACHER_GRADE_MAPPER, 0, changed::add,
+                "Error fetching changed grades")) {
+            return null;
+        }
+        List<Integer> deleted = new ArrayList<>();
+        if (!QueryStreams.forEach(DELETED_GRADES_SQL, ps -> ps.setTimestamp(1, since), cols -> rs -> rs.getInt(1),
+                0, deleted::add, "Error fetching deleted grades")) {
+            return null;
+        }
+        return new GradeDelta(changed, deleted, next);
+    }
+
+    /**
+     * Pushes a student's grades to the consumer one row at a time through a
+     * server-side cursor, without holding the whole result in memory.
+     * @return true if all rows were delivered, false on a database error.
+     */
+    public boolean forEachStudentGrade(int studentId, Consumer<Grade> consumer) {
+        return QueryStreams.forEach(STUDENT_GRADES_SQL, ps -> ps.setInt(1, studentId),
+                GRADE_MAPPER, QueryStreams.STREAM_FETCH_SIZE, consumer, "Error streaming student grades");
+    }
+
+    /**
+     * Streaming variant of getTeacherAssignedGrades().
+     * @return true if all rows were delivered, false on a database error.
+     */
+    public boolean forEachTeacherAssignedGrade(int teacherId, Consumer<TeacherGradeRow> consumer) {
+        return QueryStreams.forEach(TEACHER_GRADES_SQL, ps -> ps.setInt(1, teacherId),
+                TEACHER_GRADE_MAPPER, QueryStreams.STREAM_FETCH_SIZE, consumer, "Error streaming teacher grades");
+    }
+
+    /**
+     * Streams every recorded grade in the school (no NULL values), ordered
+     * by subject and then student, through a server-side cursor.
+     * @return true if all rows were delivered, false on a database error.
+     */
+    public boolean forEachRecordedGradeBySubject(Consumer<Grade> consumer) {
+        return QueryStreams.forEach(RECORDED_GRADES_BY_SUBJECT_SQL, QueryStreams.NO_PARAMETERS,
+                GRADE_MAPPER, QueryStreams.STREAM_FETCH_SIZE, consumer, "Error streaming recorded grades");
+    }
+
+    /**
+     * Streams every grade in the school ordered by subject, student and type
+     * through a server-side cursor. A grade without a value (NULL) arrives as NaN.
+     * @return true if all rows were delivered, false on a database error.
+     */
+    public boolean forEachGradeBySubject(Consumer<Grade> consumer) {
+        return QueryStreams.forEach(GRADES_BY_SUBJECT_SQL, QueryStreams.NO_PARAMETERS,
+                NULLABLE_GRADE_MAPPER, QueryStreams.STREAM_FETCH_SIZE, consumer, "Error streaming grades by subject");
+    }
+
+    /**
+     * Streams every student's grades with the student's name, ordered by
+     * student, then subject and type, through a server-side cursor, so one
+     * student's rows are contiguous. A student without grades arrives once,
+     * with a null grade; a grade without a value (NULL) arrives as NaN.
+     * @return true if all rows were delivered, false on a database error.
+     */
+    public boolean forEachStudentWithGrades(Consumer<TeacherGradeRow> consumer) {
+        return QueryStreams.forEach(STUDENTS_WITH_GRADES_SQL, QueryStreams.NO_PARAMETERS,
+                STUDENT_WITH_GRADE_MAPPER, QueryStreams.STREAM_FETCH_SIZE, consumer, "Error streaming grades by student");
+    }
+
+    /**
+     * Lazily fetched stream of a student's grades. The stream keeps a pooled
+     * connection open until closed, so use it in try-with-resources.
+     */
+    public Stream<Grade> streamStudentGrades(int studentId) {
+        return QueryStreams.open(STUDENT_GRADES_SQL, ps -> ps.setInt(1, studentId),
+                GRADE_MAPPER, "Error streaming student grades");
+    }
+
+    /**
+     * Lazily fetched stream of gradebook rows for a teacher's subjects.
+     * The stream keeps a pooled connection open until closed.
+     */
+    public Stream<TeacherGradeRow> streamTeacherAssignedGrades(int teacherId) {
+        return QueryStreams.open(TEACHER_GRADES_SQL, ps -> ps.setInt(1, teacherId),
+                TEACHER_GRADE_MAPPER, "Error streaming teacher grades");
+    }
+
+    // --- Change notification (published on the EventBus after each commit) ---
+
+    static void fireGradesChanged() {
+        EVENTS.publish(new GradesChanged());
+    }
+
+    public boolean addGrade(Grade grade) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, studentId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    grades.add(new Grade(
-                        rs.getInt("grade_id"),
-                        studentId, 
-                        rs.getInt("subject_id"),
-                        rs.getDouble("grade_value"),
-                        rs.getDate("date_recorded").toLocalDate(),
-                        rs.getString("type")
-                    ));
-                }
+             PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(ps, grade);
+            if (ps.executeUpdate() == 0) return false;
+            int gradeId = 0;
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) gradeId = keys.getInt(1);
+            }
+            if (gradeId > 0) {
+                EVENTS.publish(new GradeRecorded(new Grade(gradeId, grade.getStudentId(), grade.getSubjectId(),
+                        grade.getGradeValue(), grade.getEpochDay(), grade.getType())));
+            } else {
+                fireGradesChanged();
             }
+            return true;
         } catch (SQLException e) {
-            System.err.println("Error fetching student grades: " + e.getMessage());
+            return false;
         }
-        return grades;
     }
 
     /**
-     * Retrieves grades for subjects taught by a teacher, including student names.
+     * Writes a grade in one statement: inserts it, or updates the value and date
+     * of the student's existing grade of that type in the subject. The gradeId and
+     * version of the argument are ignored, so this is a blind write; edits of a
+     * grade that was read should go through updateGrade. An event is only
+     * published if a row changed.
+     * @return The outcome and the resulting row with its grade_id. Its version is
+     * 0 for an insert and Grade.UNKNOWN_VERSION otherwise: reading it would take
+     * another round trip, and a view gets it from its next change query.
      */
-    public List<Object[]> getTeacherAssignedGrades(int teacherId) {
-        List<Object[]> results = new ArrayList<>();
-        String sql = "SELECT g.*, p.first_name, p.last_name " +
-                     "FROM grades g " +
-                     "JOIN subjects s ON g.subject_id = s.subject_id " +
-                     "JOIN profiles p ON g.student_id = p.user_id " +
-                     "WHERE s.teacher_id = ?";
-
+    public GradeWriteResult upsertGrade(Grade grade) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, teacherId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Grade grade = new Grade(
-                        rs.getInt("grade_id"),
-                        rs.getInt("student_id"),
-                        rs.getInt("subject_id"),
-                        rs.getDouble("grade_value"),
-                        rs.getDate("date_recorded").toLocalDate(),
-                        rs.getString("type")
-                    );
-                    String studentName = rs.getString("first_name") + " " + rs.getString("last_name");
-                    results.add(new Object[]{grade, studentName});
-                }
+             PreparedStatement ps = conn.prepareStatement(UPSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(ps, grade);
+            int count = ps.executeUpdate();
+            int gradeId = 0;
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) gradeId = keys.getInt(1);
             }
+            if (gradeId == 0) return new GradeWriteResult(GradeWriteResult.Status.FAILED, null, "No grade_id returned by upsert");
+
+            Grade saved = new Grade(gradeId, grade.getStudentId(), grade.getSubjectId(), grade.getGradeValue(),
+                    grade.getEpochDay(), grade.getType(), count == 1 ? 0 : Grade.UNKNOWN_VERSION);
+            GradeWriteResult.Status status = count == 0 ? GradeWriteResult.Status.UNCHANGED
+                    : count == 1 ? GradeWriteResult.Status.INSERTED : GradeWriteResult.Status.UPDATED;
+            if (status == GradeWriteResult.Status.INSERTED) EVENTS.publish(new GradeRecorded(saved));
+            else if (status == GradeWriteResult.Status.UPDATED) EVENTS.publish(new GradeUpdated(saved));
+            return new GradeWriteResult(status, saved, null);
         } catch (SQLException e) {
-            System.err.println("Error fetching teacher grades: " + e.getMessage());
+            System.err.println("Error saving grade: " + e.getMessage());
+            return new GradeWriteResult(GradeWriteResult.Status.FAILED, null, e.getMessage());
         }
-        return results;
     }
 
-    public boolean addGrade(Grade grade) {
-        String sql = "INSERT INTO grades (student_id, subject_id, grade_value, date_recorded, type) VALUES (?, ?, ?, ?, ?)";
+    /**
+     * Updates a grade by id, which may also change its type, if it still has the
+     * version it was read with. No lock is held between the read and this write;
+     * a grade saved by someone else in between is reported instead of overwritten.
+     * @return UPDATED with the new row, CONFLICT with the current row, NOT_FOUND
+     * if the grade was deleted, or FAILED (e.g. the new type is already taken).
+     */
+    public GradeWriteResult updateGrade(Grade grade) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, grade.getStudentId());
-            ps.setInt(2, grade.getSubjectId());
-            ps.setDouble(3, grade.getGradeValue());
-            ps.setDate(4, Date.valueOf(grade.getDateRecorded()));
-            ps.setString(5, grade.getType());
-            return ps.executeUpdate() > 0;
+             PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(ps, grade);
+            if (ps.executeUpdate() > 0) {
+                Grade saved = new Grade(grade.getGradeId(), grade.getStudentId(), grade.getSubjectId(),
+                        grade.getGradeValue(), grade.getEpochDay(), grade.getType(), grade.getVersion() + 1);
+                EVENTS.publish(new GradeUpdated(saved));
+                return new GradeWriteResult(GradeWriteResult.Status.UPDATED, saved, null);
+            }
         } catch (SQLException e) {
-            return false;
+            System.err.println("Error updating grade: " + e.getMessage());
+            return new GradeWriteResult(GradeWriteResult.Status.FAILED, null, e.getMessage());
         }
+        // The version moved on or the row is gone; read it after returning the connection
+        Grade current = getGradeById(grade.getGradeId());
+        return current == null
+                ? new GradeWriteResult(GradeWriteResult.Status.NOT_FOUND, null, null)
+                : new GradeWriteResult(GradeWriteResult.Status.CONFLICT, current, null);
     }
 
-    public boolean updateGrade(Grade grade) {
-        String sql = "UPDATE grades SET grade_value = ?, date_recorded = ?, type = ? WHERE grade_id = ?";
+    /**
+     * Deletes a grade. The grades triggers update the running summaries in the same statement.
+     */
+    public boolean deleteGrade(int gradeId) {
+        String sql = "DELETE FROM grades WHERE grade_id = ?";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, grade.getGradeValue());
-            ps.setDate(2, Date.valueOf(grade.getDateRecorded()));
-            ps.setString(3, grade.getType());
-            ps.setInt(4, grade.getGradeId());
-            return ps.executeUpdate() > 0;
+            ps.setInt(1, gradeId);
+            boolean deleted = ps.executeUpdate() > 0;
+            if (deleted) EVENTS.publish(new GradeDeleted(gradeId));
+            return deleted;
         } catch (SQLException e) {
+            System.err.println("Error deleting grade: " + e.getMessage());
             return false;
         }
     }
 
     public Grade getGradeById(int gradeId) {
-        String sql = "SELECT * FROM grades WHERE grade_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, gradeId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new Grade(
-                        rs.getInt("grade_id"),
-                        rs.getInt("student_id"),
-                        rs.getInt("subject_id"),
-                        rs.getDouble("grade_value"),
-                        rs.getDate("date_recorded").toLocalDate(),
-                        rs.getString("type")
-                    );
+        String sql = "SELECT " + GRADE_COLUMNS + " " +
+                     "FROM grades WHERE grade_id = ?";
+        return QueryStreams.first(sql, ps -> ps.setInt(1, gradeId), GRADE_MAPPER, "Error fetching grade");
+    }
+
+    /**
+     * Inserts many grades on one connection using JDBC batching, committing every
+     * BATCH_CHUNK_SIZE rows. A failing row (e.g. a duplicate student/subject/type)
+     * does not abort the rest of the batch.
+     * @param grades The grades to insert; their gradeId is ignored.
+     * @return The outcome of every row, in iteration order of the collection.
+     */
+    public GradeBatchResult addGrades(Collection<Grade> grades) {
+        return executeBatch(new ArrayList<>(grades), INSERT_SQL, true);
+    }
+
+    /**
+     * Updates many grades (matched by gradeId and version) in chunked batch transactions.
+     * The grades passed in are not changed; the GradeUpdated events carry the new versions.
+     * @param grades The grades to update.
+     * @return The outcome of every row, in iteration order of the collection.
+     */
+    public GradeBatchResult updateGrades(Collection<Grade> grades) {
+        return executeBatch(new ArrayList<>(grades), UPDATE_SQL, false);
+    }
+
+    private GradeBatchResult executeBatch(List<Grade> rows, String sql, boolean insert) {
+        GradeBatchResult result = new GradeBatchResult(rows);
+        if (rows.isEmpty()) return result;
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            for (int i = 0; i < rows.size(); i++) {
+                result.set(i, GradeBatchResult.Status.FAILED, "No database connection");
+            }
+            return result;
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (int from = 0; from < rows.size(); from += BATCH_CHUNK_SIZE) {
+                int to = Math.min(from + BATCH_CHUNK_SIZE, rows.size());
+                executeChunk(conn, ps, rows, from, to, insert, result);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error executing grade batch: " + e.getMessage());
+            for (int i = 0; i < rows.size(); i++) {
+                if (result.getStatus(i) == null) result.set(i, GradeBatchResult.Status.FAILED, e.getMessage());
+            }
+        } finally {
+            try { conn.setAutoCommit(true); } catch (SQLException e) {}
+            DatabaseConnection.closeConnection(conn);
+        }
+        notifyBatch(result, insert);
+        return result;
+    }
+
+    /**
+     * Updated rows carry their id and are reported one by one; inserted rows'
+     * ids are not fetched, so an insert batch is reported as a bulk change.
+     */
+    private static void notifyBatch(GradeBatchResult result, boolean insert) {
+        if (insert) {
+            if (result.count(GradeBatchResult.Status.INSERTED) > 0) fireGradesChanged();
+            return;
+        }
+        for (int i = 0; i < result.size(); i++) {
+            if (result.getStatus(i) == GradeBatchResult.Status.UPDATED) {
+                Grade g = result.getGrade(i);
+                EVENTS.publish(new GradeUpdated(new Grade(g.getGradeId(), g.getStudentId(), g.getSubjectId(),
+                        g.getGradeValue(), g.getEpochDay(), g.getType(), g.getVersion() + 1)));
+            }
+        }
+    }
+
+    /**
+     * Sends one chunk as a JDBC batch inside its own transaction. Rows the batch
+     * reports as failed are re-run one at a time so each gets an exact status.
+     * If the transaction is rolled back (a deadlock or a failed commit), every
+     * row of the chunk is FAILED, including rows that had been written.
+     */
+    private void executeChunk(Connection conn, PreparedStatement ps, List<Grade> rows, int from, int to,
+                              boolean insert, GradeBatchResult result) throws SQLException {
+        for (int i = from; i < to; i++) {
+            bind(ps, rows.get(i), insert);
+            ps.addBatch();
+        }
+
+        try {
+            int[] counts;
+            try {
+                counts = ps.executeBatch();
+            } catch (BatchUpdateException e) {
+                ps.clearBatch();
+                if (e.getErrorCode() == ER_LOCK_DEADLOCK) throw e;
+                counts = e.getUpdateCounts();
+            }
+
+            for (int i = from; i < to; i++) {
+                int k = i - from;
+                int count = (counts != null && k < counts.length) ? counts[k] : Statement.EXECUTE_FAILED;
+                if (count == Statement.EXECUTE_FAILED) {
+                    executeSingle(ps, rows.get(i), insert, i, result);
+                } else {
+                    result.set(i, statusFor(count, insert), null);
                 }
             }
-        } catch (SQLException e) {}
-        return null;
+            conn.commit();
+        } catch (SQLException e) {
+            for (int i = from; i < to; i++) {
+                result.set(i, GradeBatchResult.Status.FAILED, "Rolled back: " + e.getMessage());
+            }
+            conn.rollback();
+        }
+    }
+
+    /**
+     * Runs one row on its own. A deadlock is thrown, since it has rolled back
+     * the rows of the chunk written before it.
+     */
+    private void executeSingle(PreparedStatement ps, Grade grade, boolean insert, int row, GradeBatchResult result)
+            throws SQLException {
+        try {
+            bind(ps, grade, insert);
+            result.set(row, statusFor(ps.executeUpdate(), insert), null);
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_LOCK_DEADLOCK) throw e;
+            if (e.getErrorCode() == ER_DUP_ENTRY) {
+                result.set(row, GradeBatchResult.Status.DUPLICATE, e.getMessage());
+            } else {
+                result.set(row, GradeBatchResult.Status.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    private static GradeBatchResult.Status statusFor(int updateCount, boolean insert) {
+        // SUCCESS_NO_INFO is reported for rows of a rewritten multi-row insert
+        if (updateCount > 0 || updateCount == Statement.SUCCESS_NO_INFO) {
+            return insert ? GradeBatchResult.Status.INSERTED : GradeBatchResult.Status.UPDATED;
+        }
+        return insert ? GradeBatchResult.Status.FAILED : GradeBatchResult.Status.NOT_FOUND;
+    }
+
+    private static void bind(PreparedStatement ps, Grade grade, boolean insert) throws SQLException {
+        if (insert) bindInsert(ps, grade);
+        else bindUpdate(ps, grade);
+    }
+
+    private static void bindInsert(PreparedStatement ps, Grade grade) throws SQLException {
+        ps.setInt(1, grade.getStudentId());
+        ps.setInt(2, grade.getSubjectId());
+        ps.setDouble(3, grade.getGradeValue());
+        ps.setDate(4, Date.valueOf(grade.getDateRecorded()));
+        ps.setString(5, grade.getType().getDbName());
+    }
+
+    private static void bindUpdate(PreparedStatement ps, Grade grade) throws SQLException {
+        ps.setDouble(1, grade.getGradeValue());
+        ps.setDate(2, Date.valueOf(grade.getDateRecorded()));
+        ps.setString(3, grade.getType().getDbName());
+        ps.setInt(4, grade.getGradeId());
+        ps.setInt(5, grade.getVersion());
     }
-}
\ No newline at end of file
+}
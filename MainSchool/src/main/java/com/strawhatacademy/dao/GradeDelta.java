@@ -0,0 +1,45 @@
+package com.strawhatacademy.dao;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The grades changed and deleted since a watermark, and the watermark to ask
+ * from next time. Changed rows carry the student's display name.
+ */
+public class GradeDelta {
+
+    private final List<TeacherGradeRow> changed;
+    private final List<Integer> deletedGradeIds;
+    private final Timestamp watermark;
+    private final boolean complete;
+
+    GradeDelta(List<TeacherGradeRow> changed, List<Integer> deletedGradeIds, Timestamp watermark) {
+        this(changed, deletedGradeIds, watermark, true);
+    }
+
+    private GradeDelta(List<TeacherGradeRow> changed, List<Integer> deletedGradeIds, Timestamp watermark, boolean complete) {
+        this.changed = changed;
+        this.deletedGradeIds = deletedGradeIds;
+        this.watermark = watermark;
+        this.complete = complete;
+    }
+
+    /**
+     * The watermark is too old to list every deletion since; reload instead.
+     */
+    static GradeDelta incomplete(Timestamp watermark) {
+        return new GradeDelta(Collections.emptyList(), Collections.emptyList(), watermark, false);
+    }
+
+    public List<TeacherGradeRow> getChanged() { return changed; }
+    public List<Integer> getDeletedGradeIds() { return deletedGradeIds; }
+    public Timestamp getWatermark() { return watermark; }
+
+    /**
+     * @return false if the delta can't be trusted and the view should be reloaded
+     * (starting from getWatermark()).
+     */
+    public boolean isComplete() { return complete; }
+}
@@ -0,0 +1,123 @@
+package com.strawhatacademy.dao;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of grade values as counts per fixed bin of BIN_WIDTH points,
+ * as kept in the grade_histograms table. Memory is fixed (BINS counters) no
+ * matter how many grades are added, histograms merge exactly by adding counts,
+ * and grades can be removed again. A percentile is located to its bin exactly
+ * and reported as the bin's midpoint, so it is within MAX_ERROR of the exact
+ * nearest-rank percentile. Not thread-safe.
+ * <p>
+ * decimal(4,2) also admits negative values, which nothing in the app enters.
+ * Like the schema's bin, binOf clamps them into bin 0, so they are counted but
+ * a percentile that falls on one reads BIN_WIDTH / 2 and MAX_ERROR does not hold.
+ */
+public class GradeHistogram {
+
+    public static final double BIN_WIDTH = 0.25;
+    // 0.00 .. 99.99, the non-negative range of decimal(4,2)
+    public static final int BINS = 400;
+    public static final double MAX_ERROR = BIN_WIDTH / 2;
+    private static final double MAX_VALUE = 99.99;
+
+    private final long[] counts = new long[BINS];
+    private long total;
+
+    /**
+     * @return The bin a grade value falls in; the schema computes it the same way.
+     */
+    public static int binOf(double value) {
+        int bin = (int) Math.floor(value / BIN_WIDTH);
+        return Math.max(0, Math.min(BINS - 1, bin));
+    }
+
+    public void add(double value) {
+        addToBin(binOf(value), 1);
+    }
+
+    /**
+     * Removes one occurrence of a value previously added.
+     */
+    public void remove(double value) {
+        addToBin(binOf(value), -1);
+    }
+
+    /**
+     * Adjusts one bin directly, e.g. when loading stored counts.
+     */
+    public void addToBin(int bin, long delta) {
+        if (counts[bin] + delta < 0) {
+            throw new IllegalArgumentException("Bin " + bin + " would become negative");
+        }
+        counts[bin] += delta;
+        total += delta;
+    }
+
+    /**
+     * Adds every grade of another histogram to this one.
+     * @return this, for chaining.
+     */
+    public GradeHistogram merge(GradeHistogram other) {
+        for (int b = 0; b < BINS; b++) {
+            counts[b] += other.counts[b];
+        }
+        total += other.total;
+        return this;
+    }
+
+    public long getCount() { return total; }
+    public long getBinCount(int bin) { return counts[bin]; }
+
+    /**
+     * Nearest-rank quantile: the value of the ceil(q * count)-th smallest grade,
+     * to within MAX_ERROR.
+     * @param q Between 0 and 1 (0.5 is the median).
+     * @return The estimate, or NaN if the histogram is empty.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Quantile out of range: " + q);
+        if (total == 0) return Double.NaN;
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int b = 0; b < BINS; b++) {
+            seen += counts[b];
+            if (seen >= rank) return Math.min(MAX_VALUE, (b + 0.5) * BIN_WIDTH);
+        }
+        return MAX_VALUE;
+    }
+
+    public double median() {
+        return quantile(0.5);
+    }
+
+    /**
+     * @return How many grades lie below the bin of the given value; exact at bin edges.
+     */
+    public long countBelow(double value) {
+        long below = 0;
+        for (int b = binOf(value) - 1; b >= 0; b--) {
+            below += counts[b];
+        }
+        return below;
+    }
+
+    /**
+     * Coarser histogram for display: counts summed over runs of binsPerBucket bins.
+     */
+    public long[] buckets(int binsPerBucket) {
+        long[] buckets = new long[(BINS + binsPerBucket - 1) / binsPerBucket];
+        for (int b = 0; b < BINS; b++) {
+            buckets[b / binsPerBucket] += counts[b];
+        }
+        return buckets;
+    }
+
+    /**
+     * @return true if both histograms hold exactly the same counts.
+     */
+    public boolean matches(GradeHistogram other) {
+        return other != null && total == other.total && Arrays.equals(counts, other.counts);
+    }
+}
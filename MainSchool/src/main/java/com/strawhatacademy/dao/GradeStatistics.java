@@ -0,0 +1,38 @@
+package com.strawhatacademy.dao;
+
+/**
+ * Aggregate of the recorded grades in one group (a student, subject, type or teacher).
+ */
+public class GradeStatistics {
+
+    private final int groupId;
+    private final String label;
+    private final long count;
+    private final double mean;
+    private final double min;
+    private final double max;
+    private final double stdDev;
+
+    /**
+     * @param groupId The student, subject or teacher id; 0 when grouped by type.
+     * @param label Display name of the group, or null if unknown.
+     * @param stdDev Population standard deviation.
+     */
+    public GradeStatistics(int groupId, String label, long count, double mean, double min, double max, double stdDev) {
+        this.groupId = groupId;
+        this.label = label;
+        this.count = count;
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+        this.stdDev = stdDev;
+    }
+
+    public int getGroupId() { return groupId; }
+    public String getLabel() { return label; }
+    public long getCount() { return count; }
+    public double getMean() { return mean; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    public double getStdDev() { return stdDev; }
+}
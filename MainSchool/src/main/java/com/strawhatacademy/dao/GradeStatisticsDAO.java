@@ -0,0 +1,205 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.GradeType;
+import java.util.List;
+
+/**
+ * Grade statistics computed by MySQL with GROUP BY, so only one row per group
+ * crosses the wire instead of every grade.
+ * Per-student and per-subject averages are also available as running summaries
+ * (see migrations/001_grade_summaries.sql), read with one primary-key lookup.
+ * Percentiles come from the per-(subject, type) histograms of
+ * migrations/002_grade_histograms.sql, merged by the database.
+ */
+public class GradeStatisticsDAO {
+
+    /**
+     * The dimension statistics are grouped by.
+     */
+    public enum GroupBy {
+        STUDENT("g.student_id", "(SELECT CONCAT(p.first_name, ' ', p.last_name) FROM profiles p WHERE p.user_id = g.student_id LIMIT 1)"),
+        SUBJECT("g.subject_id", "MAX(s.subject_name)"),
+        TYPE("g.type", "g.type"),
+        TEACHER("s.teacher_id", "(SELECT CONCAT(p.first_name, ' ', p.last_name) FROM profiles p WHERE p.user_id = s.teacher_id LIMIT 1)");
+
+        private final String keyColumn;
+        private final String labelColumn;
+
+        GroupBy(String keyColumn, String labelColumn) {
+            this.keyColumn = keyColumn;
+            this.labelColumn = labelColumn;
+        }
+    }
+
+    // Restricts which grades are aggregated
+    private enum Scope {
+        ALL(""),
+        STUDENT(" AND g.student_id = ?"),
+        TEACHER(" AND s.teacher_id = ?");
+
+        private final String condition;
+
+        Scope(String condition) {
+            this.condition = condition;
+        }
+    }
+
+    // Built once so each (scope, grouping) pair reuses one cached statement
+    private static final String[][] SQL = new String[Scope.values().length][GroupBy.values().length];
+
+    static {
+        for (Scope scope : Scope.values()) {
+            for (GroupBy by : GroupBy.values()) {
+                String groupId = by == GroupBy.TYPE ? "0" : by.keyColumn;
+                SQL[scope.ordinal()][by.ordinal()] =
+                    "SELECT " + groupId + " AS group_id, " + by.labelColumn + " AS label, " +
+                    "COUNT(g.grade_value) AS grade_count, AVG(g.grade_value) AS mean, " +
+                    "MIN(g.grade_value) AS min_value, MAX(g.grade_value) AS max_value, " +
+                    "STDDEV_POP(g.grade_value) AS std_dev " +
+                    "FROM grades g JOIN subjects s ON g.subject_id = s.subject_id " +
+                    "WHERE g.grade_value IS NOT NULL" + scope.condition + " " +
+                    "GROUP BY " + by.keyColumn + " ORDER BY " + by.keyColumn;
+            }
+        }
+    }
+
+    // Which histograms are merged; the type condition is appended when a type is given
+    private enum HistogramScope {
+        ALL(""),
+        SUBJECT(" AND subject_id = ?"),
+        TEACHER(" AND subject_id IN (SELECT subject_id FROM subjects WHERE teacher_id = ?)");
+
+        private final String anyTypeSql;
+        private final String oneTypeSql;
+
+        HistogramScope(String condition) {
+            String select = "SELECT bin, SUM(grade_count) AS grade_count FROM grade_histograms WHERE 1 = 1" + condition;
+            anyTypeSql = select + " GROUP BY bin";
+            oneTypeSql = select + " AND type = ? GROUP BY bin";
+        }
+    }
+
+    // {bin, count}
+    private static final RowMapper.Factory<long[]> BIN_MAPPER = cols -> {
+        int bin = cols.indexOf("bin");
+        int count = cols.indexOf("grade_count");
+        return rs -> new long[]{rs.getInt(bin), rs.getLong(count)};
+    };
+
+    static final RowMapper.Factory<GradeStatistics> STATISTICS_MAPPER = cols -> {
+        int groupId = cols.indexOf("group_id");
+        int label = cols.indexOf("label");
+        int count = cols.indexOf("grade_count");
+        int mean = cols.indexOf("mean");
+        int min = cols.indexOf("min_value");
+        int max = cols.indexOf("max_value");
+        int stdDev = cols.indexOf("std_dev");
+        return rs -> new GradeStatistics(
+            rs.getInt(groupId),
+            rs.getString(label),
+            rs.getLong(count),
+            rs.getDouble(mean),
+            rs.getDouble(min),
+            rs.getDouble(max),
+            rs.getDouble(stdDev)
+        );
+    };
+
+    static final RowMapper.Factory<GradeSummary> SUMMARY_MAPPER = cols -> {
+        int id = cols.indexOf("id");
+        int count = cols.indexOf("grade_count");
+        int sum = cols.indexOf("grade_sum");
+        int sumSq = cols.indexOf("grade_sum_sq");
+        int min = cols.indexOf("min_value");
+        int max = cols.indexOf("max_value");
+        return rs -> new GradeSummary(
+            rs.getInt(id),
+            rs.getLong(count),
+            rs.getDouble(sum),
+            rs.getDouble(sumSq),
+            rs.getDouble(min),
+            rs.getDouble(max)
+        );
+    };
+
+    private static final String STUDENT_SUMMARY_SQL =
+        "SELECT student_id AS id, grade_count, grade_sum, grade_sum_sq, min_value, max_value " +
+        "FROM grade_summary_student WHERE student_id = ?";
+    private static final String SUBJECT_SUMMARY_SQL =
+        "SELECT subject_id AS id, grade_count, grade_sum, grade_sum_sq, min_value, max_value " +
+        "FROM grade_summary_subject WHERE subject_id = ?";
+
+    /**
+     * @return The student's running summary, or null if they have no recorded grades.
+     */
+    public GradeSummary getStudentSummary(int studentId) {
+        return QueryStreams.first(STUDENT_SUMMARY_SQL, ps -> ps.setInt(1, studentId),
+                SUMMARY_MAPPER, "Error fetching student summary");
+    }
+
+    /**
+     * @return The subject's running summary, or null if it has no recorded grades.
+     */
+    public GradeSummary getSubjectSummary(int subjectId) {
+        return QueryStreams.first(SUBJECT_SUMMARY_SQL, ps -> ps.setInt(1, subjectId),
+                SUMMARY_MAPPER, "Error fetching subject summary");
+    }
+
+    /**
+     * Distribution of one subject's grades.
+     * @param type An assessment type, or null for all types.
+     * @return The merged histogram, or null if it could not be read.
+     */
+    public GradeHistogram getSubjectHistogram(int subjectId, GradeType type) {
+        return histogram(HistogramScope.SUBJECT, subjectId, type);
+    }
+
+    /**
+     * Distribution of the grades in every subject a teacher owns.
+     */
+    public GradeHistogram getTeacherHistogram(int teacherId, GradeType type) {
+        return histogram(HistogramScope.TEACHER, teacherId, type);
+    }
+
+    /**
+     * Distribution of every grade in the school.
+     */
+    public GradeHistogram getSchoolHistogram(GradeType type) {
+        return histogram(HistogramScope.ALL, 0, type);
+    }
+
+    private GradeHistogram histogram(HistogramScope scope, int id, GradeType type) {
+        GradeHistogram histogram = new GradeHistogram();
+        String sql = type == null ? scope.anyTypeSql : scope.oneTypeSql;
+        boolean read = QueryStreams.forEach(sql, ps -> {
+            int index = 1;
+            if (scope != HistogramScope.ALL) ps.setInt(index++, id);
+            if (type != null) ps.setString(index, type.getDbName());
+        }, BIN_MAPPER, 0, bin -> histogram.addToBin((int) bin[0], bin[1]), "Error fetching grade histogram");
+        return read ? histogram : null;
+    }
+
+    /**
+     * Statistics over every grade in the school.
+     */
+    public List<GradeStatistics> getStatistics(GroupBy groupBy) {
+        return QueryStreams.list(SQL[Scope.ALL.ordinal()][groupBy.ordinal()], QueryStreams.NO_PARAMETERS,
+                STATISTICS_MAPPER, "Error fetching grade statistics");
+    }
+
+    /**
+     * Statistics over one student's grades.
+     */
+    public List<GradeStatistics> getStudentStatistics(int studentId, GroupBy groupBy) {
+        return QueryStreams.list(SQL[Scope.STUDENT.ordinal()][groupBy.ordinal()], ps -> ps.setInt(1, studentId),
+                STATISTICS_MAPPER, "Error fetching student statistics");
+    }
+
+    /**
+     * Statistics over the grades in the subjects a teacher owns.
+     */
+    public List<GradeStatistics> getTeacherStatistics(int teacherId, GroupBy groupBy) {
+        return QueryStreams.list(SQL[Scope.TEACHER.ordinal()][groupBy.ordinal()], ps -> ps.setInt(1, teacherId),
+                STATISTICS_MAPPER, "Error fetching teacher statistics");
+    }
+}
@@ -0,0 +1,56 @@
+package com.strawhatacademy.dao;
+
+/**
+ * Running aggregate of one student's or subject's recorded grades, as kept in
+ * the grade_summary_student / grade_summary_subject tables.
+ */
+public class GradeSummary {
+
+    private final int id;
+    private final long count;
+    private final double sum;
+    private final double sumOfSquares;
+    private final double min;
+    private final double max;
+
+    public GradeSummary(int id, long count, double sum, double sumOfSquares, double min, double max) {
+        this.id = id;
+        this.count = count;
+        this.sum = sum;
+        this.sumOfSquares = sumOfSquares;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return The student or subject id.
+     */
+    public int getId() { return id; }
+    public long getCount() { return count; }
+    public double getSum() { return sum; }
+    public double getSumOfSquares() { return sumOfSquares; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+
+    public double getMean() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    /**
+     * @return Population standard deviation.
+     */
+    public double getStdDev() {
+        if (count == 0) return 0.0;
+        double mean = sum / count;
+        return Math.sqrt(Math.max(0.0, sumOfSquares / count - mean * mean));
+    }
+
+    /**
+     * @return true if both summaries hold the same aggregate (to the cent).
+     */
+    boolean matches(GradeSummary other) {
+        return other != null && count == other.count
+                && Math.abs(sum - other.sum) < 0.005 && Math.abs(sumOfSquares - other.sumOfSquares) < 0.00005
+                && Math.abs(min - other.min) < 0.005 && Math.abs(max - other.max) < 0.005;
+    }
+}
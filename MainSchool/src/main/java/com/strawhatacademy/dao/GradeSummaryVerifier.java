@@ -0,0 +1,232 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.util.IntObjectMap;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reconciles the running grade summaries and histograms with the raw grades table.
+ * The triggers keep the summaries exact in normal operation; this catches drift
+ * from anything that bypasses them (manual SQL, restores, a failed migration).
+ * Each mismatched row is recomputed by a single INSERT ... SELECT, so it is
+ * consistent even while grades are being written.
+ */
+public class GradeSummaryVerifier {
+
+    private static final long INTERVAL_MILLIS = Long.getLong("strawhat.summary.verifyIntervalMs", 600_000L);
+
+    /**
+     * One summary table and the grades column it is keyed by.
+     */
+    private enum Summary {
+        STUDENT("grade_summary_student", "student_id"),
+        SUBJECT("grade_summary_subject", "subject_id");
+
+        final String expectedSql;
+        final String storedSql;
+        final String refreshSql;
+        final String deleteIfEmptySql;
+
+        Summary(String table, String key) {
+            String aggregates = "COUNT(*) AS grade_count, SUM(grade_value) AS grade_sum, " +
+                "SUM(grade_value * grade_value) AS grade_sum_sq, MIN(grade_value) AS min_value, MAX(grade_value) AS max_value " +
+                "FROM grades WHERE grade_value IS NOT NULL";
+            expectedSql = "SELECT " + key + " AS id, " + aggregates + " GROUP BY " + key;
+            storedSql = "SELECT " + key + " AS id, grade_count, grade_sum, grade_sum_sq, min_value, max_value FROM " + table;
+            refreshSql = "INSERT INTO " + table + " (" + key + ", grade_count, grade_sum, grade_sum_sq, min_value, max_value) " +
+                "SELECT " + key + ", " + aggregates + " AND " + key + " = ? GROUP BY " + key + " " +
+                "ON DUPLICATE KEY UPDATE grade_count = VALUES(grade_count), grade_sum = VALUES(grade_sum), " +
+                "grade_sum_sq = VALUES(grade_sum_sq), min_value = VALUES(min_value), max_value = VALUES(max_value)";
+            deleteIfEmptySql = "DELETE FROM " + table + " WHERE " + key + " = ? AND NOT EXISTS " +
+                "(SELECT 1 FROM grades WHERE " + key + " = ? AND grade_value IS NOT NULL)";
+        }
+    }
+
+    private static final String BIN_SQL = "LEAST(GREATEST(FLOOR(grade_value * 4), 0), " + (GradeHistogram.BINS - 1) + ")";
+    private static final String EXPECTED_BINS_SQL =
+        "SELECT subject_id, type, " + BIN_SQL + " AS bin, COUNT(*) AS grade_count FROM grades " +
+        "WHERE grade_value IS NOT NULL GROUP BY subject_id, type, bin";
+    private static final String STORED_BINS_SQL = "SELECT subject_id, type, bin, grade_count FROM grade_histograms";
+    private static final String CLEAR_HISTOGRAM_SQL = "DELETE FROM grade_histograms WHERE subject_id = ? AND type = ?";
+    private static final String REFILL_HISTOGRAM_SQL =
+        "INSERT INTO grade_histograms (subject_id, type, bin, grade_count) " +
+        "SELECT subject_id, type, " + BIN_SQL + " AS bin, COUNT(*) FROM grades " +
+        "WHERE subject_id = ? AND type = ? AND grade_value IS NOT NULL GROUP BY subject_id, type, bin " +
+        "ON DUPLICATE KEY UPDATE grade_count = VALUES(grade_count)";
+
+    /**
+     * One row of a histogram, keyed by subject and type.
+     */
+    private static class Bin {
+        final int subjectId;
+        final String type;
+        final int bin;
+        final long count;
+
+        Bin(int subjectId, String type, int bin, long count) {
+            this.subjectId = subjectId;
+            this.type = type;
+            this.bin = bin;
+            this.count = count;
+        }
+    }
+
+    private static final RowMapper.Factory<Bin> BIN_MAPPER = cols -> {
+        int subjectId = cols.indexOf("subject_id");
+        int type = cols.indexOf("type");
+        int bin = cols.indexOf("bin");
+        int count = cols.indexOf("grade_count");
+        return rs -> new Bin(rs.getInt(subjectId), rs.getString(type), rs.getInt(bin), rs.getLong(count));
+    };
+
+    private static ScheduledExecutorService scheduler;
+
+    private GradeSummaryVerifier() {}
+
+    /**
+     * Starts the background check (strawhat.summary.verifyIntervalMs, default 10 minutes).
+     */
+    public static synchronized void start() {
+        if (scheduler != null || INTERVAL_MILLIS <= 0) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "grade-summary-verifier");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(GradeSummaryVerifier::reconcile, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Compares both summary tables and the histograms with the grades table and repairs every difference.
+     * @return The number of summary rows and histograms repaired, or -1 if the check could not run.
+     */
+    public static int reconcile() {
+        int repaired = 0;
+        for (Summary summary : Summary.values()) {
+            int fixed = reconcile(summary);
+            if (fixed < 0) return -1;
+            repaired += fixed;
+        }
+        int fixed = reconcileHistograms();
+        if (fixed < 0) return -1;
+        repaired += fixed;
+        if (repaired > 0) {
+            System.err.println("Grade summary verifier repaired " + repaired + " drifted row(s).");
+        }
+        return repaired;
+    }
+
+    private static int reconcile(Summary summary) {
+        IntObjectMap<GradeSummary> expected = new IntObjectMap<>();
+        IntObjectMap<GradeSummary> stored = new IntObjectMap<>();
+        // A partial read would look like drift, so give up unless both reads complete
+        if (!QueryStreams.forEach(summary.expectedSql, QueryStreams.NO_PARAMETERS, GradeStatisticsDAO.SUMMARY_MAPPER,
+                0, s -> expected.put(s.getId(), s), "Error computing grade summaries")
+            || !QueryStreams.forEach(summary.storedSql, QueryStreams.NO_PARAMETERS, GradeStatisticsDAO.SUMMARY_MAPPER,
+                0, s -> stored.put(s.getId(), s), "Error reading grade summaries")) {
+            return -1;
+        }
+
+        List<Integer> drifted = new ArrayList<>();
+        expected.forEach((id, s) -> {
+            if (!s.matches(stored.get(id))) drifted.add(id);
+        });
+        stored.forEach((id, s) -> {
+            if (!expected.containsKey(id)) drifted.add(id);
+        });
+        if (drifted.isEmpty()) return 0;
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return -1;
+        try (conn;
+             PreparedStatement refresh = conn.prepareStatement(summary.refreshSql);
+             PreparedStatement deleteIfEmpty = conn.prepareStatement(summary.deleteIfEmptySql)) {
+            for (int id : drifted) {
+                refresh.setInt(1, id);
+                refresh.executeUpdate();
+                deleteIfEmpty.setInt(1, id);
+                deleteIfEmpty.setInt(2, id);
+                deleteIfEmpty.executeUpdate();
+            }
+            return drifted.size();
+        } catch (SQLException e) {
+            System.err.println("Error repairing grade summaries: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Rebuilds every (subject, type) histogram whose bins differ from the grades.
+     * @return The number of histograms rebuilt, or -1 on error.
+     */
+    private static int reconcileHistograms() {
+        Map<String, GradeHistogram> expected = new HashMap<>();
+        Map<String, GradeHistogram> stored = new HashMap<>();
+        if (!readHistograms(EXPECTED_BINS_SQL, expected, "Error computing grade histograms")
+            || !readHistograms(STORED_BINS_SQL, stored, "Error reading grade histograms")) {
+            return -1;
+        }
+
+        List<String> drifted = new ArrayList<>();
+        expected.forEach((key, h) -> {
+            if (!h.matches(stored.get(key))) drifted.add(key);
+        });
+        stored.forEach((key, h) -> {
+            if (!expected.containsKey(key)) drifted.add(key);
+        });
+        if (drifted.isEmpty()) return 0;
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return -1;
+        try (conn;
+             PreparedStatement clear = conn.prepareStatement(CLEAR_HISTOGRAM_SQL);
+             PreparedStatement refill = conn.prepareStatement(REFILL_HISTOGRAM_SQL)) {
+            conn.setAutoCommit(false);
+            try {
+                for (String key : drifted) {
+                    int split = key.indexOf('/');
+                    int subjectId = Integer.parseInt(key.substring(0, split));
+                    String type = key.substring(split + 1);
+                    clear.setInt(1, subjectId);
+                    clear.setString(2, type);
+                    clear.executeUpdate();
+                    refill.setInt(1, subjectId);
+                    refill.setString(2, type);
+                    refill.executeUpdate();
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            return drifted.size();
+        } catch (SQLException e) {
+            System.err.println("Error repairing grade histograms: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Keyed "subjectId/type"
+    private static boolean readHistograms(String sql, Map<String, GradeHistogram> into, String errorContext) {
+        return QueryStreams.forEach(sql, QueryStreams.NO_PARAMETERS, BIN_MAPPER, QueryStreams.STREAM_FETCH_SIZE,
+                b -> into.computeIfAbsent(b.subjectId + "/" + b.type, k -> new GradeHistogram()).addToBin(b.bin, b.count),
+                errorContext);
+    }
+}
@@ -0,0 +1,48 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.Grade;
+
+/**
+ * Outcome of a single grade write (GradeDAO.upsertGrade or updateGrade): what
+ * the statement did and the row as it now stands in the database.
+ */
+public class GradeWriteResult {
+
+    public enum Status {
+        INSERTED,
+        UPDATED,
+        /** The grade already had these values; nothing was written. */
+        UNCHANGED,
+        /** The grade was saved by someone else since it was read; getGrade() is their row. */
+        CONFLICT,
+        /** The grade was deleted. */
+        NOT_FOUND,
+        FAILED
+    }
+
+    private final Status status;
+    private final Grade grade;
+    private final String message;
+
+    GradeWriteResult(Status status, Grade grade, String message) {
+        this.status = status;
+        this.grade = grade;
+        this.message = message;
+    }
+
+    public Status getStatus() { return status; }
+
+    /**
+     * @return The resulting row with its grade_id and version (which may be
+     * Grade.UNKNOWN_VERSION after upsertGrade), the current row on CONFLICT, or
+     * null if the grade was not found or the write FAILED.
+     */
+    public Grade getGrade() { return grade; }
+
+    /**
+     * @return The database error for FAILED, null otherwise.
+     */
+    public String getMessage() { return message; }
+
+    public boolean isWritten() { return status == Status.INSERTED || status == Status.UPDATED; }
+}
@@ -0,0 +1,56 @@
+package com.strawhatacademy.dao;
+
+/**
+ * A point-in-time snapshot of the connection pool counters.
+ */
+public class PoolStats {
+
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int waiters;
+    private final int maxSize;
+    private final long borrows;
+    private final long totalWaitNanos;
+    private final long timeouts;
+    private final long created;
+    private final long evicted;
+
+    public PoolStats(int active, int idle, int total, int waiters, int maxSize,
+                     long borrows, long totalWaitNanos, long timeouts, long created, long evicted) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.waiters = waiters;
+        this.maxSize = maxSize;
+        this.borrows = borrows;
+        this.totalWaitNanos = totalWaitNanos;
+        this.timeouts = timeouts;
+        this.created = created;
+        this.evicted = evicted;
+    }
+
+    // --- Getters ---
+    public int getActive() { return active; }
+    public int getIdle() { return idle; }
+    public int getTotal() { return total; }
+    public int getWaiters() { return waiters; }
+    public int getMaxSize() { return maxSize; }
+    public long getBorrows() { return borrows; }
+    public long getTimeouts() { return timeouts; }
+    public long getCreated() { return created; }
+    public long getEvicted() { return evicted; }
+
+    /**
+     * @return The mean time callers spent inside borrow(), in milliseconds.
+     */
+    public double getAverageWaitMillis() {
+        return borrows == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / borrows;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d idle=%d total=%d/%d waiters=%d borrows=%d avgWait=%.3fms timeouts=%d created=%d evicted=%d",
+                active, idle, total, maxSize, waiters, borrows, getAverageWaitMillis(), timeouts, created, evicted);
+    }
+}
@@ -0,0 +1,130 @@
+package com.strawhatacademy.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs SELECTs and feeds the rows through a {@link RowMapper}, either into a list
+ * or row by row. With useCursorFetch enabled on the URL, a positive fetch size
+ * makes MySQL keep the result in a server-side cursor and send it in
+ * fetchSize-row slices, so client memory stays flat no matter how many rows match.
+ */
+final class QueryStreams {
+
+    // Rows per cursor fetch round trip for streaming queries
+    static final int STREAM_FETCH_SIZE = 500;
+
+    private QueryStreams() {}
+
+    /**
+     * Sets the query parameters.
+     */
+    interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    static final Binder NO_PARAMETERS = ps -> {};
+
+    /**
+     * Runs the query and collects every mapped row.
+     * @return The rows, or the rows read so far if the query failed.
+     */
+    static <T> List<T> list(String sql, Binder binder, RowMapper.Factory<T> mapper, String errorContext) {
+        List<T> rows = new ArrayList<>();
+        forEach(sql, binder, mapper, 0, rows::add, errorContext);
+        return rows;
+    }
+
+    /**
+     * @return The first mapped row, or null if there was none or the query failed.
+     */
+    static <T> T first(String sql, Binder binder, RowMapper.Factory<T> mapper, String errorContext) {
+        List<T> rows = new ArrayList<>(1);
+        forEach(sql, ps -> {
+            binder.bind(ps);
+            ps.setMaxRows(1);
+        }, mapper, 0, rows::add, errorContext);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Runs the query and hands every row to the consumer as it arrives.
+     * @param fetchSize STREAM_FETCH_SIZE for cursor streaming, 0 to buffer the result.
+     * @return true if every row was delivered, false if the query failed.
+     */
+    static <T> boolean forEach(String sql, Binder binder, RowMapper.Factory<T> mapper, int fetchSize,
+                               Consumer<? super T> consumer, String errorContext) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return false;
+        try (conn; PreparedStatement ps = conn.prepareStatement(sql)) {
+            binder.bind(ps);
+            if (fetchSize > 0) ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<T> rowMapper = mapper.bind(new ResultColumns(rs));
+                while (rs.next()) {
+                    consumer.accept(rowMapper.mapRow(rs));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println(errorContext + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens a lazily fetched stream over the query result. The stream holds a pooled
+     * connection until it is closed, so callers must use try-with-resources.
+     * A database error while iterating is logged and ends the stream.
+     */
+    static <T> Stream<T> open(String sql, Binder binder, RowMapper.Factory<T> mapper, String errorContext) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return Stream.empty();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        RowMapper<T> rowMapper;
+        try {
+            ps = conn.prepareStatement(sql);
+            binder.bind(ps);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            rs = ps.executeQuery();
+            rowMapper = mapper.bind(new ResultColumns(rs));
+        } catch (SQLException e) {
+            System.err.println(errorContext + ": " + e.getMessage());
+            closeAll(rs, ps, conn);
+            return Stream.empty();
+        }
+
+        final PreparedStatement stmt = ps;
+        final ResultSet result = rs;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!result.next()) return false;
+                    action.accept(rowMapper.mapRow(result));
+                    return true;
+                } catch (SQLException e) {
+                    System.err.println(errorContext + ": " + e.getMessage());
+                    return false;
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeAll(result, stmt, conn));
+    }
+
+    private static void closeAll(ResultSet rs, PreparedStatement ps, Connection conn) {
+        try { if (rs != null) rs.close(); } catch (SQLException e) {}
+        try { if (ps != null) ps.close(); } catch (SQLException e) {}
+        DatabaseConnection.closeConnection(conn);
+    }
+}
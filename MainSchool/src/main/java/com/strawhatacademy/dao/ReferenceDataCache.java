@@ -0,0 +1,279 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.event.EventBus;
+import com.strawhatacademy.event.ReferenceDataRefreshed;
+import com.strawhatacademy.model.Subject;
+import com.strawhatacademy.model.User;
+import com.strawhatacademy.util.IntObjectMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Application-wide cache of rarely changing lookup data: subject names, the
+ * subjects each teacher owns, and teacher display names.
+ * Every window reads from here instead of re-querying. Entries are reloaded
+ * after a TTL, and SubjectDAO/UserDAO invalidate them on every write that
+ * could change them. Snapshots are immutable once published, so reads need no locking.
+ * A failed load never replaces a snapshot: the previous one (or an empty one if
+ * there is none yet) is served until a retry succeeds.
+ * Lookups load synchronously when needed; the IfPresent variants never query
+ * and are what the EDT uses (through AsyncDAO, which schedules the reload).
+ * A successful load publishes ReferenceDataRefreshed so views can repaint.
+ */
+public class ReferenceDataCache {
+
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("strawhat.refcache.ttlMs", 300_000L));
+    // Wait after a failed load before querying again
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final ReferenceDataCache INSTANCE = new ReferenceDataCache();
+
+    private final SubjectDAO subjectDAO = new SubjectDAO();
+    private final UserDAO userDAO = new UserDAO();
+
+    private volatile SubjectSnapshot subjects;
+    private volatile TeacherSnapshot teachers;
+    // Bumped on invalidation; a snapshot loaded under an older version is stale
+    // but is still served if reloading fails
+    private final AtomicLong subjectVersion = new AtomicLong();
+    private final AtomicLong teacherVersion = new AtomicLong();
+    // System.nanoTime() before which a failed load is not retried; guarded by loadLock
+    private long subjectRetryAt;
+    private long teacherRetryAt;
+    // A ReentrantLock, not synchronized, so virtual threads waiting on a load don't pin their carriers
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private ReferenceDataCache() {}
+
+    public static ReferenceDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    // --- Lookups ---
+
+    /**
+     * @return The subject name, or null if no such subject exists.
+     */
+    public String getSubjectName(int subjectId) {
+        return subjects().names.get(subjectId);
+    }
+
+    /**
+     * @return The subjects taught by the teacher (possibly empty), unmodifiable.
+     */
+    public List<Subject> getTeacherSubjects(int teacherId) {
+        List<Subject> list = subjects().byTeacher.get(teacherId);
+        return list != null ? list : Collections.emptyList();
+    }
+
+    /**
+     * @return Every subject, unmodifiable.
+     */
+    public List<Subject> getAllSubjects() {
+        return subjects().all;
+    }
+
+    /**
+     * @return "First Last" of a teacher or admin, or null if unknown.
+     */
+    public String getTeacherName(int teacherId) {
+        return teachers().names.get(teacherId);
+    }
+
+    /**
+     * Never queries: the name in the loaded snapshot, even a stale one, or null
+     * if none is loaded or the subject is unknown. Anything but a current
+     * snapshot counts as a miss; reloading is up to the caller.
+     */
+    public String getSubjectNameIfPresent(int subjectId) {
+        SubjectSnapshot s = subjects;
+        count(s != null && s.isCurrent(subjectVersion));
+        return s != null ? s.names.get(subjectId) : null;
+    }
+
+    /**
+     * Never queries; see getSubjectNameIfPresent.
+     */
+    public String getTeacherNameIfPresent(int teacherId) {
+        TeacherSnapshot t = teachers;
+        count(t != null && t.isCurrent(teacherVersion));
+        return t != null ? t.names.get(teacherId) : null;
+    }
+
+    /**
+     * @return true if both snapshots are loaded and current, so no lookup would query.
+     */
+    public boolean isCurrent() {
+        SubjectSnapshot s = subjects;
+        TeacherSnapshot t = teachers;
+        return s != null && s.isCurrent(subjectVersion) && t != null && t.isCurrent(teacherVersion);
+    }
+
+    // --- Invalidation hooks (called by the DAOs after successful writes) ---
+
+    public void invalidateSubjects() {
+        subjectVersion.incrementAndGet();
+        invalidations.increment();
+    }
+
+    public void invalidateTeachers() {
+        teacherVersion.incrementAndGet();
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        invalidateSubjects();
+        invalidateTeachers();
+    }
+
+    // --- Metrics ---
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getInvalidations() { return invalidations.sum(); }
+
+    /**
+     * @return Fraction of lookups answered without a query, between 0 and 1.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d invalidations=%d hitRate=%.1f%%",
+                getHits(), getMisses(), getInvalidations(), getHitRate() * 100);
+    }
+
+    // --- Loading ---
+
+    private void count(boolean hit) {
+        if (hit) hits.increment();
+        else misses.increment();
+    }
+
+    private SubjectSnapshot subjects() {
+        SubjectSnapshot s = subjects;
+        if (s != null && s.isCurrent(subjectVersion)) {
+            hits.increment();
+            return s;
+        }
+        loadLock.lock();
+        try {
+            s = subjects;
+            if (s != null && s.isCurrent(subjectVersion)) {
+                hits.increment();
+                return s;
+            }
+            // Served stale or empty while waiting to retry, or loaded: a miss either way
+            misses.increment();
+            if (System.nanoTime() - subjectRetryAt < 0) return s != null ? s : SubjectSnapshot.EMPTY;
+            long version = subjectVersion.get();
+            List<Subject> loaded = new ArrayList<>();
+            if (!subjectDAO.forEachSubject(loaded::add)) {
+                subjectRetryAt = System.nanoTime() + RETRY_NANOS;
+                return s != null ? s : SubjectSnapshot.EMPTY;
+            }
+            s = new SubjectSnapshot(loaded, version);
+            subjects = s;
+            EventBus.getInstance().publish(new ReferenceDataRefreshed());
+            return s;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private TeacherSnapshot teachers() {
+        TeacherSnapshot t = teachers;
+        if (t != null && t.isCurrent(teacherVersion)) {
+            hits.increment();
+            return t;
+        }
+        loadLock.lock();
+        try {
+            t = teachers;
+            if (t != null && t.isCurrent(teacherVersion)) {
+                hits.increment();
+                return t;
+            }
+            misses.increment();
+            if (System.nanoTime() - teacherRetryAt < 0) return t != null ? t : TeacherSnapshot.EMPTY;
+            long version = teacherVersion.get();
+            List<User> loaded = new ArrayList<>();
+            if (!userDAO.forEachStaffMember(loaded::add)) {
+                teacherRetryAt = System.nanoTime() + RETRY_NANOS;
+                return t != null ? t : TeacherSnapshot.EMPTY;
+            }
+            t = new TeacherSnapshot(loaded, version);
+            teachers = t;
+            EventBus.getInstance().publish(new ReferenceDataRefreshed());
+            return t;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private abstract static class Snapshot {
+        private final long loadedAt = System.nanoTime();
+        // The invalidation count when loading started
+        private final long version;
+
+        Snapshot(long version) {
+            this.version = version;
+        }
+
+        boolean isCurrent(AtomicLong currentVersion) {
+            return version == currentVersion.get() && System.nanoTime() - loadedAt <= TTL_NANOS;
+        }
+    }
+
+    private static final class SubjectSnapshot extends Snapshot {
+        static final SubjectSnapshot EMPTY = new SubjectSnapshot(Collections.emptyList(), -1);
+
+        final List<Subject> all;
+        final IntObjectMap<String> names;
+        final IntObjectMap<List<Subject>> byTeacher = new IntObjectMap<>();
+
+        SubjectSnapshot(List<Subject> all, long version) {
+            super(version);
+            this.all = Collections.unmodifiableList(all);
+            names = new IntObjectMap<>(all.size());
+            IntObjectMap<List<Subject>> building = new IntObjectMap<>();
+            for (Subject s : all) {
+                names.put(s.getSubjectId(), s.getSubjectName());
+                List<Subject> list = building.get(s.getTeacherId());
+                if (list == null) {
+                    list = new ArrayList<>();
+                    building.put(s.getTeacherId(), list);
+                }
+                list.add(s);
+            }
+            building.forEach((teacherId, list) -> byTeacher.put(teacherId, Collections.unmodifiableList(list)));
+        }
+    }
+
+    private static final class TeacherSnapshot extends Snapshot {
+        static final TeacherSnapshot EMPTY = new TeacherSnapshot(Collections.emptyList(), -1);
+
+        final IntObjectMap<String> names;
+
+        TeacherSnapshot(List<User> staff, long version) {
+            super(version);
+            names = new IntObjectMap<>(staff.size());
+            for (User u : staff) {
+                names.put(u.getUserId(), u.getFirstName() + " " + u.getLastName());
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.strawhatacademy.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column label to index lookup for one ResultSet, built once from its metadata.
+ */
+public class ResultColumns {
+
+    private final Map<String, Integer> indexByLabel;
+
+    public ResultColumns(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        int count = md.getColumnCount();
+        indexByLabel = new HashMap<>(count * 2);
+        for (int i = 1; i <= count; i++) {
+            // First occurrence wins, matching ResultSet.findColumn()
+            indexByLabel.putIfAbsent(md.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    /**
+     * @return The 1-based index of the column.
+     * @throws SQLException if the result has no such column.
+     */
+    public int indexOf(String label) throws SQLException {
+        Integer index = indexByLabel.get(label.toLowerCase(Locale.ROOT));
+        if (index == null) throw new SQLException("Column '" + label + "' not found in result");
+        return index;
+    }
+}
@@ -0,0 +1,25 @@
+package com.strawhatacademy.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converts the current row of a ResultSet into a typed object.
+ * Mappers are created per query by a {@link Factory}, which resolves the column
+ * indexes once so the per-row code only does indexed getXxx(int) calls.
+ *
+ * @param <T> The mapped row type.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T mapRow(ResultSet rs) throws SQLException;
+
+    /**
+     * Builds a RowMapper bound to the columns of one ResultSet.
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+        RowMapper<T> bind(ResultColumns columns) throws SQLException;
+    }
+}
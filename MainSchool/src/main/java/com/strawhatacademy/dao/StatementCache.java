@@ -0,0 +1,194 @@
+package com.strawhatacademy.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * An LRU cache of prepared statements bound to one physical connection.
+ * DAOs keep calling prepareStatement()/close() as usual; a cached statement's
+ * close() only closes its open result and resets its parameters and limits, so
+ * the next call with the same SQL reuses the statement the server already parsed.
+ * Not thread-safe: a pooled connection is only ever used by one borrower at a time.
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final StatementCacheStats stats;
+    private final LinkedHashMap<String, Entry> entries;
+
+    StatementCache(Connection physical, int maxSize, StatementCacheStats stats) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a statement for the given SQL, reusing a cached one when possible.
+     * @param owner The connection proxy that should be reported by getConnection().
+     * @param sql The SQL text.
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS.
+     */
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            stats.recordMiss(sql);
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            stats.recordHit(sql);
+        } else if (entry != null) {
+            // Same SQL already open on this connection (nested use); hand out a private copy
+            stats.recordMiss(sql);
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        } else {
+            entry = new Entry(sql, physical.prepareStatement(sql, autoGeneratedKeys));
+            stats.recordCached(sql);
+            stats.recordMiss(sql);
+            entries.put(key, entry);
+            evictOverflow();
+        }
+        entry.inUse = true;
+        return entry.lease(owner);
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            stats.recordEviction(eldest.sql);
+            if (eldest.inUse) eldest.evicted = true;
+            else closeQuietly(eldest.statement);
+        }
+    }
+
+    /**
+     * Forgets every entry, for a physical connection that is being closed (which
+     * closes its statements).
+     */
+    void clear() {
+        for (Entry e : entries.values()) stats.recordUncached(e.sql);
+        entries.clear();
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A cached physical statement plus its lease state.
+     */
+    private static final class Entry {
+        final String sql;
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        PreparedStatement lease(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Lease(this, owner));
+        }
+
+        void release(boolean fetchSizeChanged, boolean maxRowsChanged, boolean timeoutChanged) {
+            inUse = false;
+            if (evicted) {
+                closeQuietly(statement);
+                return;
+            }
+            try {
+                // A result left open (e.g. a server-side cursor) must not reach the next borrower
+                ResultSet open = statement.getResultSet();
+                if (open != null) open.close();
+                statement.clearParameters();
+                statement.clearBatch();
+                if (fetchSizeChanged) statement.setFetchSize(0);
+                if (maxRowsChanged) statement.setMaxRows(0);
+                if (timeoutChanged) statement.setQueryTimeout(0);
+            } catch (SQLException e) {
+                // A statement we cannot reset is not safe to reuse
+                evicted = true;
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /**
+     * The borrower's handle on a cached statement; close() returns it to the cache.
+     */
+    private static final class Lease implements InvocationHandler {
+        private Entry entry;
+        private final Connection owner;
+        private boolean fetchSizeChanged;
+        private boolean maxRowsChanged;
+        private boolean timeoutChanged;
+
+        Lease(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (entry != null) {
+                        Entry e = entry;
+                        entry = null;
+                        e.release(fetchSizeChanged, maxRowsChanged, timeoutChanged);
+                    }
+                    return null;
+                case "isClosed":
+                    return entry == null;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + (entry == null ? "closed" : entry.statement) + "]";
+                case "setFetchSize":
+                    fetchSizeChanged = true;
+                    break;
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                    maxRowsChanged = true;
+                    break;
+                case "setQueryTimeout":
+                    timeoutChanged = true;
+                    break;
+                default:
+                    break;
+            }
+            if (entry == null) throw new SQLException("Statement has already been closed");
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.strawhatacademy.dao;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application-wide hit/miss counters for the per-connection statement caches.
+ * A "miss" means the SQL was prepared (parsed by the server) again; a "hit"
+ * means an already prepared statement was reused. Per-statement counters are
+ * kept only while some connection's cache holds the SQL, so there are at most
+ * pool size times cache size of them.
+ */
+public class StatementCacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final ConcurrentHashMap<String, SqlCounters> perStatement = new ConcurrentHashMap<>();
+
+    void recordHit(String sql) {
+        hits.increment();
+        SqlCounters c = perStatement.get(sql);
+        if (c != null) c.reuses.increment();
+    }
+
+    void recordMiss(String sql) {
+        misses.increment();
+        SqlCounters c = perStatement.get(sql);
+        if (c != null) c.prepares.increment();
+    }
+
+    /**
+     * A cache took in a statement for this SQL.
+     */
+    void recordCached(String sql) {
+        perStatement.compute(sql, (k, c) -> {
+            if (c == null) c = new SqlCounters();
+            c.caches++;
+            return c;
+        });
+    }
+
+    /**
+     * A cache let go of its statement for this SQL; the counters go with the last one.
+     */
+    void recordUncached(String sql) {
+        perStatement.computeIfPresent(sql, (k, c) -> --c.caches == 0 ? null : c);
+    }
+
+    void recordEviction(String sql) {
+        evictions.increment();
+        recordUncached(sql);
+    }
+
+    // --- Getters ---
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * @return Fraction of prepareStatement() calls served from the cache, between 0 and 1.
+     */
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * Per-statement usage, most reused first.
+     * @return One entry per distinct SQL string currently cached.
+     */
+    public List<StatementUsage> getStatementUsage() {
+        List<StatementUsage> usage = new ArrayList<>(perStatement.size());
+        perStatement.forEach((sql, c) -> usage.add(new StatementUsage(sql, c.prepares.sum(), c.reuses.sum())));
+        usage.sort(Comparator.comparingLong(StatementUsage::getReuses).reversed());
+        return usage;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d evictions=%d hitRatio=%.1f%%",
+                getHits(), getMisses(), getEvictions(), getHitRatio() * 100);
+    }
+
+    private static final class SqlCounters {
+        final LongAdder prepares = new LongAdder();
+        final LongAdder reuses = new LongAdder();
+        // Caches holding the SQL (one per key form); only changed inside compute
+        int caches;
+    }
+
+    /**
+     * How often one SQL string was prepared versus reused.
+     */
+    public static class StatementUsage {
+        private final String sql;
+        private final long prepares;
+        private final long reuses;
+
+        public StatementUsage(String sql, long prepares, long reuses) {
+            this.sql = sql;
+            this.prepares = prepares;
+            this.reuses = reuses;
+        }
+
+        public String getSql() { return sql; }
+        public long getPrepares() { return prepares; }
+        public long getReuses() { return reuses; }
+
+        @Override
+        public String toString() {
+            return "prepared=" + prepares + " reused=" + reuses + " : " + sql;
+        }
+    }
+}
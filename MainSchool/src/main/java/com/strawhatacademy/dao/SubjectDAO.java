@@ -1,71 +1,440 @@
 package com.strawhatacademy.dao;
 
+import com.strawhatacademy.event.EventBus;
+import com.strawhatacademy.event.StudentEnrolled;
+import com.strawhatacademy.event.StudentUnenrolled;
+import com.strawhatacademy.event.SubjectAdded;
+import com.strawhatacademy.event.SubjectDeleted;
 import com.strawhatacademy.model.Subject;
+import com.strawhatacademy.model.User;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 public class SubjectDAO {
 
+    /**
+     * Maps a subjects row; column positions are resolved once per result.
+     */
+    static final RowMapper.Factory<Subject> SUBJECT_MAPPER = cols -> {
+        int id = cols.indexOf("subject_id");
+        int name = cols.indexOf("subject_name");
+        int teacher = cols.indexOf("teacher_id");
+        return rs -> new Subject(rs.getInt(id), rs.getString(name), rs.getInt(teacher));
+    };
+
+    private static final RowMapper.Factory<Integer> ID_MAPPER = cols -> rs -> rs.getInt(1);
+
+    private static final EventBus EVENTS = EventBus.getInstance();
+
+    // Free seats of a capped subject are spread over this many subject_seats rows
+    static final int SEAT_STRIPES = 8;
+    private static final int MAX_CONCURRENT_ENROLLMENTS = Integer.getInteger("strawhat.enroll.maxConcurrency", 4);
+    // Fair, so in a registration rush enrollments reach the database in the order they were requested
+    private static final Semaphore ENROLL_PERMITS = new Semaphore(MAX_CONCURRENT_ENROLLMENTS, true);
+    // (subject, student) pairs being enrolled right now
+    private static final Set<Long> ENROLLING = ConcurrentHashMap.newKeySet();
+
+    private static final int ER_DUP_ENTRY = 1062;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int MAX_ATTEMPTS = 3;
+    // readCapacity results other than a seat limit
+    private static final int UNLIMITED = -1;
+    private static final int NO_SUBJECT = -2;
+
+    private static final String LOCK_CAPACITY_SQL = "SELECT capacity FROM subjects WHERE subject_id = ? LOCK IN SHARE MODE";
+    private static final String LOCK_CAPACITY_FOR_UPDATE_SQL = "SELECT capacity FROM subjects WHERE subject_id = ? FOR UPDATE";
+    private static final String SET_CAPACITY_SQL = "UPDATE subjects SET capacity = ? WHERE subject_id = ?";
+    private static final String IS_ENROLLED_SQL = "SELECT 1 FROM enrollments WHERE subject_id = ? AND student_id = ?";
+    private static final String INSERT_ENROLLMENT_SQL =
+        "INSERT INTO enrollments (subject_id, student_id, enrolled_on) VALUES (?, ?, CURDATE())";
+    private static final String PROMOTE_SQL =
+        "INSERT IGNORE INTO enrollments (subject_id, student_id, enrolled_on) VALUES (?, ?, CURDATE())";
+    private static final String DELETE_ENROLLMENT_SQL = "DELETE FROM enrollments WHERE subject_id = ? AND student_id = ?";
+    private static final String ENROLLED_COUNT_SQL = "SELECT COUNT(*) FROM enrollments WHERE subject_id = ?";
+    private static final String STRIPES_SQL = "SELECT stripe, seats_left FROM subject_seats WHERE subject_id = ?";
+    private static final String SEATS_LEFT_SQL = "SELECT COALESCE(SUM(seats_left), 0) FROM subject_seats WHERE subject_id = ?";
+    private static final String TAKE_SEAT_SQL =
+        "UPDATE subject_seats SET seats_left = seats_left - 1 WHERE subject_id = ? AND stripe = ? AND seats_left > 0";
+    private static final String RELEASE_SEAT_SQL =
+        "UPDATE subject_seats SET seats_left = seats_left + 1 WHERE subject_id = ? AND stripe = ?";
+    private static final String UPSERT_STRIPE_SQL =
+        "INSERT INTO subject_seats (subject_id, stripe, seats_left) VALUES (?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE seats_left = VALUES(seats_left)";
+    private static final String DELETE_STRIPES_SQL = "DELETE FROM subject_seats WHERE subject_id = ?";
+    private static final String WAITLIST_SQL = "INSERT IGNORE INTO waitlist (subject_id, student_id) VALUES (?, ?)";
+    private static final String LEAVE_WAITLIST_SQL = "DELETE FROM waitlist WHERE subject_id = ? AND student_id = ?";
+    private static final String WAITLIST_HEAD_SQL =
+        "SELECT waitlist_id, student_id FROM waitlist WHERE subject_id = ? ORDER BY waitlist_id LIMIT ? FOR UPDATE";
+    private static final String DELETE_WAITLIST_ENTRY_SQL = "DELETE FROM waitlist WHERE waitlist_id = ?";
+    private static final String ALL_SUBJECTS_SQL = "SELECT subject_id, subject_name, teacher_id FROM subjects";
+
     public List<Subject> getAllSubjects() {
-        List<Subject> subjects = new ArrayList<>();
-        String sql = "SELECT subject_id, subject_name, teacher_id FROM subjects";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                subjects.add(new Subject(rs.getInt("subject_id"), rs.getString("subject_name"), rs.getInt("teacher_id")));
-            }
-        } catch (SQLException e) { 
-            System.err.println("Error fetching all subjects: " + e.getMessage()); 
-        }
-        return subjects;
+        return QueryStreams.list(ALL_SUBJECTS_SQL, QueryStreams.NO_PARAMETERS, SUBJECT_MAPPER, "Error fetching all subjects");
+    }
+
+    /**
+     * Variant of getAllSubjects() that reports failure instead of returning a
+     * partial list. Used by ReferenceDataCache.
+     * @return true if all rows were delivered, false on a database error.
+     */
+    public boolean forEachSubject(Consumer<Subject> consumer) {
+        return QueryStreams.forEach(ALL_SUBJECTS_SQL, QueryStreams.NO_PARAMETERS, SUBJECT_MAPPER, 0, consumer,
+                "Error fetching all subjects");
     }
 
     public List<Subject> getTeacherSubjects(int teacherId) {
-        List<Subject> subjects = new ArrayList<>();
-        String sql = "SELECT subject_id, subject_name FROM subjects WHERE teacher_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        String sql = "SELECT subject_id, subject_name, teacher_id FROM subjects WHERE teacher_id = ?";
+        return QueryStreams.list(sql, ps -> ps.setInt(1, teacherId), SUBJECT_MAPPER, "Error fetching teacher subjects");
+    }
+
+    /**
+     * Keyset page of all subjects: up to limit rows with subject_id greater than afterSubjectId.
+     */
+    public List<Subject> getSubjectsPage(int afterSubjectId, int limit) {
+        String sql = "SELECT subject_id, subject_name, teacher_id FROM subjects " +
+                     "WHERE subject_id > ? ORDER BY subject_id LIMIT ?";
+        return QueryStreams.list(sql, ps -> {
+            ps.setInt(1, afterSubjectId);
+            ps.setInt(2, limit);
+        }, SUBJECT_MAPPER, "Error fetching subjects page");
+    }
+
+    /**
+     * Keyset page of a teacher's subjects, ordered by subject_id.
+     */
+    public List<Subject> getTeacherSubjectsPage(int teacherId, int afterSubjectId, int limit) {
+        String sql = "SELECT subject_id, subject_name, teacher_id FROM subjects " +
+                     "WHERE teacher_id = ? AND subject_id > ? ORDER BY subject_id LIMIT ?";
+        return QueryStreams.list(sql, ps -> {
             ps.setInt(1, teacherId);
+            ps.setInt(2, afterSubjectId);
+            ps.setInt(3, limit);
+        }, SUBJECT_MAPPER, "Error fetching teacher subjects page");
+    }
+
+    /**
+     * Enrolls a student, or waitlists them if the subject is full. At most
+     * MAX_CONCURRENT_ENROLLMENTS run at once (-Dstrawhat.enroll.maxConcurrency)
+     * and the rest queue in arrival order. A repeat request for a pair that is
+     * still in flight returns IN_PROGRESS without reaching the database.
+     */
+    public EnrollmentResult enrollStudent(int studentId, int subjectId) {
+        Long key = ((long) subjectId << 32) | (studentId & 0xFFFFFFFFL);
+        if (!ENROLLING.add(key)) return EnrollmentResult.IN_PROGRESS;
+        try {
+            ENROLL_PERMITS.acquire();
+        } catch (InterruptedException e) {
+            ENROLLING.remove(key);
+            Thread.currentThread().interrupt();
+            return EnrollmentResult.FAILED;
+        }
+        try {
+            EnrollmentResult result = inTransaction(conn -> enroll(conn, studentId, subjectId));
+            if (result == EnrollmentResult.ENROLLED) EVENTS.publish(new StudentEnrolled(subjectId, studentId, false));
+            return result;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_DUP_ENTRY) return EnrollmentResult.ALREADY_ENROLLED;
+            System.err.println("Enrollment Error: " + e.getMessage());
+            return EnrollmentResult.FAILED;
+        } finally {
+            ENROLL_PERMITS.release();
+            ENROLLING.remove(key);
+        }
+    }
+
+    private EnrollmentResult enroll(Connection conn, int studentId, int subjectId) throws SQLException {
+        int capacity = readCapacity(conn, subjectId, LOCK_CAPACITY_SQL);
+        if (capacity == NO_SUBJECT) return EnrollmentResult.FAILED;
+        if (exists(conn, IS_ENROLLED_SQL, subjectId, studentId)) return EnrollmentResult.ALREADY_ENROLLED;
+        if (capacity != UNLIMITED && !takeSeat(conn, subjectId, studentId)) {
+            return update(conn, WAITLIST_SQL, subjectId, studentId) > 0
+                    ? EnrollmentResult.WAITLISTED : EnrollmentResult.ALREADY_WAITLISTED;
+        }
+        update(conn, INSERT_ENROLLMENT_SQL, subjectId, studentId);
+        update(conn, LEAVE_WAITLIST_SQL, subjectId, studentId);
+        return EnrollmentResult.ENROLLED;
+    }
+
+    /**
+     * Takes one free seat. Stripes that looked non-empty are tried from the
+     * student's home stripe on, each with a conditional single-row update, so
+     * concurrent enrollments only contend when they land on the same stripe.
+     * @return false if every stripe is empty.
+     */
+    private boolean takeSeat(Connection conn, int subjectId, int studentId) throws SQLException {
+        int[] seatsLeft = new int[SEAT_STRIPES];
+        try (PreparedStatement ps = conn.prepareStatement(STRIPES_SQL)) {
+            ps.setInt(1, subjectId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    subjects.add(new Subject(rs.getInt("subject_id"), rs.getString("subject_name"), teacherId));
+                    int stripe = rs.getInt(1);
+                    if (stripe >= 0 && stripe < SEAT_STRIPES) seatsLeft[stripe] = rs.getInt(2);
                 }
             }
-        } catch (SQLException e) { 
-            System.err.println("Error fetching teacher subjects: " + e.getMessage()); 
         }
-        return subjects;
+        int home = Math.floorMod(studentId, SEAT_STRIPES);
+        try (PreparedStatement ps = conn.prepareStatement(TAKE_SEAT_SQL)) {
+            for (int i = 0; i < SEAT_STRIPES; i++) {
+                int stripe = (home + i) % SEAT_STRIPES;
+                if (seatsLeft[stripe] <= 0) continue;
+                ps.setInt(1, subjectId);
+                ps.setInt(2, stripe);
+                if (ps.executeUpdate() == 1) return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Enrolls a student in a subject by creating an initial record in the grades table.
-     * Changed status from 'Enrolled' to 'Registered' to fix ENUM constraint errors.
+     * Removes a student from a subject. Grades already recorded are kept. The
+     * freed seat goes to the head of the waitlist, or back to the student's
+     * stripe, unless the subject is over capacity after a capacity cut.
+     * @return true if the student was enrolled.
      */
-    public boolean enrollStudent(int studentId, int subjectId) {
-        // SQL now uses 'Registered' which must be added to your MySQL ENUM list
-        String sql = "INSERT INTO grades (student_id, subject_id, grade_value, date_recorded, type) VALUES (?, ?, 0.0, ?, 'Registered')";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, studentId);
-            ps.setInt(2, subjectId);
-            ps.setDate(3, java.sql.Date.valueOf(java.time.LocalDate.now()));
-            return ps.executeUpdate() > 0;
+    public boolean unenrollStudent(int studentId, int subjectId) {
+        List<Integer> promoted = new ArrayList<>();
+        try {
+            boolean dropped = inTransaction(conn -> {
+                promoted.clear();
+                int capacity = readCapacity(conn, subjectId, LOCK_CAPACITY_SQL);
+                if (update(conn, DELETE_ENROLLMENT_SQL, subjectId, studentId) == 0) return false;
+                if (capacity < 0) return true;
+                if (count(conn, ENROLLED_COUNT_SQL, subjectId) + count(conn, SEATS_LEFT_SQL, subjectId) >= capacity) return true;
+                if (promote(conn, subjectId, 1, promoted) == 0) {
+                    update(conn, RELEASE_SEAT_SQL, subjectId, Math.floorMod(studentId, SEAT_STRIPES));
+                }
+                return true;
+            });
+            if (dropped) {
+                EVENTS.publish(new StudentUnenrolled(subjectId, studentId));
+                publishPromoted(subjectId, promoted);
+            }
+            return dropped;
         } catch (SQLException e) {
-            // Updated error message to help with debugging
-            System.err.println("Enrollment Error: " + e.getMessage());
+            System.err.println("Error unenrolling student: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Sets or removes a subject's seat limit. Free seats are recomputed from
+     * the current enrollments and handed to the waitlist first; whatever is
+     * left is spread over the stripes. Removing the limit enrolls everyone on
+     * the waitlist.
+     * @param capacity The new limit, or null for unlimited.
+     * @return true if the subject exists and was updated.
+     */
+    public boolean setCapacity(int subjectId, Integer capacity) {
+        if (capacity != null && capacity < 0) throw new IllegalArgumentException("Capacity must not be negative");
+        List<Integer> promoted = new ArrayList<>();
+        try {
+            boolean updated = inTransaction(conn -> {
+                promoted.clear();
+                // Exclusive: waits for in-flight enrollments, which hold a shared lock on the row
+                if (readCapacity(conn, subjectId, LOCK_CAPACITY_FOR_UPDATE_SQL) == NO_SUBJECT) return false;
+                try (PreparedStatement ps = conn.prepareStatement(SET_CAPACITY_SQL)) {
+                    if (capacity == null) ps.setNull(1, Types.INTEGER);
+                    else ps.setInt(1, capacity);
+                    ps.setInt(2, subjectId);
+                    ps.executeUpdate();
+                }
+                if (capacity == null) {
+                    update(conn, DELETE_STRIPES_SQL, subjectId);
+                    promote(conn, subjectId, Integer.MAX_VALUE, promoted);
+                    return true;
+                }
+                int free = Math.max(0, capacity - count(conn, ENROLLED_COUNT_SQL, subjectId));
+                free -= promote(conn, subjectId, free, promoted);
+                try (PreparedStatement ps = conn.prepareStatement(UPSERT_STRIPE_SQL)) {
+                    for (int stripe = 0; stripe < SEAT_STRIPES; stripe++) {
+                        ps.setInt(1, subjectId);
+                        ps.setInt(2, stripe);
+                        ps.setInt(3, free / SEAT_STRIPES + (stripe < free % SEAT_STRIPES ? 1 : 0));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                return true;
+            });
+            publishPromoted(subjectId, promoted);
+            return updated;
+        } catch (SQLException e) {
+            System.err.println("Error setting subject capacity: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return The subject's seat accounting, or null if it does not exist or the query failed.
+     */
+    public SubjectSeats getSeats(int subjectId) {
+        String sql = "SELECT s.subject_id, s.capacity, " +
+                     "(SELECT COUNT(*) FROM enrollments e WHERE e.subject_id = s.subject_id) AS enrolled, " +
+                     "(SELECT COALESCE(SUM(x.seats_left), 0) FROM subject_seats x WHERE x.subject_id = s.subject_id) AS seats_left, " +
+                     "(SELECT COUNT(*) FROM waitlist w WHERE w.subject_id = s.subject_id) AS waitlisted " +
+                     "FROM subjects s WHERE s.subject_id = ?";
+        return QueryStreams.first(sql, ps -> ps.setInt(1, subjectId), cols -> {
+            int id = cols.indexOf("subject_id");
+            int capacity = cols.indexOf("capacity");
+            int enrolled = cols.indexOf("enrolled");
+            int seatsLeft = cols.indexOf("seats_left");
+            int waitlisted = cols.indexOf("waitlisted");
+            return rs -> {
+                int cap = rs.getInt(capacity);
+                if (rs.wasNull()) cap = -1;
+                return new SubjectSeats(rs.getInt(id), cap, rs.getInt(enrolled), rs.getInt(seatsLeft), rs.getInt(waitlisted));
+            };
+        }, "Error fetching subject seats");
+    }
+
+    /**
+     * Enrolls up to limit students from the head of the waitlist.
+     * @param promoted Receives the ids of the students enrolled, to be published after commit.
+     * @return How many were enrolled.
+     */
+    private int promote(Connection conn, int subjectId, int limit, List<Integer> promoted) throws SQLException {
+        if (limit <= 0) return 0;
+        List<int[]> heads = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(WAITLIST_HEAD_SQL)) {
+            ps.setInt(1, subjectId);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) heads.add(new int[]{rs.getInt(1), rs.getInt(2)});
+            }
+        }
+        int count = 0;
+        for (int[] head : heads) {
+            if (update(conn, PROMOTE_SQL, subjectId, head[1]) > 0) {
+                promoted.add(head[1]);
+                count++;
+            }
+            update(conn, DELETE_WAITLIST_ENTRY_SQL, head[0]);
+        }
+        return count;
+    }
+
+    private static void publishPromoted(int subjectId, List<Integer> promoted) {
+        for (int studentId : promoted) EVENTS.publish(new StudentEnrolled(subjectId, studentId, true));
+    }
+
+    @FunctionalInterface
+    private interface Work<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Runs work in one READ COMMITTED transaction, so a probe of an emptied
+     * stripe does not keep it locked. A deadlock victim is retried.
+     */
+    private static <T> T inTransaction(Work<T> work) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Connection conn = DatabaseConnection.getConnection();
+            if (conn == null) throw new SQLException("No database connection");
+            try (conn) {
+                int isolation = conn.getTransactionIsolation();
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                conn.setAutoCommit(false);
+                try {
+                    T result = work.run(conn);
+                    conn.commit();
+                    return result;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (e.getErrorCode() != ER_LOCK_DEADLOCK || attempt == MAX_ATTEMPTS) throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                    conn.setTransactionIsolation(isolation);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The capacity, UNLIMITED or NO_SUBJECT.
+     */
+    private static int readCapacity(Connection conn, int subjectId, String sql) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, subjectId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return NO_SUBJECT;
+                int capacity = rs.getInt(1);
+                return rs.wasNull() ? UNLIMITED : capacity;
+            }
+        }
+    }
+
+    private static boolean exists(Connection conn, String sql, int... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) ps.setInt(i + 1, params[i]);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static int count(Connection conn, String sql, int subjectId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, subjectId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static int update(Connection conn, String sql, int... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) ps.setInt(i + 1, params[i]);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * @return The ids of the students enrolled in a subject, ascending.
+     * Read from the primary key alone.
+     */
+    public List<Integer> getRosterStudentIds(int subjectId) {
+        String sql = "SELECT student_id FROM enrollments WHERE subject_id = ? ORDER BY student_id";
+        return QueryStreams.list(sql, ps -> ps.setInt(1, subjectId), ID_MAPPER, "Error fetching roster");
+    }
+
+    /**
+     * @return The ids of the subjects a student is enrolled in, ascending.
+     * Read from the (student_id, subject_id) index alone.
+     */
+    public List<Integer> getEnrolledSubjectIds(int studentId) {
+        String sql = "SELECT subject_id FROM enrollments WHERE student_id = ? ORDER BY subject_id";
+        return QueryStreams.list(sql, ps -> ps.setInt(1, studentId), ID_MAPPER, "Error fetching enrolled subjects");
+    }
+
+    /**
+     * @return The students enrolled in a subject with their profile names, by id.
+     */
+    public List<User> getRoster(int subjectId) {
+        String sql = "SELECT u.user_id, u.username, u.role, p.first_name, p.last_name " +
+                     "FROM enrollments e " +
+                     "JOIN users u ON e.student_id = u.user_id " +
+                     "JOIN profiles p ON u.user_id = p.user_id " +
+                     "WHERE e.subject_id = ? ORDER BY e.student_id";
+        return QueryStreams.list(sql, ps -> ps.setInt(1, subjectId), UserDAO.USER_MAPPER, "Error fetching roster");
+    }
+
     public boolean addSubject(String name, int teacherId) {
         String sql = "INSERT INTO subjects (subject_name, teacher_id) VALUES (?, ?)";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, name);
             ps.setInt(2, teacherId);
-            return ps.executeUpdate() > 0;
+            if (ps.executeUpdate() == 0) return false;
+            ReferenceDataCache.getInstance().invalidateSubjects();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) EVENTS.publish(new SubjectAdded(new Subject(keys.getInt(1), name, teacherId)));
+            }
+            return true;
         } catch (SQLException e) { 
             System.err.println("Error adding subject: " + e.getMessage());
             return false; 
@@ -77,7 +446,14 @@ public class SubjectDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, subjectId);
-            return ps.executeUpdate() > 0;
+            boolean deleted = ps.executeUpdate() > 0;
+            if (deleted) {
+                ReferenceDataCache.getInstance().invalidateSubjects();
+                EVENTS.publish(new SubjectDeleted(subjectId));
+                // The subject's grades and enrollments went with it
+                GradeDAO.fireGradesChanged();
+            }
+            return deleted;
         } catch (SQLException e) { 
             System.err.println("Error deleting subject: " + e.getMessage());
             return false; 
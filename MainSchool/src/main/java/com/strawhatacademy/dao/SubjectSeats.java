@@ -0,0 +1,36 @@
+package com.strawhatacademy.dao;
+
+/**
+ * Seat accounting of one subject: its capacity, enrollments, free seats and waitlist.
+ */
+public class SubjectSeats {
+
+    private final int subjectId;
+    private final int capacity;
+    private final int enrolled;
+    private final int seatsLeft;
+    private final int waitlisted;
+
+    public SubjectSeats(int subjectId, int capacity, int enrolled, int seatsLeft, int waitlisted) {
+        this.subjectId = subjectId;
+        this.capacity = capacity;
+        this.enrolled = enrolled;
+        this.seatsLeft = seatsLeft;
+        this.waitlisted = waitlisted;
+    }
+
+    public int getSubjectId() { return subjectId; }
+
+    /**
+     * @return The seat limit, or -1 if enrollment is unlimited.
+     */
+    public int getCapacity() { return capacity; }
+    public boolean isLimited() { return capacity >= 0; }
+    public int getEnrolled() { return enrolled; }
+
+    /**
+     * @return The free seats summed over the subject's stripes (0 when unlimited).
+     */
+    public int getSeatsLeft() { return seatsLeft; }
+    public int getWaitlisted() { return waitlisted; }
+}
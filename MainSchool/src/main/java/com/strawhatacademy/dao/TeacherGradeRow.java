@@ -0,0 +1,30 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.Grade;
+
+/**
+ * One row of a teacher's gradebook: the grade plus the student's display name.
+ */
+public class TeacherGradeRow {
+
+    private final int studentId;
+    private final Grade grade;
+    private final String studentName;
+
+    public TeacherGradeRow(Grade grade, String studentName) {
+        this(grade.getStudentId(), grade, studentName);
+    }
+
+    /**
+     * @param grade May be null for a student listed without grades.
+     */
+    public TeacherGradeRow(int studentId, Grade grade, String studentName) {
+        this.studentId = studentId;
+        this.grade = grade;
+        this.studentName = studentName;
+    }
+
+    public int getStudentId() { return studentId; }
+    public Grade getGrade() { return grade; }
+    public String getStudentName() { return studentName; }
+}
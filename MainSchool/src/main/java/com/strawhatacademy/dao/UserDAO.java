@@ -4,14 +4,37 @@ import com.strawhatacademy.model.Role;
 import com.strawhatacademy.model.User;
 import java.sql.*;
 import java.time.LocalDate;
-import java.util.ArrayList; // Added for List implementation
 import java.util.List;      // Added for return type
+import java.util.function.Consumer;
 
 /**
  * Handles all user authentication and profile creation/retrieval.
  */
 public class UserDAO {
 
+    private static final String STAFF_SQL =
+        "SELECT u.user_id, u.username, u.role, p.first_name, p.last_name " +
+        "FROM users u JOIN profiles p ON u.user_id = p.user_id " +
+        "WHERE u.role IN ('Teacher', 'Admin')";
+
+    /**
+     * Maps a users/profiles join row; column positions are resolved once per result.
+     */
+    static final RowMapper.Factory<User> USER_MAPPER = cols -> {
+        int id = cols.indexOf("user_id");
+        int username = cols.indexOf("username");
+        int role = cols.indexOf("role");
+        int firstName = cols.indexOf("first_name");
+        int lastName = cols.indexOf("last_name");
+        return rs -> new User(
+            rs.getInt(id),
+            rs.getString(username),
+            Role.valueOf(rs.getString(role).toUpperCase()),
+            rs.getString(firstName),
+            rs.getString(lastName)
+        );
+    };
+
     /**
      * Authenticates a user based on username and password.
      * @param username The username entered by the user.
@@ -19,41 +42,13 @@ public class UserDAO {
      * @return A fully populated User object if login is successful, null otherwise.
      */
     public User login(String username, String password) {
-        Connection conn = null;
-        PreparedStatement ps = null;
-        ResultSet rs = null;
-        User user = null;
-
-        String sql = "SELECT u.user_id, u.role, p.first_name, p.last_name " +
+        String sql = "SELECT u.user_id, u.username, u.role, p.first_name, p.last_name " +
                      "FROM users u JOIN profiles p ON u.user_id = p.user_id " +
                      "WHERE u.username = ? AND u.password_hash = ?";
-
-        try {
-            conn = DatabaseConnection.getConnection();
-            if (conn != null) {
-                ps = conn.prepareStatement(sql);
-                ps.setString(1, username);
-                ps.setString(2, password); 
-                
-                rs = ps.executeQuery();
-
-                if (rs.next()) {
-                    int id = rs.getInt("user_id");
-                    Role role = Role.valueOf(rs.getString("role").toUpperCase());
-                    String firstName = rs.getString("first_name");
-                    String lastName = rs.getString("last_name");
-                    
-                    user = new User(id, username, role, firstName, lastName);
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Login Error: " + e.getMessage());
-        } finally {
-            try { if (rs != null) rs.close(); } catch (SQLException e) {}
-            try { if (ps != null) ps.close(); } catch (SQLException e) {}
-            DatabaseConnection.closeConnection(conn);
-        }
-        return user;
+        return QueryStreams.first(sql, ps -> {
+            ps.setString(1, username);
+            ps.setString(2, password);
+        }, USER_MAPPER, "Login Error");
     }
 
     /**
@@ -62,28 +57,35 @@ public class UserDAO {
      * @return A list of all User objects.
      */
     public List<User> getAllUsers() {
-        List<User> users = new ArrayList<>();
         String sql = "SELECT u.user_id, u.username, u.role, p.first_name, p.last_name " +
                      "FROM users u JOIN profiles p ON u.user_id = p.user_id";
+        return QueryStreams.list(sql, QueryStreams.NO_PARAMETERS, USER_MAPPER, "Error fetching all users");
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            
-            while (rs.next()) {
-                Role role = Role.valueOf(rs.getString("role").toUpperCase());
-                users.add(new User(
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    role,
-                    rs.getString("first_name"),
-                    rs.getString("last_name")
-                ));
-            }
-        } catch (SQLException e) {
-            System.err.println("Error fetching all users: " + e.getMessage());
-        }
-        return users;
+    /**
+     * @return Every student with their profile names.
+     */
+    public List<User> getStudents() {
+        String sql = "SELECT u.user_id, u.username, u.role, p.first_name, p.last_name " +
+                     "FROM users u JOIN profiles p ON u.user_id = p.user_id " +
+                     "WHERE u.role = 'Student'";
+        return QueryStreams.list(sql, QueryStreams.NO_PARAMETERS, USER_MAPPER, "Error fetching students");
+    }
+
+    /**
+     * Retrieves the users who can own subjects (teachers and admins).
+     */
+    public List<User> getStaff() {
+        return QueryStreams.list(STAFF_SQL, QueryStreams.NO_PARAMETERS, USER_MAPPER, "Error fetching staff");
+    }
+
+    /**
+     * Variant of getStaff() that reports failure instead of returning a partial
+     * list. Used by ReferenceDataCache to resolve instructor names.
+     * @return true if all rows were delivered, false on a database error.
+     */
+    public boolean forEachStaffMember(Consumer<User> consumer) {
+        return QueryStreams.forEach(STAFF_SQL, QueryStreams.NO_PARAMETERS, USER_MAPPER, 0, consumer, "Error fetching staff");
     }
     
     /**
@@ -139,6 +141,7 @@ public class UserDAO {
             try { if (psProfile != null) psProfile.close(); } catch (SQLException e) {}
             DatabaseConnection.closeConnection(conn);
         }
+        if (success) ReferenceDataCache.getInstance().invalidateTeachers();
         return success;
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.strawhatacademy.event;
+
+/**
+ * This client may have missed changes made by others, e.g. after being
+ * suspended for longer than the change log keeps them. Everything loaded from
+ * the database should be reloaded.
+ */
+public final class ChangesMissed extends DomainEvent {
+}
@@ -0,0 +1,9 @@
+package com.strawhatacademy.event;
+
+/**
+ * Something that was written to the database, published on the EventBus once
+ * the write has committed. Events are immutable and may be delivered to several
+ * threads.
+ */
+public abstract class DomainEvent {
+}
@@ -0,0 +1,120 @@
+package com.strawhatacademy.event;
+
+import java.awt.EventQueue;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe for DomainEvents. The DAOs publish after a
+ * write has committed, and ChangeLogPoller republishes other clients' writes;
+ * subscribers register for one event class (or DomainEvent.class for all) and
+ * run either on the publishing thread or on the EDT. Publishing never blocks:
+ * EDT deliveries go on a queue that a single invokeLater drains, so a burst of
+ * writes costs one hop to the EDT and is delivered in publish order.
+ */
+public final class EventBus {
+
+    private static final EventBus INSTANCE = new EventBus();
+
+    private final ConcurrentHashMap<Class<?>, List<Subscription>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Delivery> edtQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private EventBus() {}
+
+    public static EventBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs the handler on the publishing thread, so it must be thread-safe and quick.
+     */
+    public <E extends DomainEvent> Subscription subscribe(Class<E> type, Consumer<? super E> handler) {
+        return add(new Subscription(type, handler, false));
+    }
+
+    /**
+     * Runs the handler on the EDT, after the events published before it.
+     */
+    public <E extends DomainEvent> Subscription subscribeOnEdt(Class<E> type, Consumer<? super E> handler) {
+        return add(new Subscription(type, handler, true));
+    }
+
+    private Subscription add(Subscription s) {
+        subscribers.computeIfAbsent(s.type, k -> new CopyOnWriteArrayList<>()).add(s);
+        return s;
+    }
+
+    public void publish(DomainEvent event) {
+        deliver(subscribers.get(event.getClass()), event);
+        deliver(subscribers.get(DomainEvent.class), event);
+    }
+
+    private void deliver(List<Subscription> list, DomainEvent event) {
+        if (list == null) return;
+        for (Subscription s : list) {
+            if (!s.onEdt) {
+                s.handle(event);
+            } else {
+                edtQueue.add(new Delivery(s, event));
+                if (drainScheduled.compareAndSet(false, true)) EventQueue.invokeLater(this::drain);
+            }
+        }
+    }
+
+    private void drain() {
+        // Cleared first: anything queued from now on schedules another drain
+        drainScheduled.set(false);
+        Delivery d;
+        while ((d = edtQueue.poll()) != null) {
+            d.subscription.handle(d.event);
+        }
+    }
+
+    private static final class Delivery {
+        final Subscription subscription;
+        final DomainEvent event;
+
+        Delivery(Subscription subscription, DomainEvent event) {
+            this.subscription = subscription;
+            this.event = event;
+        }
+    }
+
+    /**
+     * A registered handler. Cancelling it also drops deliveries still queued for the EDT.
+     */
+    public final class Subscription {
+        private final Class<?> type;
+        private final Consumer<Object> handler;
+        private final boolean onEdt;
+        private volatile boolean active = true;
+
+        @SuppressWarnings("unchecked")
+        private Subscription(Class<?> type, Consumer<?> handler, boolean onEdt) {
+            this.type = type;
+            this.handler = (Consumer<Object>) handler;
+            this.onEdt = onEdt;
+        }
+
+        public void cancel() {
+            active = false;
+            List<Subscription> list = subscribers.get(type);
+            if (list != null) list.remove(this);
+        }
+
+        private void handle(DomainEvent event) {
+            if (!active) return;
+            try {
+                handler.accept(event);
+            } catch (RuntimeException e) {
+                // One failing subscriber must not stop the others or the writer
+                System.err.println("Error handling " + event.getClass().getSimpleName() + ": " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.strawhatacademy.event;
+
+public final class GradeDeleted extends DomainEvent {
+
+    private final int gradeId;
+
+    public GradeDeleted(int gradeId) {
+        this.gradeId = gradeId;
+    }
+
+    public int getGradeId() { return gradeId; }
+}
@@ -0,0 +1,20 @@
+package com.strawhatacademy.event;
+
+import com.strawhatacademy.model.Grade;
+
+/**
+ * A new grade row was inserted.
+ */
+public final class GradeRecorded extends DomainEvent {
+
+    private final Grade grade;
+
+    public GradeRecorded(Grade grade) {
+        this.grade = grade;
+    }
+
+    /**
+     * @return The row as stored, including its grade_id and version. Do not modify.
+     */
+    public Grade getGrade() { return grade; }
+}
@@ -0,0 +1,20 @@
+package com.strawhatacademy.event;
+
+import com.strawhatacademy.model.Grade;
+
+/**
+ * An existing grade row changed its value, date or type.
+ */
+public final class GradeUpdated extends DomainEvent {
+
+    private final Grade grade;
+
+    public GradeUpdated(Grade grade) {
+        this.grade = grade;
+    }
+
+    /**
+     * @return The row as stored, including its new version. Do not modify.
+     */
+    public Grade getGrade() { return grade; }
+}
@@ -0,0 +1,8 @@
+package com.strawhatacademy.event;
+
+/**
+ * Grades changed in a way that was not reported row by row (bulk inserts,
+ * cascaded deletes); anything derived from grades should be rebuilt.
+ */
+public final class GradesChanged extends DomainEvent {
+}
@@ -0,0 +1,8 @@
+package com.strawhatacademy.event;
+
+/**
+ * ReferenceDataCache has new subject or teacher names. Views that render names
+ * from the cache should repaint (and re-sort by name columns).
+ */
+public final class ReferenceDataRefreshed extends DomainEvent {
+}
@@ -0,0 +1,21 @@
+package com.strawhatacademy.event;
+
+/**
+ * A student took a seat in a subject, directly or from the waitlist.
+ */
+public final class StudentEnrolled extends DomainEvent {
+
+    private final int subjectId;
+    private final int studentId;
+    private final boolean fromWaitlist;
+
+    public StudentEnrolled(int subjectId, int studentId, boolean fromWaitlist) {
+        this.subjectId = subjectId;
+        this.studentId = studentId;
+        this.fromWaitlist = fromWaitlist;
+    }
+
+    public int getSubjectId() { return subjectId; }
+    public int getStudentId() { return studentId; }
+    public boolean isFromWaitlist() { return fromWaitlist; }
+}
@@ -0,0 +1,15 @@
+package com.strawhatacademy.event;
+
+public final class StudentUnenrolled extends DomainEvent {
+
+    private final int subjectId;
+    private final int studentId;
+
+    public StudentUnenrolled(int subjectId, int studentId) {
+        this.subjectId = subjectId;
+        this.studentId = studentId;
+    }
+
+    public int getSubjectId() { return subjectId; }
+    public int getStudentId() { return studentId; }
+}
@@ -0,0 +1,17 @@
+package com.strawhatacademy.event;
+
+import com.strawhatacademy.model.Subject;
+
+public final class SubjectAdded extends DomainEvent {
+
+    private final Subject subject;
+
+    public SubjectAdded(Subject subject) {
+        this.subject = subject;
+    }
+
+    /**
+     * @return The new row, including its subject_id.
+     */
+    public Subject getSubject() { return subject; }
+}
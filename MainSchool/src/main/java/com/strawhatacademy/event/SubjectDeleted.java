@@ -0,0 +1,16 @@
+package com.strawhatacademy.event;
+
+/**
+ * A subject was deleted. Its grades and enrollments went with it, which is
+ * published separately as GradesChanged.
+ */
+public final class SubjectDeleted extends DomainEvent {
+
+    private final int subjectId;
+
+    public SubjectDeleted(int subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    public int getSubjectId() { return subjectId; }
+}
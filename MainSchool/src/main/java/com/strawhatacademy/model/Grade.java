@@ -2,31 +2,69 @@ package com.strawhatacademy.model;
 
 import java.time.LocalDate;
 
+/**
+ * One row of the grades table. The date is held as an epoch day and the type
+ * as a shared enum constant, so a grade is a single small object.
+ */
 public class Grade {
+    /** The version of a row written without reading it back; see getVersion(). */
+    public static final int UNKNOWN_VERSION = -1;
+
     private final int gradeId;
     private final int studentId;
     private final int subjectId;
     private double gradeValue;
-    private LocalDate dateRecorded;
-    private String type;
+    private int epochDay;
+    private GradeType type;
+    private int version;
+
+    public Grade(int gradeId, int studentId, int subjectId, double gradeValue, int epochDay, GradeType type) {
+        this(gradeId, studentId, subjectId, gradeValue, epochDay, type, 0);
+    }
 
-    public Grade(int gradeId, int studentId, int subjectId, double gradeValue, LocalDate dateRecorded, String type) {
+    /**
+     * @param version The row's version as read; see getVersion().
+     */
+    public Grade(int gradeId, int studentId, int subjectId, double gradeValue, int epochDay, GradeType type, int version) {
         this.gradeId = gradeId;
         this.studentId = studentId;
         this.subjectId = subjectId;
         this.gradeValue = gradeValue;
-        this.dateRecorded = dateRecorded;
+        this.epochDay = epochDay;
         this.type = type;
+        this.version = version;
+    }
+
+    public Grade(int gradeId, int studentId, int subjectId, double gradeValue, LocalDate dateRecorded, GradeType type) {
+        this(gradeId, studentId, subjectId, gradeValue, (int) dateRecorded.toEpochDay(), type);
     }
 
     public int getGradeId() { return gradeId; }
     public int getStudentId() { return studentId; }
     public int getSubjectId() { return subjectId; }
     public double getGradeValue() { return gradeValue; }
-    public LocalDate getDateRecorded() { return dateRecorded; }
-    public String getType() { return type; }
+
+    /**
+     * Allocates a LocalDate; use getEpochDay() in loops.
+     */
+    public LocalDate getDateRecorded() { return LocalDate.ofEpochDay(epochDay); }
+
+    /**
+     * @return Days since 1970-01-01.
+     */
+    public int getEpochDay() { return epochDay; }
+    public GradeType getType() { return type; }
+
+    /**
+     * @return The number of times the row has been changed; an update only
+     * applies if the database still has this version. UNKNOWN_VERSION after a
+     * blind write that updated an existing row: reading the row supplies it.
+     */
+    public int getVersion() { return version; }
 
     public void setGradeValue(double gradeValue) { this.gradeValue = gradeValue; }
-    public void setDateRecorded(LocalDate date) { this.dateRecorded = date; }
-    public void setType(String type) { this.type = type; }
-}
\ No newline at end of file
+    public void setDateRecorded(LocalDate date) { this.epochDay = (int) date.toEpochDay(); }
+    public void setEpochDay(int epochDay) { this.epochDay = epochDay; }
+    public void setType(GradeType type) { this.type = type; }
+    public void setVersion(int version) { this.version = version; }
+}
@@ -0,0 +1,51 @@
+package com.strawhatacademy.model;
+
+/**
+ * The kinds of grade, mirroring the `type` enum of the grades table.
+ * Declared in the schema's order, so ordinal() + 1 is MySQL's enum index.
+ */
+public enum GradeType {
+
+    EXAM("Exam"),
+    QUIZ("Quiz"),
+    PROJECT("Project"),
+    FINAL("Final");
+
+    private static final GradeType[] VALUES = values();
+
+    private final String dbName;
+
+    GradeType(String dbName) {
+        this.dbName = dbName;
+    }
+
+    /**
+     * @return The value as stored in the database, e.g. "Exam".
+     */
+    public String getDbName() { return dbName; }
+
+    /**
+     * @param dbName A value of the schema enum, e.g. "Exam".
+     * @throws IllegalArgumentException if it is not a grade type.
+     */
+    public static GradeType fromDbName(String dbName) {
+        for (GradeType t : VALUES) {
+            if (t.dbName.equals(dbName)) return t;
+        }
+        throw new IllegalArgumentException("Unknown grade type: " + dbName);
+    }
+
+    /**
+     * @param index MySQL's 1-based enum index, as returned by `type + 0`.
+     */
+    public static GradeType fromEnumIndex(int index) {
+        if (index < 1 || index > VALUES.length) throw new IllegalArgumentException("Unknown grade type index: " + index);
+        return VALUES[index - 1];
+    }
+
+    /**
+     * The database name, so combo boxes and reports show "Exam" rather than "EXAM".
+     */
+    @Override
+    public String toString() { return dbName; }
+}
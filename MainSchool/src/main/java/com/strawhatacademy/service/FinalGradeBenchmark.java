@@ -0,0 +1,95 @@
+package com.strawhatacademy.service;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Throughput check for FinalGradeEngine on synthetic data (no database needed).
+ * Usage: java --add-modules jdk.incubator.vector -cp ... FinalGradeBenchmark [grades] [subjects]
+ */
+public final class FinalGradeBenchmark {
+
+    private static final int WARMUP_RUNS = 10;
+    private static final int MEASURED_RUNS = 25;
+
+    private FinalGradeBenchmark() {}
+
+    public static void main(String[] args) {
+        int grades = args.length > 0 ? Integer.parseInt(args[0]) : 1_200_000;
+        int subjects = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+
+        long start = System.nanoTime();
+        GradeMatrix matrix = synthetic(grades, subjects, new Random(42));
+        long loadNanos = System.nanoTime() - start;
+        int recorded = 0;
+        for (int g = 0; g < matrix.size(); g++) {
+            for (int t = 0; t < WeightPolicy.TYPES.length; t++) {
+                if (!Double.isNaN(matrix.getValue(g, t))) recorded++;
+            }
+        }
+        System.out.printf("%,d grades in %,d (subject, student) groups over %d subjects; matrix built in %.1f ms%n",
+                recorded, matrix.size(), matrix.subjectCount(), loadNanos / 1e6);
+
+        WeightPolicy policy = WeightPolicy.DEFAULT;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        WeightKernel scalar = new ScalarWeightKernel();
+        WeightKernel vector = FinalGradeEngine.vectorKernel();
+
+        FinalGrades reference = new FinalGradeEngine(policy, scalar, pool).computeSequential(matrix);
+        run("scalar, 1 thread", new FinalGradeEngine(policy, scalar, pool), matrix, recorded, false, reference);
+        run("scalar, fork/join", new FinalGradeEngine(policy, scalar, pool), matrix, recorded, true, reference);
+        if (vector == null) {
+            System.out.println("Vector API unavailable (run with --add-modules jdk.incubator.vector)");
+            return;
+        }
+        run(vector.name() + ", 1 thread", new FinalGradeEngine(policy, vector, pool), matrix, recorded, false, reference);
+        run(vector.name() + ", fork/join", new FinalGradeEngine(policy, vector, pool), matrix, recorded, true, reference);
+        System.out.println("fork/join parallelism: " + pool.getParallelism());
+    }
+
+    private static void run(String label, FinalGradeEngine engine, GradeMatrix matrix, int recorded,
+                            boolean parallel, FinalGrades reference) {
+        long[] nanos = new long[MEASURED_RUNS];
+        FinalGrades result = null;
+        for (int i = 0; i < WARMUP_RUNS + MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            result = parallel ? engine.compute(matrix) : engine.computeSequential(matrix);
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP_RUNS) nanos[i - WARMUP_RUNS] = elapsed;
+        }
+        Arrays.sort(nanos);
+        double medianMs = nanos[MEASURED_RUNS / 2] / 1e6;
+        System.out.printf("%-28s median %7.2f ms  %8.1f M grades/s  max diff %.1e%n",
+                label, medianMs, recorded / (medianMs / 1000) / 1e6, maxDifference(result, reference));
+    }
+
+    private static double maxDifference(FinalGrades a, FinalGrades b) {
+        double max = 0;
+        for (int g = 0; g < a.size(); g++) {
+            double x = a.getFinalGrade(g), y = b.getFinalGrade(g);
+            if (Double.isNaN(x) != Double.isNaN(y)) return Double.POSITIVE_INFINITY;
+            if (!Double.isNaN(x)) max = Math.max(max, Math.abs(x - y));
+        }
+        return max;
+    }
+
+    /**
+     * About `grades` grades: each student has each weighted type with 85% probability.
+     */
+    private static GradeMatrix synthetic(int grades, int subjects, Random random) {
+        int groups = (int) Math.ceil(grades / (WeightPolicy.TYPES.length * 0.85));
+        int studentsPerSubject = Math.max(1, groups / subjects);
+        GradeMatrix.Builder builder = GradeMatrix.builder(groups);
+        for (int subject = 1; subject <= subjects; subject++) {
+            for (int student = 1; student <= studentsPerSubject; student++) {
+                for (String type : WeightPolicy.TYPES) {
+                    if (random.nextDouble() < 0.85) {
+                        builder.add(subject, student, type, Math.round(random.nextDouble() * 10000) / 100.0);
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.dao.GradeDAO;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recomputes weighted final grades for every (subject, student) pair under a
+ * WeightPolicy. Grades are loaded once into a columnar GradeMatrix; each policy
+ * change is then a pass over primitive arrays, run with the Vector API when
+ * available and split across subjects on a fork/join pool.
+ * Set -Dstrawhat.engine.vector=false to force the scalar kernel.
+ */
+public class FinalGradeEngine {
+
+    // Below this many groups a subject range is computed in the current task
+    private static final int LEAF_GROUPS = 8192;
+
+    private final WeightPolicy policy;
+    private final WeightKernel kernel;
+    private final ForkJoinPool pool;
+
+    public FinalGradeEngine(WeightPolicy policy) {
+        this(policy, defaultKernel(), ForkJoinPool.commonPool());
+    }
+
+    FinalGradeEngine(WeightPolicy policy, WeightKernel kernel, ForkJoinPool pool) {
+        this.policy = policy;
+        this.kernel = kernel;
+        this.pool = pool;
+    }
+
+    /**
+     * @return "vector(n lanes)" or "scalar".
+     */
+    public String getKernelName() {
+        return kernel.name();
+    }
+
+    /**
+     * Loads every recorded grade into a matrix, streaming through a server-side cursor.
+     * @return The matrix, or null if the query failed.
+     */
+    public static GradeMatrix loadMatrix() {
+        GradeMatrix.Builder builder = GradeMatrix.builder(1024);
+        boolean ok = new GradeDAO().forEachRecordedGradeBySubject(
+                g -> builder.add(g.getSubjectId(), g.getStudentId(), g.getType(), g.getGradeValue()));
+        return ok ? builder.build() : null;
+    }
+
+    /**
+     * Computes every final grade in parallel, one fork/join task per subject range.
+     */
+    public FinalGrades compute(GradeMatrix matrix) {
+        double[] out = new double[matrix.size()];
+        pool.invoke(new SubjectRange(matrix, out, 0, matrix.subjectCount()));
+        return new FinalGrades(matrix, out, policy);
+    }
+
+    /**
+     * Single-threaded variant of compute().
+     */
+    public FinalGrades computeSequential(GradeMatrix matrix) {
+        double[] out = new double[matrix.size()];
+        kernel.apply(matrix.columns(), policy.weights(), out, 0, matrix.size());
+        return new FinalGrades(matrix, out, policy);
+    }
+
+    private final class SubjectRange extends RecursiveAction {
+        private final GradeMatrix matrix;
+        private final double[] out;
+        private final int fromSubject;
+        private final int toSubject;
+
+        SubjectRange(GradeMatrix matrix, double[] out, int fromSubject, int toSubject) {
+            this.matrix = matrix;
+            this.out = out;
+            this.fromSubject = fromSubject;
+            this.toSubject = toSubject;
+        }
+
+        @Override
+        protected void compute() {
+            int from = matrix.subjectStart(fromSubject);
+            int to = matrix.subjectStart(toSubject);
+            if (toSubject - fromSubject > 1 && to - from > LEAF_GROUPS) {
+                int mid = (fromSubject + toSubject) >>> 1;
+                invokeAll(new SubjectRange(matrix, out, fromSubject, mid),
+                          new SubjectRange(matrix, out, mid, toSubject));
+            } else {
+                kernel.apply(matrix.columns(), policy.weights(), out, from, to);
+            }
+        }
+    }
+
+    static WeightKernel defaultKernel() {
+        if (Boolean.parseBoolean(System.getProperty("strawhat.engine.vector", "true"))) {
+            WeightKernel vector = vectorKernel();
+            if (vector != null) return vector;
+        }
+        return new ScalarWeightKernel();
+    }
+
+    /**
+     * @return The SIMD kernel, or null when jdk.incubator.vector is not in the module graph.
+     */
+    static WeightKernel vectorKernel() {
+        try {
+            return (WeightKernel) Class.forName("com.strawhatacademy.service.VectorWeightKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
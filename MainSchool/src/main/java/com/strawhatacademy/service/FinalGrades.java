@@ -0,0 +1,36 @@
+package com.strawhatacademy.service;
+
+/**
+ * Weighted term grades computed by FinalGradeEngine, one per (subject, student)
+ * group of the GradeMatrix they were computed from.
+ */
+public final class FinalGrades {
+
+    private final GradeMatrix matrix;
+    private final double[] finalGrades;
+    private final WeightPolicy policy;
+
+    FinalGrades(GradeMatrix matrix, double[] finalGrades, WeightPolicy policy) {
+        this.matrix = matrix;
+        this.finalGrades = finalGrades;
+        this.policy = policy;
+    }
+
+    public WeightPolicy getPolicy() { return policy; }
+    public int size() { return finalGrades.length; }
+    public int getSubjectId(int group) { return matrix.getSubjectId(group); }
+    public int getStudentId(int group) { return matrix.getStudentId(group); }
+
+    /**
+     * @return The weighted grade, or NaN if the group has no grade of a weighted type.
+     */
+    public double getFinalGrade(int group) { return finalGrades[group]; }
+
+    /**
+     * @return The student's weighted grade in the subject, or NaN if there is none.
+     */
+    public double getFinalGrade(int subjectId, int studentId) {
+        int group = matrix.indexOf(subjectId, studentId);
+        return group < 0 ? Double.NaN : finalGrades[group];
+    }
+}
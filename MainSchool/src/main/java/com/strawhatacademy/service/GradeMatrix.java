@@ -0,0 +1,139 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.model.GradeType;
+import java.util.Arrays;
+
+/**
+ * Recorded grades laid out column by column for bulk computation. Each group is
+ * one (subject, student) pair; groups are ordered by subject, then student, and
+ * every weighted type has its own double[] column with NaN where the student
+ * has no grade of that type. Subjects occupy contiguous group ranges, so work
+ * can be split per subject without copying.
+ */
+public final class GradeMatrix {
+
+    private final int size;
+    private final int[] subjectIds;
+    private final int[] studentIds;
+    // values[type][group]
+    private final double[][] values;
+    // Groups of subject s are [subjectStarts[s], subjectStarts[s + 1])
+    private final int[] subjectStarts;
+
+    private GradeMatrix(int size, int[] subjectIds, int[] studentIds, double[][] values, int[] subjectStarts) {
+        this.size = size;
+        this.subjectIds = subjectIds;
+        this.studentIds = studentIds;
+        this.values = values;
+        this.subjectStarts = subjectStarts;
+    }
+
+    public static Builder builder(int expectedGroups) {
+        return new Builder(expectedGroups);
+    }
+
+    /**
+     * @return The number of (subject, student) groups.
+     */
+    public int size() { return size; }
+    public int getSubjectId(int group) { return subjectIds[group]; }
+    public int getStudentId(int group) { return studentIds[group]; }
+
+    /**
+     * @return The grade of the given WeightPolicy type column, or NaN if there is none.
+     */
+    public double getValue(int group, int typeIndex) { return values[typeIndex][group]; }
+
+    public int subjectCount() { return subjectStarts.length - 1; }
+
+    double[][] columns() { return values; }
+    int subjectStart(int subjectIndex) { return subjectStarts[subjectIndex]; }
+
+    /**
+     * @return The group of the pair, or -1 if the student has no recorded grade in the subject.
+     */
+    public int indexOf(int subjectId, int studentId) {
+        int lo = 0, hi = size - 1;
+        long key = pack(subjectId, studentId);
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = pack(subjectIds[mid], studentIds[mid]);
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private static long pack(int subjectId, int studentId) {
+        return ((long) subjectId << 32) | (studentId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Collects grades that arrive ordered by subject, then student
+     * (as GradeDAO.forEachRecordedGradeBySubject returns them).
+     */
+    public static final class Builder {
+        private int size;
+        private int[] subjectIds;
+        private int[] studentIds;
+        private double[][] values = new double[WeightPolicy.TYPES.length][];
+        private int[] subjectStarts = new int[16];
+        private int subjectCount;
+        private long lastKey = Long.MIN_VALUE;
+
+        private Builder(int expectedGroups) {
+            int capacity = Math.max(16, expectedGroups);
+            subjectIds = new int[capacity];
+            studentIds = new int[capacity];
+            for (int t = 0; t < values.length; t++) values[t] = new double[capacity];
+        }
+
+        /**
+         * Adds one grade. Unknown types are skipped.
+         * @throws IllegalArgumentException if the rows are out of order.
+         */
+        public Builder add(int subjectId, int studentId, String type, double value) {
+            return add(subjectId, studentId, WeightPolicy.typeIndex(type), value);
+        }
+
+        public Builder add(int subjectId, int studentId, GradeType type, double value) {
+            return add(subjectId, studentId, WeightPolicy.typeIndex(type), value);
+        }
+
+        private Builder add(int subjectId, int studentId, int t, double value) {
+            if (t < 0) return this;
+            long key = pack(subjectId, studentId);
+            if (key < lastKey) {
+                throw new IllegalArgumentException("Grades must be ordered by subject, then student");
+            }
+            if (key != lastKey) {
+                if (size == subjectIds.length) grow();
+                if (size == 0 || subjectIds[size - 1] != subjectId) {
+                    if (subjectCount + 1 >= subjectStarts.length) subjectStarts = Arrays.copyOf(subjectStarts, subjectStarts.length * 2);
+                    subjectStarts[subjectCount++] = size;
+                }
+                subjectIds[size] = subjectId;
+                studentIds[size] = studentId;
+                for (double[] column : values) column[size] = Double.NaN;
+                size++;
+                lastKey = key;
+            }
+            values[t][size - 1] = value;
+            return this;
+        }
+
+        private void grow() {
+            int capacity = subjectIds.length + (subjectIds.length >> 1);
+            subjectIds = Arrays.copyOf(subjectIds, capacity);
+            studentIds = Arrays.copyOf(studentIds, capacity);
+            for (int t = 0; t < values.length; t++) values[t] = Arrays.copyOf(values[t], capacity);
+        }
+
+        public GradeMatrix build() {
+            int[] starts = Arrays.copyOf(subjectStarts, subjectCount + 1);
+            starts[subjectCount] = size;
+            return new GradeMatrix(size, subjectIds, studentIds, values, starts);
+        }
+    }
+}
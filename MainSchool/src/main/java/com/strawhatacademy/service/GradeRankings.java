@@ -0,0 +1,424 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.dao.GradeDAO;
+import com.strawhatacademy.dao.UserDAO;
+import com.strawhatacademy.event.ChangesMissed;
+import com.strawhatacademy.event.EventBus;
+import com.strawhatacademy.event.GradeDeleted;
+import com.strawhatacademy.event.GradeRecorded;
+import com.strawhatacademy.event.GradeUpdated;
+import com.strawhatacademy.event.GradesChanged;
+import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.User;
+import com.strawhatacademy.util.IntObjectMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Class ranks and honour lists per subject and school-wide, ranked by the
+ * average of each student's recorded grades (in whole cents).
+ * Every board keeps a Fenwick tree of how many students hold each score, so a
+ * rank is one prefix sum, and an ordered set of (score, student) for top-N
+ * lists; both are updated in O(log n) as grade events arrive on the EventBus,
+ * with no re-sorting. Loaded from the database on first use and again after a bulk change.
+ * A load builds a new State outside the lock and swaps it in; grade events that
+ * arrive meanwhile are queued and replayed onto it, so publishers never wait
+ * for the database.
+ */
+public class GradeRankings {
+
+    // decimal(4,2) grades average to at most 99.99
+    private static final int MAX_CENTS = 10_000;
+    private static final int TYPES = WeightPolicy.TYPES.length;
+
+    private static final GradeRankings INSTANCE = new GradeRankings();
+
+    private final GradeDAO gradeDAO = new GradeDAO();
+    private final UserDAO userDAO = new UserDAO();
+
+    // Guards state and pending; held only for in-memory work
+    private final ReentrantLock lock = new ReentrantLock();
+    // One load at a time; queries that need the data wait here, not on lock
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private State state;
+    // Changes that arrived during the running load, or null if none is running
+    private List<Consumer<State>> pending;
+    // Bumped by each bulk change, so a load that overlapped one is discarded
+    private long generation;
+
+    private GradeRankings() {
+        // On the writer's thread, so a query right after a save already sees it
+        EventBus events = EventBus.getInstance();
+        events.subscribe(GradeRecorded.class, e -> gradeSaved(e.getGrade()));
+        events.subscribe(GradeUpdated.class, e -> gradeSaved(e.getGrade()));
+        events.subscribe(GradeDeleted.class, e -> gradeDeleted(e.getGradeId()));
+        events.subscribe(GradesChanged.class, e -> gradesChanged());
+        events.subscribe(ChangesMissed.class, e -> gradesChanged());
+    }
+
+    public static GradeRankings getInstance() {
+        return INSTANCE;
+    }
+
+    // --- Queries (may block on the first call while loading) ---
+
+    /**
+     * @return The student's rank in the subject (1 = best), or 0 if they have no recorded grade there.
+     */
+    public int getSubjectRank(int subjectId, int studentId) {
+        return read(s -> {
+            State.SubjectBoard board = s.subjects.get(subjectId);
+            State.Standing st = board == null ? null : board.standings.get(studentId);
+            return st == null || st.count == 0 ? 0 : board.rankOf(st.score());
+        }, 0);
+    }
+
+    /**
+     * @return How many students are ranked in the subject.
+     */
+    public int getSubjectSize(int subjectId) {
+        return read(s -> {
+            State.SubjectBoard board = s.subjects.get(subjectId);
+            return board == null ? 0 : board.size;
+        }, 0);
+    }
+
+    /**
+     * @return The best n students of the subject, best first.
+     */
+    public List<RankEntry> getSubjectTop(int subjectId, int n) {
+        return read(s -> {
+            State.SubjectBoard board = s.subjects.get(subjectId);
+            return board == null ? Collections.<RankEntry>emptyList() : board.top(n);
+        }, Collections.emptyList());
+    }
+
+    /**
+     * @return The student's rank over all their grades, or 0 if they have none.
+     */
+    public int getSchoolRank(int studentId) {
+        return read(s -> {
+            Total t = s.schoolTotals.get(studentId);
+            return t == null || t.count == 0 ? 0 : s.school.rankOf(t.score());
+        }, 0);
+    }
+
+    public int getSchoolSize() {
+        return read(s -> s.school.size, 0);
+    }
+
+    public List<RankEntry> getSchoolTop(int n) {
+        return read(s -> s.school.top(n), Collections.emptyList());
+    }
+
+    /**
+     * Runs a query against the loaded state under the lock.
+     * @param none Returned if the data could not be loaded.
+     */
+    private <T> T read(Function<State, T> query, T none) {
+        State s = current();
+        if (s == null) return none;
+        lock.lock();
+        try {
+            return query.apply(s);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Grade events ---
+
+    private void gradeSaved(Grade grade) {
+        apply(s -> s.saved(grade));
+    }
+
+    private void gradeDeleted(int gradeId) {
+        apply(s -> s.deleted(gradeId));
+    }
+
+    /**
+     * Applies a change to the loaded state, and queues it for the state being
+     * loaded if a load is running.
+     */
+    private void apply(Consumer<State> change) {
+        lock.lock();
+        try {
+            if (pending != null) pending.add(change);
+            if (state != null) change.accept(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops everything; the next query reloads from the database.
+     */
+    private void gradesChanged() {
+        lock.lock();
+        try {
+            state = null;
+            generation++;
+            if (pending != null) pending.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Loading ---
+
+    /**
+     * @return The loaded state, loading it first if needed, or null if the load
+     * failed (the next query tries again).
+     */
+    private State current() {
+        lock.lock();
+        try {
+            if (state != null) return state;
+        } finally {
+            lock.unlock();
+        }
+        loadLock.lock();
+        try {
+            while (true) {
+                long loading;
+                lock.lock();
+                try {
+                    if (state != null) return state; // loaded while this thread waited
+                    loading = generation;
+                    pending = new ArrayList<>();
+                } finally {
+                    lock.unlock();
+                }
+                State loaded = load();
+                lock.lock();
+                try {
+                    List<Consumer<State>> changes = pending;
+                    pending = null;
+                    if (loaded == null) return null;
+                    if (generation == loading) {
+                        for (Consumer<State> change : changes) change.accept(loaded);
+                        state = loaded;
+                        return loaded;
+                    }
+                    // A bulk change overlapped the load: load again
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private State load() {
+        State loaded = new State();
+        for (User u : userDAO.getStudents()) {
+            loaded.studentNames.put(u.getUserId(), u.getFirstName() + " " + u.getLastName());
+        }
+        boolean ok = gradeDAO.forEachRecordedGradeBySubject(g -> {
+            int type = WeightPolicy.typeIndex(g.getType());
+            if (type >= 0) loaded.record(g.getGradeId(), g.getSubjectId(), g.getStudentId(), type, toCents(g.getGradeValue()));
+        });
+        return ok ? loaded : null;
+    }
+
+    private static int toCents(double value) {
+        return Math.max(0, Math.min(MAX_CENTS, (int) Math.round(value * 100)));
+    }
+
+    // --- Structures ---
+
+    /**
+     * Everything one load produced plus the events applied since; replaced
+     * as a whole by the next load.
+     */
+    private static final class State {
+        final IntObjectMap<SubjectBoard> subjects = new IntObjectMap<>();
+        final Board school = new Board();
+        final IntObjectMap<Total> schoolTotals = new IntObjectMap<>();
+        // Where each known grade is counted, so an update or delete by id finds its old slot
+        final IntObjectMap<Standing> gradeSlots = new IntObjectMap<>();
+        final IntObjectMap<String> studentNames = new IntObjectMap<>();
+
+        void saved(Grade grade) {
+            int gradeId = grade.getGradeId();
+            int type = WeightPolicy.typeIndex(grade.getType());
+            Standing old = gradeSlots.get(gradeId);
+            if (old != null) {
+                old.clear(gradeId);
+                gradeSlots.remove(gradeId);
+            }
+            if (type >= 0) {
+                record(gradeId, grade.getSubjectId(), grade.getStudentId(), type, toCents(grade.getGradeValue()));
+            }
+        }
+
+        void deleted(int gradeId) {
+            Standing old = gradeSlots.remove(gradeId);
+            if (old != null) old.clear(gradeId);
+        }
+
+        void record(int gradeId, int subjectId, int studentId, int type, int cents) {
+            SubjectBoard board = subjects.get(subjectId);
+            if (board == null) {
+                board = new SubjectBoard();
+                subjects.put(subjectId, board);
+            }
+            Standing s = board.standings.get(studentId);
+            if (s == null) {
+                s = new Standing(board, studentId);
+                board.standings.put(studentId, s);
+            }
+            s.set(gradeId, type, cents);
+            gradeSlots.put(gradeId, s);
+        }
+
+        Total total(int studentId) {
+            Total t = schoolTotals.get(studentId);
+            if (t == null) {
+                t = new Total(studentId);
+                schoolTotals.put(studentId, t);
+            }
+            return t;
+        }
+
+        /**
+         * A student's grades in one subject: at most one per weighted type.
+         */
+        private final class Standing extends Total {
+            final SubjectBoard board;
+            final int[] cents = new int[TYPES];
+            final int[] gradeIds = new int[TYPES];
+
+            Standing(SubjectBoard board, int studentId) {
+                super(studentId);
+                this.board = board;
+                java.util.Arrays.fill(cents, -1);
+            }
+
+            void set(int gradeId, int type, int value) {
+                int before = count == 0 ? -1 : score();
+                Total schoolTotal = total(studentId);
+                int schoolBefore = schoolTotal.count == 0 ? -1 : schoolTotal.score();
+                if (cents[type] >= 0) {
+                    sum -= cents[type];
+                    count--;
+                    schoolTotal.sum -= cents[type];
+                    schoolTotal.count--;
+                }
+                cents[type] = value;
+                gradeIds[type] = gradeId;
+                sum += value;
+                count++;
+                schoolTotal.sum += value;
+                schoolTotal.count++;
+                board.move(studentId, before, score());
+                school.move(studentId, schoolBefore, schoolTotal.score());
+            }
+
+            void clear(int gradeId) {
+                for (int t = 0; t < TYPES; t++) {
+                    if (cents[t] >= 0 && gradeIds[t] == gradeId) {
+                        Total schoolTotal = total(studentId);
+                        int before = score();
+                        int schoolBefore = schoolTotal.score();
+                        sum -= cents[t];
+                        count--;
+                        schoolTotal.sum -= cents[t];
+                        schoolTotal.count--;
+                        cents[t] = -1;
+                        board.move(studentId, before, count == 0 ? -1 : score());
+                        school.move(studentId, schoolBefore, schoolTotal.count == 0 ? -1 : schoolTotal.score());
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Order-statistic view of one set of scores.
+         */
+        private class Board {
+            // Fenwick tree: number of students per score, indexed by cents + 1
+            private final int[] tree = new int[MAX_CENTS + 2];
+            // (MAX_CENTS - score) << 32 | studentId, so ascending order is best first
+            private final TreeSet<Long> order = new TreeSet<>();
+            int size;
+
+            /**
+             * Moves a student between scores; -1 means "not ranked".
+             */
+            void move(int studentId, int from, int to) {
+                if (from == to) return;
+                if (from >= 0) {
+                    add(from, -1);
+                    order.remove(key(from, studentId));
+                    size--;
+                }
+                if (to >= 0) {
+                    add(to, 1);
+                    order.add(key(to, studentId));
+                    size++;
+                }
+            }
+
+            private void add(int score, int delta) {
+                for (int i = score + 1; i < tree.length; i += i & -i) tree[i] += delta;
+            }
+
+            // Students with a score <= the given one
+            private int countAtMost(int score) {
+                int n = 0;
+                for (int i = score + 1; i > 0; i -= i & -i) n += tree[i];
+                return n;
+            }
+
+            int rankOf(int score) {
+                return size - countAtMost(score) + 1;
+            }
+
+            List<RankEntry> top(int n) {
+                List<RankEntry> top = new ArrayList<>(Math.min(n, size));
+                Iterator<Long> it = order.iterator();
+                while (it.hasNext() && top.size() < n) {
+                    long k = it.next();
+                    int score = MAX_CENTS - (int) (k >>> 32);
+                    int studentId = (int) k;
+                    top.add(new RankEntry(rankOf(score), studentId, studentNames.get(studentId), score / 100.0));
+                }
+                return top;
+            }
+
+            private long key(int score, int studentId) {
+                return ((long) (MAX_CENTS - score) << 32) | (studentId & 0xFFFFFFFFL);
+            }
+        }
+
+        private final class SubjectBoard extends Board {
+            final IntObjectMap<Standing> standings = new IntObjectMap<>();
+        }
+    }
+
+    /**
+     * A sum and count of grades in cents; the score is their rounded mean.
+     */
+    private static class Total {
+        final int studentId;
+        long sum;
+        int count;
+
+        Total(int studentId) {
+            this.studentId = studentId;
+        }
+
+        int score() {
+            return (int) Math.round((double) sum / count);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.strawhatacademy.service;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of a grade snapshot file, shared by GradeSnapshotWriter and GradeSnapshotReader.
+ * <pre>
+ * header (HEADER_SIZE bytes, little-endian):
+ *   0  int   MAGIC            4  int   VERSION
+ *   8  long  created (epoch millis)
+ *   16 int   row count        20 int   subject count
+ *   24 long  offset of each column, in COLUMN order (7 longs)
+ * columns, each starting on an 8-byte boundary, rows ordered by subject, student and type:
+ *   grade ids int, student ids int, subject ids int, values short (cents, NULL_VALUE if none),
+ *   dates int (epoch day), types byte (GradeType ordinal)
+ * index: one (subject id int, first row int, row count int) per subject, by subject id
+ * </pre>
+ */
+final class GradeSnapshotFormat {
+
+    static final int MAGIC = 0x53484753; // "SHGS"
+    // Version 1 files could hold 'Registered' enrollment rows (type 4)
+    static final int VERSION = 2;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int HEADER_SIZE = 128;
+
+    static final int COL_GRADE_ID = 0;
+    static final int COL_STUDENT_ID = 1;
+    static final int COL_SUBJECT_ID = 2;
+    static final int COL_VALUE = 3;
+    static final int COL_DATE = 4;
+    static final int COL_TYPE = 5;
+    static final int COL_INDEX = 6;
+    static final int COLUMNS = 7;
+    static final int[] COLUMN_WIDTH = {4, 4, 4, 2, 4, 1, 12};
+
+    static final int OFFSETS_POSITION = 24;
+    static final int INDEX_ENTRY_SIZE = 12;
+
+    /**
+     * Stored value of a grade without one.
+     */
+    static final short NULL_VALUE = -1;
+
+    private GradeSnapshotFormat() {}
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,206 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.dao.GradeHistogram;
+import com.strawhatacademy.dao.GradeStatistics;
+import com.strawhatacademy.model.GradeType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.strawhatacademy.service.GradeSnapshotFormat.*;
+
+/**
+ * Read-only view of a grade snapshot written by GradeSnapshotWriter. The file
+ * is memory-mapped and every accessor is an absolute read from a typed view of
+ * one column, so scans allocate nothing per row and run from the page cache
+ * without touching the database. Rows are ordered by subject, student and type;
+ * subjectFirstRow/subjectRowCount locate one subject's rows through the index.
+ * Safe for concurrent readers. Files over 2 GB are not supported.
+ */
+public class GradeSnapshotReader {
+
+    /**
+     * Receives row numbers during a scan.
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(int row);
+    }
+
+    private static final GradeType[] TYPES = GradeType.values();
+
+    private final long createdMillis;
+    private final int rowCount;
+    private final int subjectCount;
+    private final IntBuffer gradeIds;
+    private final IntBuffer studentIds;
+    private final IntBuffer subjectIds;
+    private final ShortBuffer values;
+    private final IntBuffer epochDays;
+    private final ByteBuffer types;
+    private final IntBuffer index;
+
+    /**
+     * Maps the file. The mapping stays valid after the channel is closed and is
+     * released when the reader is garbage collected.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public GradeSnapshotReader(Path file) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map: " + file);
+            if (channel.size() < HEADER_SIZE) throw new IOException("Not a grade snapshot: " + file);
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        map.order(ORDER);
+        if (map.getInt(0) != MAGIC) throw new IOException("Not a grade snapshot: " + file);
+        if (map.getInt(4) != VERSION) throw new IOException("Unsupported snapshot version " + map.getInt(4) + ": " + file);
+        createdMillis = map.getLong(8);
+        rowCount = map.getInt(16);
+        subjectCount = map.getInt(20);
+
+        ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+        for (int c = 0; c < COLUMNS; c++) {
+            long offset = map.getLong(OFFSETS_POSITION + 8 * c);
+            long length = (long) (c == COL_INDEX ? subjectCount : rowCount) * COLUMN_WIDTH[c];
+            if (offset < HEADER_SIZE || offset + length > map.capacity()) throw new IOException("Corrupt grade snapshot: " + file);
+            columns[c] = map.slice((int) offset, (int) length).order(ORDER);
+        }
+        gradeIds = columns[COL_GRADE_ID].asIntBuffer();
+        studentIds = columns[COL_STUDENT_ID].asIntBuffer();
+        subjectIds = columns[COL_SUBJECT_ID].asIntBuffer();
+        values = columns[COL_VALUE].asShortBuffer();
+        epochDays = columns[COL_DATE].asIntBuffer();
+        types = columns[COL_TYPE];
+        index = columns[COL_INDEX].asIntBuffer();
+    }
+
+    public long getCreatedMillis() { return createdMillis; }
+    public int getRowCount() { return rowCount; }
+    public int getSubjectCount() { return subjectCount; }
+
+    // --- Row access ---
+
+    public int getGradeId(int row) { return gradeIds.get(row); }
+    public int getStudentId(int row) { return studentIds.get(row); }
+    public int getSubjectId(int row) { return subjectIds.get(row); }
+
+    /**
+     * @return The grade in hundredths of a point, or -1 for a row without a value.
+     */
+    public int getValueCents(int row) { return values.get(row); }
+
+    /**
+     * @return The grade, or NaN for a row without a value.
+     */
+    public double getValue(int row) {
+        int cents = values.get(row);
+        return cents == NULL_VALUE ? Double.NaN : cents / 100.0;
+    }
+
+    public int getEpochDay(int row) { return epochDays.get(row); }
+
+    /**
+     * @return The GradeType ordinal.
+     */
+    public int getTypeCode(int row) { return types.get(row); }
+
+    public GradeType getType(int row) { return TYPES[types.get(row)]; }
+
+    // --- Subject index ---
+
+    /**
+     * @return The subject at the given index position (0 .. subjectCount - 1), in id order.
+     */
+    public int getIndexedSubjectId(int position) { return index.get(position * 3); }
+
+    /**
+     * @return The first row of the subject, or -1 if it has no rows.
+     */
+    public int subjectFirstRow(int subjectId) {
+        int position = findSubject(subjectId);
+        return position < 0 ? -1 : index.get(position * 3 + 1);
+    }
+
+    public int subjectRowCount(int subjectId) {
+        int position = findSubject(subjectId);
+        return position < 0 ? 0 : index.get(position * 3 + 2);
+    }
+
+    private int findSubject(int subjectId) {
+        int lo = 0, hi = subjectCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int id = index.get(mid * 3);
+            if (id < subjectId) lo = mid + 1;
+            else if (id > subjectId) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    // --- Scans ---
+
+    public void forEachRow(RowVisitor visitor) {
+        for (int row = 0; row < rowCount; row++) visitor.visit(row);
+    }
+
+    public void forEachRowOfSubject(int subjectId, RowVisitor visitor) {
+        int position = findSubject(subjectId);
+        if (position < 0) return;
+        int first = index.get(position * 3 + 1);
+        int end = first + index.get(position * 3 + 2);
+        for (int row = first; row < end; row++) visitor.visit(row);
+    }
+
+    /**
+     * Count, mean, min, max and standard deviation of each subject's recorded
+     * grades, in one pass; the same figures GradeStatisticsDAO groups by subject.
+     * Labels are null: the snapshot holds ids only.
+     */
+    public List<GradeStatistics> statisticsBySubject() {
+        List<GradeStatistics> result = new ArrayList<>(subjectCount);
+        for (int position = 0; position < subjectCount; position++) {
+            int first = index.get(position * 3 + 1);
+            int end = first + index.get(position * 3 + 2);
+            long count = 0, sum = 0, sumSq = 0;
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int row = first; row < end; row++) {
+                int cents = values.get(row);
+                if (cents == NULL_VALUE) continue;
+                count++;
+                sum += cents;
+                sumSq += (long) cents * cents;
+                min = Math.min(min, cents);
+                max = Math.max(max, cents);
+            }
+            if (count == 0) continue;
+            double mean = (double) sum / count;
+            double variance = Math.max(0.0, (double) sumSq / count - mean * mean);
+            result.add(new GradeStatistics(index.get(position * 3), null, count, mean / 100,
+                    min / 100.0, max / 100.0, Math.sqrt(variance) / 100));
+        }
+        return result;
+    }
+
+    /**
+     * Distribution of one subject's grades.
+     * @param type A grade type, or null for all types.
+     */
+    public GradeHistogram histogram(int subjectId, GradeType type) {
+        int typeCode = type == null ? -1 : type.ordinal();
+        GradeHistogram histogram = new GradeHistogram();
+        forEachRowOfSubject(subjectId, row -> {
+            int cents = values.get(row);
+            if (cents != NULL_VALUE && (typeCode < 0 || types.get(row) == typeCode)) histogram.add(cents / 100.0);
+        });
+        return histogram;
+    }
+}
@@ -0,0 +1,96 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.dao.DatabaseConnection;
+import com.strawhatacademy.dao.GradeStatistics;
+import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.GradeType;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Command line for grade snapshots, e.g. from a nightly job.
+ * Usage: java -cp ... GradeSnapshotTool export FILE
+ *        java -cp ... GradeSnapshotTool stats FILE
+ *        java -cp ... GradeSnapshotTool synthetic FILE [grades] [subjects]   (no database needed)
+ */
+public final class GradeSnapshotTool {
+
+    private static final int SCAN_RUNS = 10;
+
+    private GradeSnapshotTool() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GradeSnapshotTool export|stats|synthetic FILE [grades] [subjects]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[1]);
+        switch (args[0]) {
+            case "export": export(file); break;
+            case "stats": stats(file); break;
+            case "synthetic":
+                int grades = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+                int subjects = args.length > 3 ? Integer.parseInt(args[3]) : 400;
+                synthetic(file, grades, subjects);
+                break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+        }
+    }
+
+    private static void export(Path file) {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            System.err.println("FATAL ERROR: MySQL JDBC Driver not found.");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        int rows = new GradeSnapshotWriter().export(file);
+        DatabaseConnection.shutdown();
+        if (rows < 0) System.exit(1);
+        System.out.printf("Exported %,d grades to %s in %.1f s%n", rows, file, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void synthetic(Path file, int grades, int subjects) {
+        Random random = new Random(42);
+        int perSubject = Math.max(1, grades / subjects);
+        LocalDate first = LocalDate.of(2025, 1, 1);
+        int rows = new GradeSnapshotWriter().export(file, consumer -> {
+            int id = 1;
+            for (int subject = 1; subject <= subjects; subject++) {
+                for (int i = 0; i < perSubject; i++) {
+                    GradeType type = GradeType.fromDbName(WeightPolicy.TYPES[i % WeightPolicy.TYPES.length]);
+                    consumer.accept(new Grade(id++, 1000 + i / WeightPolicy.TYPES.length, subject,
+                            Math.round(random.nextDouble() * 9999) / 100.0, first.plusDays(random.nextInt(365)), type));
+                }
+            }
+            return true;
+        });
+        if (rows < 0) System.exit(1);
+        System.out.printf("Wrote %,d synthetic grades to %s%n", rows, file);
+    }
+
+    private static void stats(Path file) throws IOException {
+        GradeSnapshotReader snapshot = new GradeSnapshotReader(file);
+        System.out.printf("Snapshot of %s: %,d grades in %,d subjects%n",
+                Instant.ofEpochMilli(snapshot.getCreatedMillis()), snapshot.getRowCount(), snapshot.getSubjectCount());
+        List<GradeStatistics> stats = null;
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < SCAN_RUNS; run++) {
+            long start = System.nanoTime();
+            stats = snapshot.statisticsBySubject();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        for (GradeStatistics s : stats) {
+            System.out.printf("subject %6d  n=%,9d  mean %6.2f  min %6.2f  max %6.2f  sd %6.2f%n",
+                    s.getGroupId(), s.getCount(), s.getMean(), s.getMin(), s.getMax(), s.getStdDev());
+        }
+        System.out.printf("Statistics pass: %.1f ms, %.0f M grades/s%n", best / 1e6, snapshot.getRowCount() / (best / 1e9) / 1e6);
+    }
+}
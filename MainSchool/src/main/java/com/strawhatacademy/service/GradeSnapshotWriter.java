@@ -0,0 +1,184 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.dao.GradeDAO;
+import com.strawhatacademy.model.Grade;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import static com.strawhatacademy.service.GradeSnapshotFormat.*;
+
+/**
+ * Exports the grades table to a columnar snapshot file (see GradeSnapshotFormat)
+ * for GradeSnapshotReader. Rows are streamed from one query into a temporary
+ * file per column, so memory use does not grow with the table; the columns are
+ * then concatenated behind the header and the finished file is moved into place,
+ * so readers never see a half-written snapshot.
+ */
+public class GradeSnapshotWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Delivers grades ordered by subject id, NaN for a grade without a value;
+     * returns false if it failed part way.
+     */
+    @FunctionalInterface
+    public interface GradeSource {
+        boolean forEach(Consumer<Grade> consumer);
+    }
+
+    private final GradeDAO gradeDAO = new GradeDAO();
+
+    /**
+     * A column being written to its own temporary file.
+     */
+    private static class ColumnFile implements AutoCloseable {
+        final Path path;
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+
+        ColumnFile(Path dir, int column) throws IOException {
+            path = Files.createTempFile(dir, "grades-col" + column + "-", ".tmp");
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        }
+
+        ByteBuffer room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+            return buffer;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Writes every grade in the database to the target file, replacing it if it exists.
+     * @return The number of rows written, or -1 if the export failed.
+     */
+    public int export(Path target) {
+        return export(target, gradeDAO::forEachGradeBySubject);
+    }
+
+    /**
+     * Writes the grades of any source, e.g. synthetic data for benchmarks.
+     * @return The number of rows written, or -1 if the export failed.
+     */
+    public int export(Path target, GradeSource source) {
+        Path dir = target.toAbsolutePath().getParent();
+        ColumnFile[] columns = new ColumnFile[COLUMNS];
+        try {
+            for (int c = 0; c < COLUMNS; c++) columns[c] = new ColumnFile(dir, c);
+            int[] rows = {0};
+            int[] subjects = {0};
+            int[] currentSubject = {0};
+            int[] subjectStart = {0};
+            boolean complete = source.forEach(g -> {
+                try {
+                    if (rows[0] > 0 && g.getSubjectId() < currentSubject[0]) {
+                        throw new IllegalStateException("Grades are not ordered by subject");
+                    }
+                    if (rows[0] > 0 && g.getSubjectId() != currentSubject[0]) {
+                        writeIndexEntry(columns[COL_INDEX], currentSubject[0], subjectStart[0], rows[0] - subjectStart[0]);
+                        subjects[0]++;
+                        subjectStart[0] = rows[0];
+                    }
+                    currentSubject[0] = g.getSubjectId();
+                    writeRow(columns, g);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!complete) return -1;
+            if (rows[0] > 0) {
+                writeIndexEntry(columns[COL_INDEX], currentSubject[0], subjectStart[0], rows[0] - subjectStart[0]);
+                subjects[0]++;
+            }
+            assemble(target, columns, rows[0], subjects[0]);
+            return rows[0];
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            System.err.println("Error writing grade snapshot: " + e.getMessage());
+            return -1;
+        } finally {
+            for (ColumnFile column : columns) {
+                if (column == null) continue;
+                try {
+                    column.close();
+                } catch (IOException e) {
+                    System.err.println("Error removing snapshot temp file: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void writeRow(ColumnFile[] columns, Grade g) throws IOException {
+        columns[COL_GRADE_ID].room(4).putInt(g.getGradeId());
+        columns[COL_STUDENT_ID].room(4).putInt(g.getStudentId());
+        columns[COL_SUBJECT_ID].room(4).putInt(g.getSubjectId());
+        double value = g.getGradeValue();
+        columns[COL_VALUE].room(2).putShort(Double.isNaN(value) ? NULL_VALUE : (short) Math.round(value * 100));
+        columns[COL_DATE].room(4).putInt(g.getEpochDay());
+        columns[COL_TYPE].room(1).put((byte) g.getType().ordinal());
+    }
+
+    private static void writeIndexEntry(ColumnFile index, int subjectId, int firstRow, int rowCount) throws IOException {
+        index.room(INDEX_ENTRY_SIZE).putInt(subjectId).putInt(firstRow).putInt(rowCount);
+    }
+
+    /**
+     * Header, then each column copied from its temp file, then an atomic move over the target.
+     */
+    private static void assemble(Path target, ColumnFile[] columns, int rows, int subjects) throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        boolean done = false;
+        try {
+            try (FileChannel out = FileChannel.open(partial, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long[] offsets = new long[COLUMNS];
+                long position = HEADER_SIZE;
+                for (int c = 0; c < COLUMNS; c++) {
+                    columns[c].flush();
+                    position = align(position);
+                    offsets[c] = position;
+                    long size = columns[c].channel.size();
+                    long copied = 0;
+                    while (copied < size) {
+                        copied += columns[c].channel.transferTo(copied, size - copied, out.position(position + copied));
+                    }
+                    position += size;
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+                header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(rows).putInt(subjects);
+                for (long offset : offsets) header.putLong(offset);
+                header.clear();
+                out.position(0);
+                while (header.hasRemaining()) out.write(header);
+                out.force(true);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+        } finally {
+            if (!done) Files.deleteIfExists(partial);
+        }
+    }
+}
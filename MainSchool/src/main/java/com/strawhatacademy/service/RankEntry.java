@@ -0,0 +1,28 @@
+package com.strawhatacademy.service;
+
+/**
+ * One line of a ranking: a student, their average and their rank (ties share a rank).
+ */
+public class RankEntry {
+
+    private final int rank;
+    private final int studentId;
+    private final String studentName;
+    private final double average;
+
+    public RankEntry(int rank, int studentId, String studentName, double average) {
+        this.rank = rank;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.average = average;
+    }
+
+    public int getRank() { return rank; }
+    public int getStudentId() { return studentId; }
+
+    /**
+     * @return "First Last", or null if the student registered after the rankings were loaded.
+     */
+    public String getStudentName() { return studentName; }
+    public double getAverage() { return average; }
+}
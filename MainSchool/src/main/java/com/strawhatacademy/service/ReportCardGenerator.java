@@ -0,0 +1,293 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.dao.GradeDAO;
+import com.strawhatacademy.dao.ReferenceDataCache;
+import com.strawhatacademy.dao.TeacherGradeRow;
+import com.strawhatacademy.model.Grade;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Writes one report card per student for the whole school, including students
+ * without grades. All grades are read in a single streaming query ordered by
+ * student, so each student's rows arrive together and are handed off as soon as
+ * the next student starts; only the cards in flight are ever in memory. If the
+ * query fails, the student it stopped in gets no card rather than a partial one. Worker threads compute
+ * each subject's weighted term grade and write the card through a FileChannel.
+ * At most twice the parallelism of cards are queued or being written, which
+ * holds back the reader when the disk is the bottleneck.
+ * A card depends only on that student's rows, so the files are byte-for-byte
+ * the same for any degree of parallelism.
+ */
+public class ReportCardGenerator {
+
+    public enum Format {
+        TEXT(".txt"), HTML(".html");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private static final long PROGRESS_INTERVAL_NANOS = 250_000_000L;
+
+    private final GradeDAO gradeDAO = new GradeDAO();
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+    private final Path outputDir;
+    private final Format format;
+    private final String term;
+    private final WeightPolicy policy;
+    private final int parallelism;
+
+    /**
+     * @param term Printed in each card's heading, e.g. "Term 1, 2025/26".
+     * @param parallelism Worker threads rendering and writing cards.
+     */
+    public ReportCardGenerator(Path outputDir, Format format, String term, WeightPolicy policy, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.outputDir = outputDir;
+        this.format = format;
+        this.term = term;
+        this.policy = policy;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * One student's grades, in subject and type order.
+     */
+    private static class StudentRows {
+        final int studentId;
+        final String name;
+        final List<Grade> grades = new ArrayList<>();
+
+        StudentRows(int studentId, String name) {
+            this.studentId = studentId;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Runs the whole batch on the calling thread plus the worker pool.
+     * @param progress Called on the calling thread about four times a second and once at the end; may be null.
+     * @return The final tally, marked incomplete if the grade query failed, or
+     * null if the output directory could not be created.
+     */
+    public ReportCardProgress generate(Consumer<ReportCardProgress> progress) {
+        try {
+            Files.createDirectories(outputDir);
+        } catch (IOException e) {
+            System.err.println("Error creating report card directory: " + e.getMessage());
+            return null;
+        }
+        referenceData.getAllSubjects(); // warm subject names before the workers need them
+
+        long start = System.nanoTime();
+        int maxInFlight = parallelism * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        long[] gradesRead = {0};
+        long[] lastReport = {start};
+        StudentRows[] current = {null};
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "report-card-writer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Consumer<StudentRows> submit = rows -> {
+            inFlight.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    bytes.addAndGet(write(rows));
+                    written.incrementAndGet();
+                } catch (IOException e) {
+                    System.err.println("Error writing report card for student " + rows.studentId + ": " + e.getMessage());
+                    failures.incrementAndGet();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        };
+
+        boolean complete;
+        try {
+            complete = gradeDAO.forEachStudentWithGrades(row -> {
+                Grade g = row.getGrade();
+                int studentId = row.getStudentId();
+                if (current[0] == null || current[0].studentId != studentId) {
+                    if (current[0] != null) submit.accept(current[0]);
+                    current[0] = new StudentRows(studentId, row.getStudentName());
+                }
+                if (g == null) return; // no grades yet: still gets a card
+                current[0].grades.add(g);
+                gradesRead[0]++;
+                long now = System.nanoTime();
+                if (progress != null && now - lastReport[0] >= PROGRESS_INTERVAL_NANOS) {
+                    lastReport[0] = now;
+                    progress.accept(new ReportCardProgress(gradesRead[0], written.get(), failures.get(), bytes.get(),
+                            now - start, false, false));
+                }
+            });
+            // After a failure the last student's rows may be cut short
+            if (complete && current[0] != null) submit.accept(current[0]);
+            // Every permit back means every card has been written
+            inFlight.acquireUninterruptibly(maxInFlight);
+        } finally {
+            workers.shutdown();
+        }
+        if (!complete) System.err.println("Report card run stopped early: the grade query failed.");
+
+        ReportCardProgress result = new ReportCardProgress(gradesRead[0], written.get(), failures.get(), bytes.get(),
+                System.nanoTime() - start, true, !complete);
+        if (progress != null) progress.accept(result);
+        return result;
+    }
+
+    public Path fileFor(int studentId) {
+        return outputDir.resolve("report_card_" + studentId + format.extension);
+    }
+
+    private long write(StudentRows rows) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(render(rows));
+        long size = buffer.remaining();
+        try (FileChannel channel = FileChannel.open(fileFor(rows.studentId),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return size;
+    }
+
+    // --- Rendering ---
+
+    /**
+     * What a card shows: each subject's grades by type, in TYPES-major columns
+     * as the weight kernels take them, and its weighted term grade.
+     */
+    private static class Card {
+        final String[] subjects;
+        final double[][] values;
+        final double[] termGrades;
+        double average = Double.NaN;
+        double termAverage = Double.NaN;
+
+        Card(int subjectCount) {
+            subjects = new String[subjectCount];
+            values = new double[WeightPolicy.TYPES.length][subjectCount];
+            for (double[] column : values) Arrays.fill(column, Double.NaN);
+            termGrades = new double[subjectCount];
+        }
+    }
+
+    private String render(StudentRows rows) {
+        int subjectCount = 0;
+        int subjectId = 0;
+        for (Grade g : rows.grades) {
+            if (subjectCount == 0 || g.getSubjectId() != subjectId) {
+                subjectId = g.getSubjectId();
+                subjectCount++;
+            }
+        }
+        Card card = new Card(subjectCount);
+        int s = -1;
+        double sum = 0;
+        int count = 0;
+        for (Grade g : rows.grades) {
+            if (s < 0 || g.getSubjectId() != subjectId) {
+                subjectId = g.getSubjectId();
+                String name = referenceData.getSubjectName(subjectId);
+                card.subjects[++s] = name != null ? name : "Subject #" + subjectId;
+            }
+            int t = WeightPolicy.typeIndex(g.getType());
+            double v = g.getGradeValue();
+            if (t >= 0 && !Double.isNaN(v)) {
+                card.values[t][s] = v;
+                sum += v;
+                count++;
+            }
+        }
+        double[] weights = policy.weights();
+        double termSum = 0;
+        int graded = 0;
+        for (int i = 0; i < subjectCount; i++) {
+            card.termGrades[i] = ScalarWeightKernel.weigh(card.values, weights, i);
+            if (!Double.isNaN(card.termGrades[i])) {
+                termSum += card.termGrades[i];
+                graded++;
+            }
+        }
+        if (count > 0) card.average = sum / count;
+        if (graded > 0) card.termAverage = termSum / graded;
+        return format == Format.HTML ? renderHtml(rows, card) : renderText(rows, card);
+    }
+
+    private String renderText(StudentRows rows, Card card) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Straw Hat Academy - Report Card\n");
+        sb.append(term).append('\n');
+        sb.append("Student: ").append(rows.name).append(" (ID ").append(rows.studentId).append(")\n\n");
+        sb.append(String.format(Locale.ROOT, "%-30s", "Subject"));
+        for (String type : WeightPolicy.TYPES) sb.append(String.format(Locale.ROOT, "%9s", type));
+        sb.append(String.format(Locale.ROOT, "%9s", "Term")).append('\n');
+        for (int i = 0; i < card.subjects.length; i++) {
+            sb.append(String.format(Locale.ROOT, "%-30s", card.subjects[i]));
+            for (double[] column : card.values) sb.append(String.format(Locale.ROOT, "%9s", number(column[i])));
+            sb.append(String.format(Locale.ROOT, "%9s", number(card.termGrades[i]))).append('\n');
+        }
+        sb.append('\n');
+        sb.append("Average of all grades: ").append(number(card.average)).append('\n');
+        sb.append("Term average:          ").append(number(card.termAverage)).append('\n');
+        return sb.toString();
+    }
+
+    private String renderHtml(StudentRows rows, Card card) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Report Card - ")
+          .append(escape(rows.name)).append("</title></head>\n<body>\n");
+        sb.append("<h1>Straw Hat Academy - Report Card</h1>\n");
+        sb.append("<h2>").append(escape(term)).append("</h2>\n");
+        sb.append("<p>Student: ").append(escape(rows.name)).append(" (ID ").append(rows.studentId).append(")</p>\n");
+        sb.append("<table border=\"1\">\n<tr><th>Subject</th>");
+        for (String type : WeightPolicy.TYPES) sb.append("<th>").append(type).append("</th>");
+        sb.append("<th>Term</th></tr>\n");
+        for (int i = 0; i < card.subjects.length; i++) {
+            sb.append("<tr><td>").append(escape(card.subjects[i])).append("</td>");
+            for (double[] column : card.values) sb.append("<td>").append(number(column[i])).append("</td>");
+            sb.append("<td><b>").append(number(card.termGrades[i])).append("</b></td></tr>\n");
+        }
+        sb.append("</table>\n");
+        sb.append("<p>Average of all grades: ").append(number(card.average)).append("<br>\n");
+        sb.append("Term average: ").append(number(card.termAverage)).append("</p>\n");
+        sb.append("</body></html>\n");
+        return sb.toString();
+    }
+
+    private static String number(double v) {
+        return Double.isNaN(v) ? "-" : String.format(Locale.ROOT, "%.2f", v);
+    }
+
+    private static String escape(String text) {
+        if (text == null) return "";
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
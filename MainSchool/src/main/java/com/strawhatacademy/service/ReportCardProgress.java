@@ -0,0 +1,59 @@
+package com.strawhatacademy.service;
+
+/**
+ * Snapshot of a report-card run: how far it got and how fast.
+ */
+public class ReportCardProgress {
+
+    private final long gradesRead;
+    private final int studentsWritten;
+    private final int failures;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+    private final boolean finished;
+    private final boolean incomplete;
+
+    public ReportCardProgress(long gradesRead, int studentsWritten, int failures, long bytesWritten,
+                              long elapsedNanos, boolean finished, boolean incomplete) {
+        this.gradesRead = gradesRead;
+        this.studentsWritten = studentsWritten;
+        this.failures = failures;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+        this.finished = finished;
+        this.incomplete = incomplete;
+    }
+
+    public long getGradesRead() { return gradesRead; }
+    public int getStudentsWritten() { return studentsWritten; }
+
+    /**
+     * @return Students whose report card could not be written.
+     */
+    public int getFailures() { return failures; }
+    public long getBytesWritten() { return bytesWritten; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public boolean isFinished() { return finished; }
+
+    /**
+     * @return true if the grade query failed, so students after the last card
+     * written got none.
+     */
+    public boolean isIncomplete() { return incomplete; }
+
+    public double getStudentsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : studentsWritten / (elapsedNanos / 1e9);
+    }
+
+    public double getGradesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : gradesRead / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d report cards (%,d grades) in %.1f s: %.0f cards/s, %.0f grades/s%s%s",
+                studentsWritten, gradesRead, elapsedNanos / 1e9, getStudentsPerSecond(), getGradesPerSecond(),
+                failures > 0 ? ", " + failures + " failed" : "",
+                incomplete ? ", stopped early" : "");
+    }
+}
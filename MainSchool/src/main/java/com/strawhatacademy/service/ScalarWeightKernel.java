@@ -0,0 +1,29 @@
+package com.strawhatacademy.service;
+
+/**
+ * Plain loop implementation, used when the Vector API is not available.
+ */
+final class ScalarWeightKernel implements WeightKernel {
+
+    @Override
+    public void apply(double[][] values, double[] weights, double[] out, int from, int to) {
+        for (int g = from; g < to; g++) {
+            out[g] = weigh(values, weights, g);
+        }
+    }
+
+    static double weigh(double[][] values, double[] weights, int g) {
+        double num = 0, den = 0;
+        for (int t = 0; t < values.length; t++) {
+            double v = values[t][g];
+            if (v == v && weights[t] != 0) { // skips NaN (missing)
+                num += weights[t] * v;
+                den += weights[t];
+            }
+        }
+        return num / den; // 0/0 is NaN for a group with no weighted grade
+    }
+
+    @Override
+    public String name() { return "scalar"; }
+}
@@ -0,0 +1,13 @@
+package com.strawhatacademy.service;
+
+/**
+ * Computes weighted final grades for a range of groups:
+ * out[g] = sum(w[t] * v[t][g]) / sum(w[t]) over the types t where v[t][g] is not NaN,
+ * or NaN if the group has no weighted grade.
+ */
+interface WeightKernel {
+
+    void apply(double[][] values, double[] weights, double[] out, int from, int to);
+
+    String name();
+}
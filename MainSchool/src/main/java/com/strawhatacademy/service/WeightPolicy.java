@@ -0,0 +1,103 @@
+package com.strawhatacademy.service;
+
+import com.strawhatacademy.model.GradeType;
+import java.util.Arrays;
+
+/**
+ * Per-type weights used to turn a student's Exam, Quiz, Project and Final grades
+ * in a subject into one term grade. Weights are relative: a student missing a
+ * type is graded on the weights of the types they do have.
+ */
+public final class WeightPolicy {
+
+    /**
+     * The weighted grade types, in column order.
+     */
+    public static final String[] TYPES = {"Exam", "Quiz", "Project", "Final"};
+
+    public static final WeightPolicy DEFAULT = new WeightPolicy(0.30, 0.15, 0.15, 0.40);
+
+    private final double[] weights;
+
+    public WeightPolicy(double exam, double quiz, double project, double finalExam) {
+        this.weights = new double[]{exam, quiz, project, finalExam};
+        double total = 0;
+        for (double w : weights) {
+            if (!(w >= 0) || Double.isInfinite(w)) throw new IllegalArgumentException("Weights must be finite and non-negative");
+            total += w;
+        }
+        if (total == 0) throw new IllegalArgumentException("At least one weight must be positive");
+    }
+
+    /**
+     * Parses a policy such as "Exam=0.3, Quiz=0.2, Project=0.1, Final=0.4".
+     * Types that are not listed get weight 0.
+     * @throws IllegalArgumentException if the text is malformed.
+     */
+    public static WeightPolicy parse(String spec) {
+        double[] w = new double[TYPES.length];
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) continue;
+            String[] kv = part.split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("Expected Type=weight: " + part.trim());
+            int t = typeIndex(kv[0].trim());
+            if (t < 0) throw new IllegalArgumentException("Unknown grade type: " + kv[0].trim());
+            try {
+                w[t] = Double.parseDouble(kv[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight: " + kv[1].trim());
+            }
+        }
+        return new WeightPolicy(w[0], w[1], w[2], w[3]);
+    }
+
+    /**
+     * @return The column of a weighted type, or -1 for unknown types.
+     */
+    public static int typeIndex(String type) {
+        for (int t = 0; t < TYPES.length; t++) {
+            if (TYPES[t].equals(type)) return t;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The column of the type, or -1 for null.
+     */
+    public static int typeIndex(GradeType type) {
+        // GradeType is declared in TYPES order
+        return type == null ? -1 : type.ordinal();
+    }
+
+    public double getWeight(String type) {
+        int t = typeIndex(type);
+        return t < 0 ? 0.0 : weights[t];
+    }
+
+    /**
+     * Weights in TYPES order; shared, so callers must not modify it.
+     */
+    double[] weights() {
+        return weights;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WeightPolicy && Arrays.equals(weights, ((WeightPolicy) o).weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(weights);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int t = 0; t < TYPES.length; t++) {
+            if (t > 0) sb.append(", ");
+            sb.append(TYPES[t]).append('=').append(weights[t]);
+        }
+        return sb.toString();
+    }
+}
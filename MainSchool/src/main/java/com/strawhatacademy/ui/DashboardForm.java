@@ -1,9 +1,13 @@
 package com.strawhatacademy.ui;
 
+import com.strawhatacademy.dao.AsyncDAO;
 import com.strawhatacademy.model.User;
 import com.strawhatacademy.model.Role;
+import com.strawhatacademy.service.ReportCardGenerator;
+import com.strawhatacademy.service.WeightPolicy;
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.Locale;
@@ -118,6 +122,14 @@ public class DashboardForm extends JFrame {
         gbc.gridy = 1;
         panel.add(btnSubject, gbc);
 
+        if (loggedInUser.getRole() == Role.ADMIN) {
+            JButton btnReports = new JButton("<html><center><font size='10'>📄</font><br><br>Report Cards</center></html>");
+            styleBigButton(btnReports);
+            btnReports.addActionListener(e -> generateReportCards());
+            gbc.gridy = 2;
+            panel.add(btnReports, gbc);
+        }
+
         return panel;
     }
 
@@ -193,6 +205,49 @@ public class DashboardForm extends JFrame {
         SwingUtilities.invokeLater(() -> new SubjectsViewForm(loggedInUser).setVisible(true));
     }
 
+    /**
+     * Writes a report card for every student into a chosen folder, in the background.
+     */
+    private void generateReportCards() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Folder for report cards");
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File folder = chooser.getSelectedFile();
+
+        String term = JOptionPane.showInputDialog(this, "Term shown on the report cards:", "Term " + LocalDate.now().getYear());
+        if (term == null) return;
+        Object[] formats = {"HTML", "Text"};
+        int choice = JOptionPane.showOptionDialog(this, "Report card format:", "Report Cards",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, formats, formats[0]);
+        if (choice < 0) return;
+        ReportCardGenerator.Format format = choice == 0 ? ReportCardGenerator.Format.HTML : ReportCardGenerator.Format.TEXT;
+
+        ReportCardGenerator generator = new ReportCardGenerator(folder.toPath(), format, term,
+                WeightPolicy.DEFAULT, Runtime.getRuntime().availableProcessors());
+        JDialog progressDialog = new JDialog(this, "Generating report cards", false);
+        JLabel lblProgress = new JLabel("Starting...", SwingConstants.CENTER);
+        progressDialog.add(lblProgress);
+        progressDialog.setSize(520, 100);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setVisible(true);
+
+        AsyncDAO.supply(() -> generator.generate(p ->
+                SwingUtilities.invokeLater(() -> lblProgress.setText(p.toString()))))
+            .whenComplete((result, error) -> {
+                progressDialog.dispose();
+                if (error != null || result == null) {
+                    JOptionPane.showMessageDialog(this, "Report cards could not be generated.", "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (result.isIncomplete() || result.getFailures() > 0) {
+                    JOptionPane.showMessageDialog(this, "Not every student got a report card"
+                            + (result.isIncomplete() ? " (the grade query failed)" : "") + ".\n"
+                            + result + "\nSaved to " + folder, "Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, result + "\nSaved to " + folder);
+                }
+            });
+    }
+
     private void logout() {
         int confirm = JOptionPane.showConfirmDialog(this, 
             "Are you sure you want to log out?", "Logout Confirmation", 
@@ -0,0 +1,38 @@
+package com.strawhatacademy.ui;
+
+import com.strawhatacademy.event.DomainEvent;
+import com.strawhatacademy.event.EventBus;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * EventBus subscriptions owned by a window. Handlers run on the EDT and are
+ * cancelled when the window is disposed, so a closed form is never patched.
+ */
+public class EventSubscriptions {
+
+    private final EventBus events = EventBus.getInstance();
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+
+    public EventSubscriptions(Window window) {
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                cancelAll();
+            }
+        });
+    }
+
+    public <E extends DomainEvent> void on(Class<E> type, Consumer<? super E> handler) {
+        subscriptions.add(events.subscribeOnEdt(type, handler));
+    }
+
+    public void cancelAll() {
+        for (EventBus.Subscription s : subscriptions) s.cancel();
+        subscriptions.clear();
+    }
+}
@@ -1,26 +1,34 @@
 package com.strawhatacademy.ui;
 
-import com.strawhatacademy.dao.GradeDAO;
-import com.strawhatacademy.dao.SubjectDAO;
+import com.strawhatacademy.dao.GradeBatchResult;
+import com.strawhatacademy.dao.AsyncDAO;
+import com.strawhatacademy.dao.GradeWriteResult;
 import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.GradeType;
 import com.strawhatacademy.model.Subject;
 import com.strawhatacademy.model.User;
 import javax.swing.*;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class GradeEditorForm extends JDialog {
 
-    private final GradeDAO gradeDAO = new GradeDAO();
-    private final SubjectDAO subjectDAO = new SubjectDAO();
+    private final AsyncDAO asyncDAO = AsyncDAO.getInstance();
+    private final PendingCalls calls = new PendingCalls(this, null);
     private final User teacher; 
     private Grade gradeToEdit; 
     private GradesViewForm parentForm; 
+    private final boolean multiStudent;
 
     private JTextField txtGradeValue, txtDateRecorded, txtStudentId;
-    private JComboBox<String> cmbSubject, cmbType;
+    private JTextArea txtStudentGrades;
+    private JComboBox<String> cmbSubject;
+    private JComboBox<GradeType> cmbType;
     private JButton btnSave;
 
     public GradeEditorForm(GradesViewForm parent, Grade grade, User teacher) {
@@ -28,6 +36,7 @@ public class GradeEditorForm extends JDialog {
         this.parentForm = parent;
         this.gradeToEdit = grade;
         this.teacher = teacher;
+        this.multiStudent = false;
         
         initComponents();
         populateFields();
@@ -35,45 +44,92 @@ public class GradeEditorForm extends JDialog {
         this.setSize(400, 450);
         this.setLocationRelativeTo(parent);
     }
+
+    /**
+     * Opens the editor in multi-student mode: one subject, type and date,
+     * and a list of "studentId, grade" lines saved in a single batch.
+     */
+    public GradeEditorForm(GradesViewForm parent, User teacher) {
+        super(parent, "Enter Grades for a Class", true);
+        this.parentForm = parent;
+        this.teacher = teacher;
+        this.multiStudent = true;
+
+        initComponents();
+
+        this.setSize(450, 550);
+        this.setLocationRelativeTo(parent);
+    }
     
     private void initComponents() {
         setLayout(new BorderLayout(10, 10));
-        JPanel inputPanel = new JPanel(new GridLayout(6, 2, 10, 10));
+        JPanel inputPanel = new JPanel(new GridLayout(multiStudent ? 3 : 6, 2, 10, 10));
         inputPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
-        txtStudentId = new JTextField(10);
-        inputPanel.add(new JLabel("Student ID:"));
-        inputPanel.add(txtStudentId);
+        if (!multiStudent) {
+            txtStudentId = new JTextField(10);
+            inputPanel.add(new JLabel("Student ID:"));
+            inputPanel.add(txtStudentId);
+        }
         
         cmbSubject = new JComboBox<>();
         populateSubjectComboBox();
         inputPanel.add(new JLabel("Subject:"));
         inputPanel.add(cmbSubject);
         
-        cmbType = new JComboBox<>(new String[]{"Quiz", "Exam", "Project", "Final"});
+        cmbType = new JComboBox<>(new GradeType[]{GradeType.QUIZ, GradeType.EXAM, GradeType.PROJECT, GradeType.FINAL});
         inputPanel.add(new JLabel("Type:"));
         inputPanel.add(cmbType);
 
-        txtGradeValue = new JTextField(10);
-        inputPanel.add(new JLabel("Grade:"));
-        inputPanel.add(txtGradeValue);
+        if (!multiStudent) {
+            txtGradeValue = new JTextField(10);
+            inputPanel.add(new JLabel("Grade:"));
+            inputPanel.add(txtGradeValue);
+        }
 
         txtDateRecorded = new JTextField(LocalDate.now().toString()); 
         inputPanel.add(new JLabel("Date (YYYY-MM-DD):"));
         inputPanel.add(txtDateRecorded);
         
-        add(inputPanel, BorderLayout.CENTER);
+        if (multiStudent) {
+            add(inputPanel, BorderLayout.NORTH);
+            txtStudentGrades = new JTextArea();
+            JScrollPane scroll = new JScrollPane(txtStudentGrades);
+            scroll.setBorder(BorderFactory.createTitledBorder("One \"studentId, grade\" per line"));
+            add(scroll, BorderLayout.CENTER);
+        } else {
+            add(inputPanel, BorderLayout.CENTER);
+        }
 
         btnSave = new JButton(gradeToEdit == null ? "Save" : "Update");
-        btnSave.addActionListener(e -> saveOrUpdateGrade());
+        btnSave.addActionListener(e -> {
+            if (multiStudent) saveClassGrades();
+            else saveOrUpdateGrade();
+        });
         add(btnSave, BorderLayout.SOUTH);
     }
 
     private void populateSubjectComboBox() {
-        List<Subject> subjects = subjectDAO.getTeacherSubjects(teacher.getUserId());
-        for (Subject s : subjects) {
-            cmbSubject.addItem(s.getSubjectName() + " (ID:" + s.getSubjectId() + ")");
-        }
+        calls.track(asyncDAO.getTeacherSubjects(teacher.getUserId())).thenAccept(subjects -> {
+            for (Subject s : subjects) {
+                cmbSubject.addItem(s.getSubjectName() + " (ID:" + s.getSubjectId() + ")");
+            }
+        });
+    }
+
+    /**
+     * Disables Save while a write is in flight and reports unexpected failures.
+     */
+    private <T> void submit(CompletableFuture<T> call, Consumer<T> onDone) {
+        btnSave.setEnabled(false);
+        calls.track(call).whenComplete((result, error) -> {
+            btnSave.setEnabled(true);
+            if (error == null) {
+                onDone.accept(result);
+            } else if (!PendingCalls.isCancellation(error)) {
+                JOptionPane.showMessageDialog(this, "Error: " + error.getMessage());
+            }
+        });
     }
 
     private void populateFields() {
@@ -86,34 +142,137 @@ public class GradeEditorForm extends JDialog {
         }
     }
 
-    private void saveOrUpdateGrade() {
+    /**
+     * Parses the "studentId, grade" lines and writes them with one batch call.
+     */
+    private void saveClassGrades() {
         try {
-            double val = Double.parseDouble(txtGradeValue.getText().trim());
-            int sId = Integer.parseInt(txtStudentId.getText().trim());
-            
             String selected = (String) cmbSubject.getSelectedItem();
             int subId = Integer.parseInt(selected.substring(selected.indexOf("(ID:") + 4, selected.indexOf(")")));
-            
             LocalDate date = LocalDate.parse(txtDateRecorded.getText().trim());
-            String type = (String) cmbType.getSelectedItem();
-            
-            boolean success;
-            if (gradeToEdit == null) {
-                // Line 103: Now finds the addGrade method
-                success = gradeDAO.addGrade(new Grade(0, sId, subId, val, date, type));
-            } else {
-                gradeToEdit.setGradeValue(val);
-                gradeToEdit.setDateRecorded(date);
-                gradeToEdit.setType(type);
-                success = gradeDAO.updateGrade(gradeToEdit);
+            GradeType type = (GradeType) cmbType.getSelectedItem();
+
+            List<Grade> grades = new ArrayList<>();
+            String[] lines = txtStudentGrades.getText().split("\\R");
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i].trim();
+                if (line.isEmpty()) continue;
+                String[] parts = line.split("[,;\\s]+");
+                if (parts.length != 2) {
+                    JOptionPane.showMessageDialog(this, "Line " + (i + 1) + " must be \"studentId, grade\": " + line);
+                    return;
+                }
+                grades.add(new Grade(0, Integer.parseInt(parts[0]), subId, Double.parseDouble(parts[1]), date, type));
+            }
+            if (grades.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Enter at least one student grade.");
+                return;
             }
 
-            if (success) {
-                JOptionPane.showMessageDialog(this, "Operation Successful");
-                this.dispose();
+            submit(asyncDAO.addGrades(grades), result -> showBatchResult(result, type));
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Error: " + e.getMessage());
+        }
+    }
+
+    private void showBatchResult(GradeBatchResult result, GradeType type) {
+        StringBuilder msg = new StringBuilder("Saved " + result.count(GradeBatchResult.Status.INSERTED)
+                + " of " + result.size() + " grades.");
+        for (int i = 0; i < result.size(); i++) {
+            GradeBatchResult.Status st = result.getStatus(i);
+            if (st == GradeBatchResult.Status.DUPLICATE) {
+                msg.append("\nStudent ").append(result.getGrade(i).getStudentId()).append(": already has a ").append(type).append(" grade");
+            } else if (st == GradeBatchResult.Status.FAILED) {
+                msg.append("\nStudent ").append(result.getGrade(i).getStudentId()).append(": ").append(result.getMessage(i));
+            }
+        }
+        JOptionPane.showMessageDialog(this, msg.toString());
+        if (result.count(GradeBatchResult.Status.INSERTED) == result.size()) {
+            this.dispose();
+        }
+    }
+
+    private void saveOrUpdateGrade() {
+        try {
+            double val = Double.parseDouble(txtGradeValue.getText().trim());
+            LocalDate date = LocalDate.parse(txtDateRecorded.getText().trim());
+            GradeType type = (GradeType) cmbType.getSelectedItem();
+
+            if (gradeToEdit != null) {
+                // Checked against the version the grade was read with; nothing is locked meanwhile
+                Grade edited = new Grade(gradeToEdit.getGradeId(), gradeToEdit.getStudentId(), gradeToEdit.getSubjectId(),
+                        val, (int) date.toEpochDay(), type, gradeToEdit.getVersion());
+                submit(asyncDAO.updateGrade(edited), result -> handleUpdate(edited, result));
+                return;
             }
+
+            int sId = Integer.parseInt(txtStudentId.getText().trim());
+            String selected = (String) cmbSubject.getSelectedItem();
+            int subId = Integer.parseInt(selected.substring(selected.indexOf("(ID:") + 4, selected.indexOf(")")));
+
+            // One statement whether the grade is new or already exists
+            submit(asyncDAO.upsertGrade(new Grade(0, sId, subId, val, date, type)), result -> {
+                switch (result.getStatus()) {
+                    case INSERTED:
+                    case UPDATED:
+                        JOptionPane.showMessageDialog(this, result.getStatus() == GradeWriteResult.Status.UPDATED
+                                ? "The student already had a " + type + " grade in this subject; it was updated."
+                                : "Operation Successful");
+                        this.dispose();
+                        break;
+                    case UNCHANGED:
+                        JOptionPane.showMessageDialog(this, "The student already has this " + type + " grade.");
+                        this.dispose();
+                        break;
+                    default:
+                        JOptionPane.showMessageDialog(this, "Error: " + result.getMessage());
+                }
+            });
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private void handleUpdate(Grade mine, GradeWriteResult result) {
+        switch (result.getStatus()) {
+            case UPDATED:
+                JOptionPane.showMessageDialog(this, "Operation Successful");
+                this.dispose();
+                break;
+            case CONFLICT:
+                resolveConflict(mine, result.getGrade());
+                break;
+            case NOT_FOUND:
+                JOptionPane.showMessageDialog(this, "This grade has been deleted by someone else.");
+                this.dispose();
+                break;
+            default:
+                JOptionPane.showMessageDialog(this, "Could not update the grade. The student may already have a "
+                        + mine.getType() + " grade in this subject.");
+        }
+    }
+
+    /**
+     * Someone saved the grade after this editor opened. Shows both and lets the
+     * user overwrite it, take the saved grade, or keep editing on top of it.
+     */
+    private void resolveConflict(Grade mine, Grade saved) {
+        gradeToEdit = saved; // later saves are checked against the current version
+        String msg = "This grade was changed by someone else while you were editing.\n\n"
+                + "Saved:   " + describe(saved) + "\n"
+                + "Yours:   " + describe(mine);
+        Object[] options = {"Keep Mine", "Use Saved", "Keep Editing"};
+        int choice = JOptionPane.showOptionDialog(this, msg, "Edit Conflict", JOptionPane.YES_NO_CANCEL_OPTION,
+                JOptionPane.WARNING_MESSAGE, null, options, options[2]);
+        if (choice == 0) {
+            mine.setVersion(saved.getVersion());
+            submit(asyncDAO.updateGrade(mine), result -> handleUpdate(mine, result));
+        } else if (choice == 1) {
+            this.dispose();
+        }
+    }
+
+    private static String describe(Grade g) {
+        return g.getType() + " " + g.getGradeValue() + " on " + g.getDateRecorded();
+    }
+}
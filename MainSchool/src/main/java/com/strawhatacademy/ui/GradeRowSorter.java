@@ -0,0 +1,605 @@
+package com.strawhatacademy.ui;
+
+import com.strawhatacademy.dao.AsyncDAO;
+import com.strawhatacademy.model.GradeType;
+import com.strawhatacademy.util.IntObjectMap;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.strawhatacademy.ui.GradeTableModel.*;
+
+/**
+ * Sorting and filtering for a {@link GradeTableModel} without boxing a cell.
+ * Each column's ascending order is built once with a primitive sort of packed
+ * (key, row) longs and cached; descending order walks it backwards. Appended
+ * rows are merged into the cached numeric orders instead of re-sorting.
+ * Filters by subject, type and date range are applied incrementally: a filter
+ * that only narrows the previous one rescans just the rows that matched before,
+ * and appended rows are tested on their own. Only one sort key is supported.
+ * A few rows inserted, updated or deleted elsewhere in the table are applied in
+ * place: cached orders drop or binary-insert just those rows and shift the row
+ * indexes above them, and only those rows are re-tested against the filter.
+ */
+public class GradeRowSorter extends RowSorter<GradeTableModel> {
+
+    /**
+     * Immutable filter criteria. ANY_SUBJECT, a null type and null dates mean "no constraint".
+     */
+    public static final class Filter {
+        public static final int ANY_SUBJECT = -1;
+        public static final Filter NONE = new Filter(ANY_SUBJECT, null, null, null);
+
+        private final int subjectId;
+        private final GradeType type;
+        // Inclusive epoch-day bounds
+        private final int fromDay;
+        private final int toDay;
+
+        public Filter(int subjectId, GradeType type, LocalDate from, LocalDate to) {
+            this.subjectId = subjectId;
+            this.type = type;
+            this.fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+            this.toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        }
+
+        boolean isNone() {
+            return subjectId == ANY_SUBJECT && type == null && fromDay == Integer.MIN_VALUE && toDay == Integer.MAX_VALUE;
+        }
+
+        /**
+         * @return true if every row this filter accepts is also accepted by previous.
+         */
+        boolean narrows(Filter previous) {
+            return (previous.subjectId == ANY_SUBJECT || previous.subjectId == subjectId)
+                    && (previous.type == null || previous.type == type)
+                    && fromDay >= previous.fromDay && toDay <= previous.toDay;
+        }
+
+        boolean sameAs(Filter other) {
+            return subjectId == other.subjectId && fromDay == other.fromDay && toDay == other.toDay
+                    && type == other.type;
+        }
+
+        boolean accepts(GradeTableModel model, int row) {
+            if (subjectId != ANY_SUBJECT && model.getSubjectId(row) != subjectId) return false;
+            if (type != null && model.getTypeCode(row) != type.ordinal()) return false;
+            int day = model.getEpochDay(row);
+            return day >= fromDay && day <= toDay;
+        }
+    }
+
+    // Larger batches of inserted or updated rows (other than appends) rebuild everything
+    private static final int MAX_INCREMENTAL_ROWS = 32;
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+
+    private final GradeTableModel model;
+    private final AsyncDAO asyncDAO = AsyncDAO.getInstance();
+
+    private List<SortKey> sortKeys = Collections.emptyList();
+    // Ascending row order per logical column (COL_*), built on first use
+    private final int[][] permutations = new int[COL_TYPE + 1][];
+
+    private Filter filter = Filter.NONE;
+    // Model rows accepted by the filter, in model order
+    private int[] matches = new int[0];
+    private int matchCount;
+    private boolean[] accepted = new boolean[0];
+
+    // null while the view is the model as-is
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    public GradeRowSorter(GradeTableModel model) {
+        this.model = model;
+        rescan();
+    }
+
+    @Override
+    public GradeTableModel getModel() { return model; }
+
+    // --- Sorting ---
+
+    @Override
+    public void toggleSortOrder(int column) {
+        SortKey current = sortKeys.isEmpty() ? null : sortKeys.get(0);
+        SortOrder next;
+        if (current == null || current.getColumn() != column) {
+            next = SortOrder.ASCENDING;
+        } else if (current.getSortOrder() == SortOrder.ASCENDING) {
+            next = SortOrder.DESCENDING;
+        } else {
+            next = SortOrder.UNSORTED;
+        }
+        setSortKeys(next == SortOrder.UNSORTED ? null : List.of(new SortKey(column, next)));
+    }
+
+    /**
+     * Only the first key is used; an UNSORTED key clears sorting.
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> next = Collections.emptyList();
+        if (keys != null && !keys.isEmpty() && keys.get(0).getSortOrder() != SortOrder.UNSORTED) {
+            SortKey key = keys.get(0);
+            if (key.getColumn() < 0 || key.getColumn() >= model.getColumnCount()) {
+                throw new IllegalArgumentException("Invalid sort column: " + key.getColumn());
+            }
+            next = List.of(key);
+        }
+        if (next.equals(sortKeys)) return;
+        sortKeys = next;
+        fireSortOrderChanged();
+        updateView();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() { return sortKeys; }
+
+    private int[] permutation(int column) {
+        int[] perm = permutations[column];
+        if (perm == null) {
+            int[] keys = sortKeys(column, 0, model.getRowCount());
+            perm = sortedRows(keys, 0);
+            permutations[column] = perm;
+        }
+        return perm;
+    }
+
+    /**
+     * Sorts rows by key with one primitive sort: the key goes in the high 32 bits
+     * and the row in the low 32, so ties keep model order.
+     * @param keys Keys of rows firstRow, firstRow + 1, ...
+     */
+    private static int[] sortedRows(int[] keys, int firstRow) {
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            packed[i] = ((long) keys[i] << 32) | (firstRow + i);
+        }
+        Arrays.sort(packed);
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) packed[i];
+        }
+        return rows;
+    }
+
+    private static boolean isNameColumn(int column) {
+        return column == COL_STUDENT_NAME || column == COL_SUBJECT || column == COL_TYPE;
+    }
+
+    /**
+     * Integer sort keys for rows [from, to). Values sort as whole cents; name
+     * columns sort by the rank of the name among the distinct names present.
+     */
+    private int[] sortKeys(int column, int from, int to) {
+        int[] keys = new int[to - from];
+        switch (column) {
+            case COL_ID:
+                for (int r = from; r < to; r++) keys[r - from] = model.getGradeId(r);
+                break;
+            case COL_STUDENT_ID:
+                for (int r = from; r < to; r++) keys[r - from] = model.getStudentId(r);
+                break;
+            case COL_VALUE:
+                for (int r = from; r < to; r++) keys[r - from] = (int) Math.round(model.getGradeValue(r) * 100);
+                break;
+            case COL_DATE:
+                for (int r = from; r < to; r++) keys[r - from] = model.getEpochDay(r);
+                break;
+            case COL_TYPE: {
+                String[] names = new String[model.typeCount()];
+                for (int c = 0; c < names.length; c++) names[c] = model.typeName(c);
+                int[] rank = ranks(names);
+                for (int r = from; r < to; r++) keys[r - from] = rank[model.getTypeCode(r)];
+                break;
+            }
+            case COL_SUBJECT: {
+                IntObjectMap<Integer> slots = new IntObjectMap<>();
+                List<String> names = new ArrayList<>();
+                for (int r = from; r < to; r++) {
+                    int subjectId = model.getSubjectId(r);
+                    Integer slot = slots.get(subjectId);
+                    if (slot == null) {
+                        slot = names.size();
+                        slots.put(subjectId, slot);
+                        names.add(asyncDAO.getSubjectNameIfPresent(subjectId));
+                    }
+                    keys[r - from] = slot;
+                }
+                int[] rank = ranks(names.toArray(new String[0]));
+                for (int i = 0; i < keys.length; i++) keys[i] = rank[keys[i]];
+                break;
+            }
+            default: {
+                Map<String, Integer> slots = new HashMap<>();
+                List<String> names = new ArrayList<>();
+                for (int r = from; r < to; r++) {
+                    String name = model.getStudentName(r);
+                    Integer slot = slots.get(name);
+                    if (slot == null) {
+                        slot = names.size();
+                        slots.put(name, slot);
+                        names.add(name);
+                    }
+                    keys[r - from] = slot;
+                }
+                int[] rank = ranks(names.toArray(new String[0]));
+                for (int i = 0; i < keys.length; i++) keys[i] = rank[keys[i]];
+                break;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return The case-insensitive sort position of each name, nulls first;
+     * names that differ only in case share a position, so rows keep model order
+     * among them as compareRows expects.
+     */
+    private static int[] ranks(String[] names) {
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing((Integer i) -> names[i], NAME_ORDER));
+        int[] rank = new int[names.length];
+        for (int r = 0; r < order.length; r++) {
+            boolean same = r > 0 && NAME_ORDER.compare(names[order[r]], names[order[r - 1]]) == 0;
+            rank[order[r]] = same ? rank[order[r - 1]] : r;
+        }
+        return rank;
+    }
+
+    /**
+     * Merges appended rows [first, last] into a cached numeric order.
+     */
+    private int[] mergeAppended(int column, int[] perm, int first, int last) {
+        int[] addedKeys = sortKeys(column, first, last + 1);
+        int[] added = sortedRows(addedKeys, first);
+        int[] merged = new int[perm.length + added.length];
+        int i = 0, j = 0, k = 0;
+        while (i < perm.length && j < added.length) {
+            // Appended rows come after existing ones, so an equal key keeps the existing row first
+            if (sortKeyOf(column, perm[i]) <= addedKeys[added[j] - first]) {
+                merged[k++] = perm[i++];
+            } else {
+                merged[k++] = added[j++];
+            }
+        }
+        while (i < perm.length) merged[k++] = perm[i++];
+        while (j < added.length) merged[k++] = added[j++];
+        return merged;
+    }
+
+    /**
+     * The order of a cached permutation: by the column's key, then by row.
+     */
+    private int compareRows(int column, int a, int b) {
+        int c;
+        switch (column) {
+            case COL_TYPE:
+                c = NAME_ORDER.compare(model.getType(a), model.getType(b));
+                break;
+            case COL_SUBJECT:
+                c = NAME_ORDER.compare(asyncDAO.getSubjectNameIfPresent(model.getSubjectId(a)),
+                        asyncDAO.getSubjectNameIfPresent(model.getSubjectId(b)));
+                break;
+            case COL_STUDENT_NAME:
+                c = NAME_ORDER.compare(model.getStudentName(a), model.getStudentName(b));
+                break;
+            default:
+                c = Integer.compare(sortKeyOf(column, a), sortKeyOf(column, b));
+        }
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+
+    /**
+     * @return Where row belongs among the first length entries of a permutation.
+     */
+    private int insertionPoint(int column, int[] perm, int length, int row) {
+        int lo = 0, hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareRows(column, perm[mid], row) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int sortKeyOf(int column, int row) {
+        switch (column) {
+            case COL_ID: return model.getGradeId(row);
+            case COL_STUDENT_ID: return model.getStudentId(row);
+            case COL_VALUE: return (int) Math.round(model.getGradeValue(row) * 100);
+            default: return model.getEpochDay(row);
+        }
+    }
+
+    // --- Filtering ---
+
+    /**
+     * Applies new filter criteria; pass Filter.NONE (or null) to show every row.
+     */
+    public void setFilter(Filter next) {
+        if (next == null) next = Filter.NONE;
+        if (next.sameAs(filter)) return;
+        boolean narrowing = next.narrows(filter);
+        filter = next;
+        if (narrowing) {
+            refine();
+        } else {
+            rescan();
+        }
+        updateView();
+    }
+
+    public Filter getFilter() { return filter; }
+
+    /**
+     * Re-tests only the rows the previous filter accepted.
+     */
+    private void refine() {
+        int kept = 0;
+        for (int i = 0; i < matchCount; i++) {
+            int row = matches[i];
+            if (filter.accepts(model, row)) {
+                matches[kept++] = row;
+            } else {
+                accepted[row] = false;
+            }
+        }
+        matchCount = kept;
+    }
+
+    private void rescan() {
+        int n = model.getRowCount();
+        if (accepted.length < n) {
+            accepted = new boolean[n];
+        } else {
+            Arrays.fill(accepted, false);
+        }
+        if (matches.length < n) matches = new int[n];
+        matchCount = 0;
+        scan(0, n);
+    }
+
+    private void scan(int from, int to) {
+        boolean all = filter.isNone();
+        for (int row = from; row < to; row++) {
+            if (all || filter.accepts(model, row)) {
+                accepted[row] = true;
+                matches[matchCount++] = row;
+            }
+        }
+    }
+
+    // --- View mapping ---
+
+    private void updateView() {
+        int[] previous = viewToModel;
+        if (previous == null) {
+            previous = new int[model.getRowCount()];
+            for (int i = 0; i < previous.length; i++) previous[i] = i;
+        }
+        rebuildView();
+        fireRowSorterChanged(previous);
+    }
+
+    private void rebuildView() {
+        modelToView = null;
+        int n = model.getRowCount();
+        if (sortKeys.isEmpty()) {
+            viewToModel = filter.isNone() ? null : Arrays.copyOf(matches, matchCount);
+            return;
+        }
+        SortKey key = sortKeys.get(0);
+        int[] perm = permutation(model.logicalColumn(key.getColumn()));
+        boolean descending = key.getSortOrder() == SortOrder.DESCENDING;
+        int[] view = new int[matchCount];
+        int v = 0;
+        for (int i = 0; i < n; i++) {
+            int row = perm[descending ? n - 1 - i : i];
+            if (accepted[row]) view[v++] = row;
+        }
+        viewToModel = view;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (index < 0 || index >= getViewRowCount()) {
+            throw new IndexOutOfBoundsException("Invalid view index: " + index);
+        }
+        return viewToModel == null ? index : viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= model.getRowCount()) {
+            throw new IndexOutOfBoundsException("Invalid model index: " + index);
+        }
+        if (viewToModel == null) return index;
+        if (modelToView == null) {
+            modelToView = new int[model.getRowCount()];
+            Arrays.fill(modelToView, -1);
+            for (int v = 0; v < viewToModel.length; v++) modelToView[viewToModel[v]] = v;
+        }
+        return modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewToModel == null ? model.getRowCount() : viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() { return model.getRowCount(); }
+
+    // --- Model changes (JTable forwards these and refreshes itself afterwards) ---
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int n = model.getRowCount();
+        if (endRow == n - 1) {
+            appended(firstRow, endRow);
+        } else if (endRow - firstRow < MAX_INCREMENTAL_ROWS) {
+            inserted(firstRow, endRow);
+        } else {
+            allRowsChanged();
+            return;
+        }
+        rebuildView();
+    }
+
+    private void appended(int firstRow, int endRow) {
+        for (int c = 0; c < permutations.length; c++) {
+            if (permutations[c] == null) continue;
+            // A new name shifts the ranks of existing ones, so name orders are rebuilt on demand
+            permutations[c] = isNameColumn(c) ? null : mergeAppended(c, permutations[c], firstRow, endRow);
+        }
+        ensureCapacity(model.getRowCount());
+        scan(firstRow, endRow + 1);
+    }
+
+    /**
+     * Rows [firstRow, endRow] were inserted before existing ones: the rows from
+     * firstRow up move by the count, and the new ones are placed one by one.
+     */
+    private void inserted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        int before = model.getRowCount() - count;
+        for (int c = 0; c < permutations.length; c++) {
+            int[] perm = permutations[c];
+            if (perm == null) continue;
+            shiftFrom(perm, perm.length, firstRow, count);
+            int[] grown = Arrays.copyOf(perm, perm.length + count);
+            int length = perm.length;
+            for (int row = firstRow; row <= endRow; row++) {
+                int at = insertionPoint(c, grown, length, row);
+                System.arraycopy(grown, at, grown, at + 1, length - at);
+                grown[at] = row;
+                length++;
+            }
+            permutations[c] = grown;
+        }
+        ensureCapacity(before + count);
+        System.arraycopy(accepted, firstRow, accepted, endRow + 1, before - firstRow);
+        shiftFrom(matches, matchCount, firstRow, count);
+        for (int row = firstRow; row <= endRow; row++) {
+            accepted[row] = false;
+            retest(row);
+        }
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        int before = model.getRowCount() + count;
+        for (int c = 0; c < permutations.length; c++) {
+            int[] perm = permutations[c];
+            if (perm == null) continue;
+            int[] kept = new int[perm.length - count];
+            int k = 0;
+            for (int row : perm) {
+                if (row < firstRow) kept[k++] = row;
+                else if (row > endRow) kept[k++] = row - count;
+            }
+            permutations[c] = kept;
+        }
+        System.arraycopy(accepted, endRow + 1, accepted, firstRow, before - endRow - 1);
+        Arrays.fill(accepted, before - count, before, false);
+        int kept = 0;
+        for (int i = 0; i < matchCount; i++) {
+            int row = matches[i];
+            if (row < firstRow) matches[kept++] = row;
+            else if (row > endRow) matches[kept++] = row - count;
+        }
+        matchCount = kept;
+        rebuildView();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        updated(firstRow, endRow, -1);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        updated(firstRow, endRow, model.logicalColumn(column));
+    }
+
+    /**
+     * Moves each updated row to its new place in the cached orders (only the
+     * given logical column's, or all for -1) and re-tests it against the filter.
+     */
+    private void updated(int firstRow, int endRow, int column) {
+        if (endRow - firstRow >= MAX_INCREMENTAL_ROWS) {
+            allRowsChanged();
+            return;
+        }
+        for (int row = firstRow; row <= endRow; row++) {
+            for (int c = 0; c < permutations.length; c++) {
+                if (permutations[c] != null && (column < 0 || column == c)) reposition(c, permutations[c], row);
+            }
+            retest(row);
+        }
+        rebuildView();
+    }
+
+    private void reposition(int column, int[] perm, int row) {
+        int from = 0;
+        while (perm[from] != row) from++;
+        System.arraycopy(perm, from + 1, perm, from, perm.length - from - 1);
+        int to = insertionPoint(column, perm, perm.length - 1, row);
+        System.arraycopy(perm, to, perm, to + 1, perm.length - 1 - to);
+        perm[to] = row;
+    }
+
+    /**
+     * Brings one row's filter result, and its place in matches, up to date.
+     */
+    private void retest(int row) {
+        boolean now = filter.isNone() || filter.accepts(model, row);
+        if (now == accepted[row]) return;
+        accepted[row] = now;
+        int at = Arrays.binarySearch(matches, 0, matchCount, row);
+        if (now) {
+            at = -at - 1;
+            System.arraycopy(matches, at, matches, at + 1, matchCount - at);
+            matches[at] = row;
+            matchCount++;
+        } else {
+            System.arraycopy(matches, at + 1, matches, at, matchCount - at - 1);
+            matchCount--;
+        }
+    }
+
+    /**
+     * Adds delta to each of the first length entries that is at least from.
+     */
+    private static void shiftFrom(int[] rows, int length, int from, int delta) {
+        for (int i = 0; i < length; i++) {
+            if (rows[i] >= from) rows[i] += delta;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (accepted.length < n) accepted = Arrays.copyOf(accepted, Math.max(n, accepted.length * 3 / 2));
+        if (matches.length < n) matches = Arrays.copyOf(matches, Math.max(n, matches.length * 3 / 2));
+    }
+
+    @Override
+    public void modelStructureChanged() { allRowsChanged(); }
+
+    @Override
+    public void allRowsChanged() {
+        Arrays.fill(permutations, null);
+        rescan();
+        rebuildView();
+    }
+}
@@ -0,0 +1,293 @@
+package com.strawhatacademy.ui;
+
+import com.strawhatacademy.dao.AsyncDAO;
+import com.strawhatacademy.dao.TeacherGradeRow;
+import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.GradeType;
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only table model for grade lists, stored column by column in growable
+ * primitive arrays: ids and values as int/double, dates as epoch days and the
+ * grade type as its GradeType ordinal in a byte. Nothing is boxed until a cell is rendered, so a
+ * large gradebook costs a few dozen bytes per row instead of a row of objects.
+ * Rows are added in bulk with appendGrades/appendTeacherRows and patched one at
+ * a time with upsertRow/removeRow, keeping grade_id order. EDT only.
+ * Unlike KeysetTableModel, nothing is evicted: GradeRowSorter sorts and filters
+ * the whole gradebook and delta refreshes find rows by grade_id, so every loaded
+ * row stays resident. The columns keep that at about 30 bytes a row.
+ */
+public class GradeTableModel extends AbstractTableModel {
+
+    /**
+     * Which columns the table shows.
+     */
+    public enum Layout {
+        STUDENT(new String[]{"ID", "Subject", "Value", "Date", "Type"}),
+        TEACHER(new String[]{"ID", "Student Name", "Student ID", "Subject", "Value", "Date", "Type"});
+
+        private final String[] columnNames;
+
+        Layout(String[] columnNames) {
+            this.columnNames = columnNames;
+        }
+    }
+
+    // Logical columns, independent of the layout
+    public static final int COL_ID = 0;
+    public static final int COL_STUDENT_NAME = 1;
+    public static final int COL_STUDENT_ID = 2;
+    public static final int COL_SUBJECT = 3;
+    public static final int COL_VALUE = 4;
+    public static final int COL_DATE = 5;
+    public static final int COL_TYPE = 6;
+
+    private static final int[] STUDENT_COLUMNS = {COL_ID, COL_SUBJECT, COL_VALUE, COL_DATE, COL_TYPE};
+    private static final int[] TEACHER_COLUMNS = {COL_ID, COL_STUDENT_NAME, COL_STUDENT_ID, COL_SUBJECT, COL_VALUE, COL_DATE, COL_TYPE};
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Layout layout;
+    private final int[] columns;
+    private final AsyncDAO asyncDAO = AsyncDAO.getInstance();
+
+    private int size;
+    private int[] gradeIds = new int[INITIAL_CAPACITY];
+    private int[] studentIds = new int[INITIAL_CAPACITY];
+    private int[] subjectIds = new int[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private byte[] typeCodes = new byte[INITIAL_CAPACITY];
+    private int[] versions = new int[INITIAL_CAPACITY];
+    // Only allocated for the teacher layout; names are shared references
+    private String[] studentNames;
+
+    private static final GradeType[] TYPES = GradeType.values();
+
+    public GradeTableModel(Layout layout) {
+        this.layout = layout;
+        this.columns = layout == Layout.STUDENT ? STUDENT_COLUMNS : TEACHER_COLUMNS;
+        if (layout == Layout.TEACHER) studentNames = new String[INITIAL_CAPACITY];
+    }
+
+    public Layout getLayout() { return layout; }
+
+    // --- Loading ---
+
+    public void clear() {
+        if (size == 0) return;
+        if (studentNames != null) Arrays.fill(studentNames, 0, size, null);
+        size = 0;
+        fireTableDataChanged();
+    }
+
+    public void appendGrades(List<Grade> grades) {
+        if (grades.isEmpty()) return;
+        int first = size;
+        ensureCapacity(size + grades.size());
+        for (Grade g : grades) {
+            put(size++, g);
+        }
+        fireTableRowsInserted(first, size - 1);
+    }
+
+    public void appendTeacherRows(List<TeacherGradeRow> rows) {
+        if (rows.isEmpty()) return;
+        int first = size;
+        ensureCapacity(size + rows.size());
+        for (TeacherGradeRow row : rows) {
+            if (studentNames != null) studentNames[size] = row.getStudentName();
+            put(size++, row.getGrade());
+        }
+        fireTableRowsInserted(first, size - 1);
+    }
+
+    /**
+     * Replaces a row in place, e.g. with the result of an upsert.
+     */
+    public void setGrade(int row, Grade g) {
+        put(row, g);
+        fireTableRowsUpdated(row, row);
+    }
+
+    /**
+     * Replaces the grade's row, or inserts it at its grade_id position.
+     * @param studentName Shown in the teacher layout; ignored otherwise.
+     */
+    public void upsertRow(Grade g, String studentName) {
+        int row = indexOfGrade(g.getGradeId());
+        if (row >= 0) {
+            if (studentNames != null) studentNames[row] = studentName;
+            setGrade(row, g);
+            return;
+        }
+        row = insertionPoint(g.getGradeId());
+        ensureCapacity(size + 1);
+        shift(row, row + 1, size - row);
+        size++;
+        if (studentNames != null) studentNames[row] = studentName;
+        put(row, g);
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * @return false if the grade is not in the table.
+     */
+    public boolean removeRow(int gradeId) {
+        int row = indexOfGrade(gradeId);
+        if (row < 0) return false;
+        shift(row + 1, row, size - row - 1);
+        size--;
+        if (studentNames != null) studentNames[size] = null;
+        fireTableRowsDeleted(row, row);
+        return true;
+    }
+
+    /**
+     * Subject names were reloaded; repaints every row and lets the sorter re-rank them.
+     */
+    public void namesChanged() {
+        if (size > 0) fireTableRowsUpdated(0, size - 1);
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(gradeIds, from, gradeIds, to, length);
+        System.arraycopy(studentIds, from, studentIds, to, length);
+        System.arraycopy(subjectIds, from, subjectIds, to, length);
+        System.arraycopy(values, from, values, to, length);
+        System.arraycopy(epochDays, from, epochDays, to, length);
+        System.arraycopy(typeCodes, from, typeCodes, to, length);
+        System.arraycopy(versions, from, versions, to, length);
+        if (studentNames != null) System.arraycopy(studentNames, from, studentNames, to, length);
+    }
+
+    /**
+     * @return The row of the grade, or -1. Rows are loaded in grade_id order,
+     * so this is a binary search.
+     */
+    public int indexOfGrade(int gradeId) {
+        int row = insertionPoint(gradeId);
+        return row < size && gradeIds[row] == gradeId ? row : -1;
+    }
+
+    /**
+     * @return The first row whose grade_id is not below gradeId.
+     */
+    private int insertionPoint(int gradeId) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (gradeIds[mid] < gradeId) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void put(int row, Grade g) {
+        gradeIds[row] = g.getGradeId();
+        studentIds[row] = g.getStudentId();
+        subjectIds[row] = g.getSubjectId();
+        values[row] = g.getGradeValue();
+        epochDays[row] = g.getEpochDay();
+        typeCodes[row] = (byte) g.getType().ordinal();
+        versions[row] = g.getVersion();
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= gradeIds.length) return;
+        int capacity = Math.max(needed, gradeIds.length + (gradeIds.length >> 1));
+        gradeIds = Arrays.copyOf(gradeIds, capacity);
+        studentIds = Arrays.copyOf(studentIds, capacity);
+        subjectIds = Arrays.copyOf(subjectIds, capacity);
+        values = Arrays.copyOf(values, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        if (studentNames != null) studentNames = Arrays.copyOf(studentNames, capacity);
+    }
+
+    // --- Primitive row access ---
+
+    public int getGradeId(int row) { return gradeIds[row]; }
+    public int getStudentId(int row) { return studentIds[row]; }
+    public int getSubjectId(int row) { return subjectIds[row]; }
+    public double getGradeValue(int row) { return values[row]; }
+
+    /**
+     * @return Days since 1970-01-01, or Integer.MIN_VALUE if the date is unknown.
+     */
+    public int getEpochDay(int row) { return epochDays[row]; }
+    public String getType(int row) { return TYPES[typeCodes[row]].getDbName(); }
+
+    /**
+     * @return The student's display name; null in the student layout.
+     */
+    public String getStudentName(int row) { return studentNames == null ? null : studentNames[row]; }
+
+    /**
+     * @return The name shown on any row of the student, or null if there is none.
+     */
+    public String findStudentName(int studentId) {
+        if (studentNames == null) return null;
+        for (int row = 0; row < size; row++) {
+            if (studentIds[row] == studentId) return studentNames[row];
+        }
+        return null;
+    }
+
+    /**
+     * The row's GradeType ordinal.
+     */
+    public int getTypeCode(int row) { return typeCodes[row]; }
+
+    /**
+     * The version the row was loaded with, for optimistic updates.
+     */
+    public int getVersion(int row) { return versions[row]; }
+
+    public String typeName(int code) { return TYPES[code].getDbName(); }
+    public int typeCount() { return TYPES.length; }
+
+    // --- TableModel ---
+
+    @Override
+    public int getRowCount() { return size; }
+
+    @Override
+    public int getColumnCount() { return columns.length; }
+
+    @Override
+    public String getColumnName(int column) { return layout.columnNames[column]; }
+
+    /**
+     * @return The logical column (COL_*) shown at the given table column.
+     */
+    public int logicalColumn(int column) { return columns[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (columns[column]) {
+            case COL_ID:
+            case COL_STUDENT_ID: return Integer.class;
+            case COL_VALUE: return Double.class;
+            case COL_DATE: return LocalDate.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (columns[column]) {
+            case COL_ID: return gradeIds[row];
+            case COL_STUDENT_NAME: return studentNames[row];
+            case COL_STUDENT_ID: return studentIds[row];
+            case COL_SUBJECT: return asyncDAO.getSubjectNameIfPresent(subjectIds[row]);
+            case COL_VALUE: return values[row];
+            case COL_DATE: return epochDays[row] == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDays[row]);
+            default: return getType(row);
+        }
+    }
+}
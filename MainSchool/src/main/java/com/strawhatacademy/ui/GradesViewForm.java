@@ -1,87 +1,563 @@
 package com.strawhatacademy.ui;
 
-import com.strawhatacademy.dao.GradeDAO;
-import com.strawhatacademy.dao.SubjectDAO;
+import com.strawhatacademy.dao.AsyncDAO;
+import com.strawhatacademy.dao.GradeDelta;
+import com.strawhatacademy.dao.GradeHistogram;
+import com.strawhatacademy.dao.GradeStatistics;
+import com.strawhatacademy.dao.GradeStatisticsDAO.GroupBy;
+import com.strawhatacademy.dao.TeacherGradeRow;
+import com.strawhatacademy.event.ChangesMissed;
+import com.strawhatacademy.event.GradeDeleted;
+import com.strawhatacademy.event.GradeRecorded;
+import com.strawhatacademy.event.GradeUpdated;
+import com.strawhatacademy.event.GradesChanged;
+import com.strawhatacademy.event.ReferenceDataRefreshed;
+import com.strawhatacademy.event.SubjectAdded;
+import com.strawhatacademy.event.SubjectDeleted;
 import com.strawhatacademy.model.*;
+import com.strawhatacademy.service.GradeRankings;
+import com.strawhatacademy.service.RankEntry;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 public class GradesViewForm extends JFrame {
 
+    // Rows per background fetch; the whole result is kept in the compact table model
+    private static final int PAGE_SIZE = 1000;
+    private static final int TOP_RANKS = 20;
+    // Quiet period after the last patched row before the statistics are reloaded
+    private static final int SUMMARY_REFRESH_DELAY_MS = 300;
+    // How often the table picks up grades changed elsewhere; 0 disables auto-refresh
+    private static final int AUTO_REFRESH_MS = Integer.getInteger("strawhat.grades.refreshIntervalMs", 15_000);
+
     private final User loggedInUser;
-    private final GradeDAO gradeDAO = new GradeDAO();
-    private final SubjectDAO subjectDAO = new SubjectDAO();
+    private final AsyncDAO asyncDAO = AsyncDAO.getInstance();
+    private final PendingCalls calls;
+    private final EventSubscriptions events;
+    private final Timer summaryRefresh;
+    private final Timer autoRefresh;
+    private final JLabel lblStatus = new JLabel(" ");
     private JTable gradeTable;
-    private DefaultTableModel tableModel;
-    private Map<Integer, String> subjectNameMap;
+    private GradeTableModel tableModel;
+    private GradeRowSorter sorter;
+    private JComboBox<String> cmbSubjectFilter;
+    // "All types" followed by the GradeType constants
+    private JComboBox<Object> cmbTypeFilter;
+    private JTextField txtFromDate, txtToDate;
+    // Subject id of each cmbSubjectFilter entry after "All subjects"
+    private final List<Integer> filterSubjectIds = new ArrayList<>();
+    private JComboBox<GroupBy> cmbStatsGroup;
+    private DefaultTableModel statsModel;
+    private final JLabel lblOverall = new JLabel(" ");
+    private final HistogramPanel histogramPanel = new HistogramPanel();
+    private final JLabel lblPercentiles = new JLabel(" ");
+    private final GradeRankings rankings = GradeRankings.getInstance();
+    private JComboBox<String> cmbRankScope;
+    // Subject id of each cmbRankScope entry after "School-wide"
+    private final List<Integer> rankSubjectIds = new ArrayList<>();
+    private DefaultTableModel rankModel;
+    private final JLabel lblOwnRank = new JLabel(" ");
+    // Bumped on every reload so pages of an earlier load are dropped
+    private int loadGeneration;
+    // Set once the last page of the current load has arrived
+    private boolean loadComplete;
+    // The next delta refresh asks for grades changed at or after this; null if unknown
+    private Timestamp watermark;
+    private boolean refreshing;
+    // Another refresh was asked for while one was running
+    private boolean refreshAgain;
 
     public GradesViewForm(User user) {
         this.loggedInUser = user;
-        loadSubjectCache();
+        this.calls = new PendingCalls(this, lblStatus);
+        this.events = new EventSubscriptions(this);
+        this.summaryRefresh = new Timer(SUMMARY_REFRESH_DELAY_MS, e -> loadSummaries());
+        summaryRefresh.setRepeats(false);
+        this.autoRefresh = new Timer(Math.max(AUTO_REFRESH_MS, 1), e -> {
+            if (loadComplete) refreshChanges();
+        });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                autoRefresh.stop();
+            }
+        });
         initComponents();
+        subscribeToChanges();
         loadGradesData();
-        this.setSize(900, 500);
+        if (AUTO_REFRESH_MS > 0) autoRefresh.start();
+        this.setSize(1300, 550);
         this.setLocationRelativeTo(null);
     }
 
-    public Map<Integer, String> getSubjectNameMap() { return subjectNameMap; }
-
-    private void loadSubjectCache() {
-        subjectNameMap = subjectDAO.getAllSubjects().stream()
-            .collect(Collectors.toMap(Subject::getSubjectId, Subject::getSubjectName));
-    }
-
     private void initComponents() {
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setLayout(new BorderLayout(10, 10));
 
-        String[] cols = (loggedInUser.getRole() == Role.STUDENT) ? 
-            new String[]{"ID", "Subject", "Value", "Date", "Type"} : 
-            new String[]{"ID", "Student Name", "Student ID", "Subject", "Value", "Date", "Type"};
-
-        tableModel = new DefaultTableModel(cols, 0);
+        tableModel = new GradeTableModel(loggedInUser.getRole() == Role.STUDENT
+                ? GradeTableModel.Layout.STUDENT : GradeTableModel.Layout.TEACHER);
+        sorter = new GradeRowSorter(tableModel);
         gradeTable = new JTable(tableModel);
+        gradeTable.setRowSorter(sorter);
         add(new JScrollPane(gradeTable), BorderLayout.CENTER);
+        add(createFilterPanel(), BorderLayout.NORTH);
+        JPanel side = new JPanel(new GridLayout(2, 1, 5, 5));
+        side.setPreferredSize(new Dimension(400, 0));
+        side.add(createStatisticsPanel());
+        side.add(createRankingsPanel());
+        add(side, BorderLayout.EAST);
 
         if (loggedInUser.getRole() != Role.STUDENT) {
             JPanel bp = new JPanel();
             JButton btnAdd = new JButton("Add Grade");
             JButton btnEdit = new JButton("Edit Grade");
+            JButton btnClass = new JButton("Grade a Class");
             btnAdd.addActionListener(e -> openEditor(null));
             btnEdit.addActionListener(e -> editSelected());
-            bp.add(btnAdd); bp.add(btnEdit);
+            btnClass.addActionListener(e -> openClassEditor());
+            bp.add(btnAdd); bp.add(btnEdit); bp.add(btnClass);
             add(bp, BorderLayout.SOUTH);
         }
     }
 
-    private void loadGradesData() {
-        tableModel.setRowCount(0);
-        if (loggedInUser.getRole() == Role.STUDENT) {
-            for (Grade g : gradeDAO.getStudentGrades(loggedInUser.getUserId())) {
-                tableModel.addRow(new Object[]{g.getGradeId(), subjectNameMap.get(g.getSubjectId()), g.getGradeValue(), g.getDateRecorded(), g.getType()});
+    private JPanel createFilterPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        cmbSubjectFilter = new JComboBox<>(new String[]{"All subjects"});
+        cmbTypeFilter = new JComboBox<>();
+        cmbTypeFilter.addItem("All types");
+        for (GradeType t : GradeType.values()) cmbTypeFilter.addItem(t);
+        txtFromDate = new JTextField(8);
+        txtToDate = new JTextField(8);
+        cmbSubjectFilter.addActionListener(e -> {
+            applyFilter();
+            loadDistribution();
+        });
+        cmbTypeFilter.addActionListener(e -> {
+            applyFilter();
+            loadDistribution();
+        });
+        DocumentListener dateListener = new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { applyFilter(); }
+            @Override public void removeUpdate(DocumentEvent e) { applyFilter(); }
+            @Override public void changedUpdate(DocumentEvent e) { applyFilter(); }
+        };
+        txtFromDate.getDocument().addDocumentListener(dateListener);
+        txtToDate.getDocument().addDocumentListener(dateListener);
+
+        panel.add(new JLabel("Subject:"));
+        panel.add(cmbSubjectFilter);
+        panel.add(new JLabel("Type:"));
+        panel.add(cmbTypeFilter);
+        panel.add(new JLabel("From (YYYY-MM-DD):"));
+        panel.add(txtFromDate);
+        panel.add(new JLabel("To:"));
+        panel.add(txtToDate);
+        if (AUTO_REFRESH_MS > 0) {
+            JCheckBox chkAutoRefresh = new JCheckBox("Auto-refresh", true);
+            chkAutoRefresh.addActionListener(e -> {
+                if (chkAutoRefresh.isSelected()) autoRefresh.start();
+                else autoRefresh.stop();
+            });
+            panel.add(chkAutoRefresh);
+        }
+        panel.add(lblStatus);
+
+        CompletableFuture<List<Subject>> subjects = loggedInUser.getRole() == Role.TEACHER
+                ? asyncDAO.getTeacherSubjects(loggedInUser.getUserId())
+                : asyncDAO.getAllSubjects();
+        calls.track(subjects).thenAccept(list -> {
+            for (Subject s : list) {
+                filterSubjectIds.add(s.getSubjectId());
+                cmbSubjectFilter.addItem(s.getSubjectName());
+                rankSubjectIds.add(s.getSubjectId());
+                cmbRankScope.addItem(s.getSubjectName());
             }
+        });
+        return panel;
+    }
+
+    /**
+     * Per-group count/mean/min/max/stddev, aggregated by the database.
+     */
+    private JPanel createStatisticsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(BorderFactory.createTitledBorder("Statistics"));
+
+        GroupBy[] groupings;
+        switch (loggedInUser.getRole()) {
+            case STUDENT: groupings = new GroupBy[]{GroupBy.SUBJECT, GroupBy.TYPE}; break;
+            case TEACHER: groupings = new GroupBy[]{GroupBy.SUBJECT, GroupBy.STUDENT, GroupBy.TYPE}; break;
+            default: groupings = GroupBy.values();
+        }
+        cmbStatsGroup = new JComboBox<>(groupings);
+        cmbStatsGroup.addActionListener(e -> loadStatistics());
+
+        statsModel = new DefaultTableModel(new String[]{"Group", "Count", "Mean", "Min", "Max", "Std Dev"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("Group by:"));
+        top.add(cmbStatsGroup);
+        panel.add(top, BorderLayout.NORTH);
+        if (loggedInUser.getRole() == Role.STUDENT) {
+            panel.add(lblOverall, BorderLayout.SOUTH);
+        } else {
+            JPanel distribution = new JPanel(new BorderLayout());
+            distribution.add(histogramPanel, BorderLayout.CENTER);
+            distribution.add(lblPercentiles, BorderLayout.SOUTH);
+            panel.add(distribution, BorderLayout.SOUTH);
+        }
+        panel.add(new JScrollPane(new JTable(statsModel)), BorderLayout.CENTER);
+        return panel;
+    }
+
+    /**
+     * Percentiles and histogram for the subject and type chosen in the filter bar,
+     * merged by the database from the per-(subject, type) histograms.
+     */
+    private void loadDistribution() {
+        if (loggedInUser.getRole() == Role.STUDENT) return;
+        int subjectIndex = cmbSubjectFilter.getSelectedIndex();
+        int typeIndex = cmbTypeFilter.getSelectedIndex();
+        GradeType type = typeIndex <= 0 ? null : (GradeType) cmbTypeFilter.getSelectedItem();
+        CompletableFuture<GradeHistogram> histogram;
+        if (subjectIndex > 0) {
+            histogram = asyncDAO.getSubjectHistogram(filterSubjectIds.get(subjectIndex - 1), type);
+        } else if (loggedInUser.getRole() == Role.TEACHER) {
+            histogram = asyncDAO.getTeacherHistogram(loggedInUser.getUserId(), type);
         } else {
-            for (Object[] row : gradeDAO.getTeacherAssignedGrades(loggedInUser.getUserId())) {
-                Grade g = (Grade) row[0];
-                tableModel.addRow(new Object[]{g.getGradeId(), row[1], g.getStudentId(), subjectNameMap.get(g.getSubjectId()), g.getGradeValue(), g.getDateRecorded(), g.getType()});
+            histogram = asyncDAO.getSchoolHistogram(type);
+        }
+        calls.track(histogram).thenAccept(h -> {
+            if (subjectIndex != cmbSubjectFilter.getSelectedIndex() || typeIndex != cmbTypeFilter.getSelectedIndex()) return;
+            histogramPanel.setHistogram(h);
+            lblPercentiles.setText(h == null || h.getCount() == 0 ? " "
+                    : String.format("P25 %.2f   Median %.2f   P75 %.2f   P90 %.2f   (\u00b1%.3f)",
+                        h.quantile(0.25), h.median(), h.quantile(0.75), h.quantile(0.9), GradeHistogram.MAX_ERROR));
+        });
+    }
+
+    /**
+     * Top students school-wide or in one subject, kept up to date in memory by GradeRankings.
+     */
+    private JPanel createRankingsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(BorderFactory.createTitledBorder("Rankings"));
+
+        cmbRankScope = new JComboBox<>(new String[]{"School-wide"});
+        cmbRankScope.addActionListener(e -> loadRankings());
+        rankModel = new DefaultTableModel(new String[]{"Rank", "Student", "Average"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("Rank in:"));
+        top.add(cmbRankScope);
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(new JScrollPane(new JTable(rankModel)), BorderLayout.CENTER);
+        if (loggedInUser.getRole() == Role.STUDENT) panel.add(lblOwnRank, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private void loadRankings() {
+        int index = cmbRankScope.getSelectedIndex();
+        int subjectId = index <= 0 ? 0 : rankSubjectIds.get(index - 1);
+        int studentId = loggedInUser.getUserId();
+        boolean student = loggedInUser.getRole() == Role.STUDENT;
+        calls.track(AsyncDAO.supply(() -> subjectId == 0
+                ? rankings.getSchoolTop(TOP_RANKS) : rankings.getSubjectTop(subjectId, TOP_RANKS))).thenAccept(top -> {
+            if (index != cmbRankScope.getSelectedIndex()) return;
+            rankModel.setRowCount(0);
+            for (RankEntry r : top) {
+                String name = r.getStudentName() != null ? r.getStudentName() : "#" + r.getStudentId();
+                rankModel.addRow(new Object[]{r.getRank(), name, String.format("%.2f", r.getAverage())});
             }
+        });
+        if (!student) return;
+        calls.track(AsyncDAO.supply(() -> {
+            int rank = subjectId == 0 ? rankings.getSchoolRank(studentId) : rankings.getSubjectRank(subjectId, studentId);
+            int size = subjectId == 0 ? rankings.getSchoolSize() : rankings.getSubjectSize(subjectId);
+            return rank == 0 ? "Not ranked yet." : "Your rank: " + rank + " of " + size;
+        })).thenAccept(text -> {
+            if (index == cmbRankScope.getSelectedIndex()) lblOwnRank.setText(text);
+        });
+    }
+
+    private void loadStatistics() {
+        if (loggedInUser.getRole() == Role.STUDENT) {
+            // Served from the running summary: one primary-key read
+            calls.track(asyncDAO.getStudentSummary(loggedInUser.getUserId())).thenAccept(summary ->
+                lblOverall.setText(summary == null ? "No recorded grades yet."
+                        : String.format("Overall average: %.2f over %d grades", summary.getMean(), summary.getCount())));
+        }
+        GroupBy groupBy = (GroupBy) cmbStatsGroup.getSelectedItem();
+        int userId = loggedInUser.getUserId();
+        CompletableFuture<List<GradeStatistics>> stats;
+        switch (loggedInUser.getRole()) {
+            case STUDENT: stats = asyncDAO.getStudentStatistics(userId, groupBy); break;
+            case TEACHER: stats = asyncDAO.getTeacherStatistics(userId, groupBy); break;
+            default: stats = asyncDAO.getStatistics(groupBy);
         }
+        calls.track(stats).thenAccept(rows -> {
+            if (groupBy != cmbStatsGroup.getSelectedItem()) return;
+            statsModel.setRowCount(0);
+            for (GradeStatistics s : rows) {
+                String label = s.getLabel() != null ? s.getLabel() : "#" + s.getGroupId();
+                statsModel.addRow(new Object[]{label, s.getCount(), String.format("%.2f", s.getMean()),
+                        s.getMin(), s.getMax(), String.format("%.2f", s.getStdDev())});
+            }
+        });
     }
 
+    /**
+     * Pushes the current filter inputs to the sorter. A date that is still
+     * being typed (not yet a valid date) leaves the filter unchanged.
+     */
+    private void applyFilter() {
+        LocalDate from, to;
+        try {
+            from = parseDate(txtFromDate.getText());
+            to = parseDate(txtToDate.getText());
+        } catch (DateTimeParseException e) {
+            return;
+        }
+        int subjectIndex = cmbSubjectFilter.getSelectedIndex();
+        int subjectId = subjectIndex <= 0 ? GradeRowSorter.Filter.ANY_SUBJECT : filterSubjectIds.get(subjectIndex - 1);
+        GradeType type = cmbTypeFilter.getSelectedIndex() <= 0 ? null : (GradeType) cmbTypeFilter.getSelectedItem();
+        sorter.setFilter(new GradeRowSorter.Filter(subjectId, type, from, to));
+    }
+
+    private static LocalDate parseDate(String text) {
+        return text.isBlank() ? null : LocalDate.parse(text.trim());
+    }
+
+    /**
+     * Reloads every grade, appending page after page in the background so the
+     * first rows show immediately. Subject names are warmed first so rendering
+     * never queries on the EDT. The watermark is read before the first page, so
+     * later delta refreshes cannot miss a write made during the load.
+     * Every page stays in the table model: sorting and filtering cover all
+     * grades, so this view has no bounded page window (see GradeTableModel).
+     */
+    private void loadGradesData() {
+        int generation = ++loadGeneration;
+        loadComplete = false;
+        watermark = null;
+        tableModel.clear();
+        loadSummaries();
+        CompletableFuture<Timestamp> mark = calls.track(asyncDAO.getGradeWatermark());
+        calls.track(asyncDAO.preloadReferenceData()).thenCombine(mark, (v, since) -> since).thenAccept(since -> {
+            if (generation != loadGeneration) return;
+            watermark = since;
+            loadPage(generation, 0);
+        });
+    }
+
+    /**
+     * Merges the grades changed or deleted since the last load or refresh into
+     * the table, so a refresh costs time in proportion to the changes rather
+     * than the gradebook. Falls back to a full reload while a load is still
+     * running or when the change history no longer reaches back to the watermark.
+     */
+    private void refreshChanges() {
+        if (!loadComplete || watermark == null) {
+            loadGradesData();
+            return;
+        }
+        if (refreshing) {
+            refreshAgain = true;
+            return;
+        }
+        refreshing = true;
+        int generation = loadGeneration;
+        int userId = loggedInUser.getUserId();
+        CompletableFuture<GradeDelta> delta;
+        switch (loggedInUser.getRole()) {
+            case STUDENT: delta = asyncDAO.getStudentGradeChanges(userId, watermark); break;
+            case TEACHER: delta = asyncDAO.getTeacherGradeChanges(userId, watermark); break;
+            default: delta = asyncDAO.getAllGradeChanges(watermark);
+        }
+        // Not tracked: a background refresh shouldn't flash the wait cursor
+        delta.whenComplete((d, error) -> {
+            refreshing = false;
+            if (!isDisplayable() || generation != loadGeneration) return;
+            if (d != null && !d.isComplete()) {
+                loadGradesData();
+                return;
+            }
+            // On an error the same watermark is tried again next time
+            if (d != null) mergeChanges(d);
+            if (refreshAgain) {
+                refreshAgain = false;
+                refreshChanges();
+            }
+        });
+    }
+
+    private void mergeChanges(GradeDelta delta) {
+        boolean changed = false;
+        for (TeacherGradeRow r : delta.getChanged()) {
+            Grade g = r.getGrade();
+            int row = tableModel.indexOfGrade(g.getGradeId());
+            // Already shown, or newer from an event that overtook the query
+            if (row >= 0 && tableModel.getVersion(row) >= g.getVersion()) continue;
+            tableModel.upsertRow(g, r.getStudentName());
+            changed = true;
+        }
+        for (int gradeId : delta.getDeletedGradeIds()) {
+            if (tableModel.removeRow(gradeId)) changed = true;
+        }
+        watermark = delta.getWatermark();
+        if (changed) summaryRefresh.restart();
+    }
+
+    private void loadPage(int generation, int afterGradeId) {
+        if (generation != loadGeneration) return;
+        int userId = loggedInUser.getUserId();
+        if (loggedInUser.getRole() == Role.ADMIN) {
+            calls.track(asyncDAO.getAllGradesPage(afterGradeId, PAGE_SIZE)).thenAccept(page -> {
+                if (generation != loadGeneration) return;
+                tableModel.appendTeacherRows(page);
+                if (page.size() == PAGE_SIZE) loadPage(generation, page.get(page.size() - 1).getGrade().getGradeId());
+                else loadComplete = true;
+            });
+        } else if (tableModel.getLayout() == GradeTableModel.Layout.STUDENT) {
+            calls.track(asyncDAO.getStudentGradesPage(userId, afterGradeId, PAGE_SIZE)).thenAccept(page -> {
+                if (generation != loadGeneration) return;
+                tableModel.appendGrades(page);
+                if (page.size() == PAGE_SIZE) loadPage(generation, page.get(page.size() - 1).getGradeId());
+                else loadComplete = true;
+            });
+        } else {
+            calls.track(asyncDAO.getTeacherAssignedGradesPage(userId, afterGradeId, PAGE_SIZE)).thenAccept(page -> {
+                if (generation != loadGeneration) return;
+                tableModel.appendTeacherRows(page);
+                if (page.size() == PAGE_SIZE) loadPage(generation, page.get(page.size() - 1).getGrade().getGradeId());
+                else loadComplete = true;
+            });
+        }
+    }
+
+    private void loadSummaries() {
+        loadStatistics();
+        loadRankings();
+        loadDistribution();
+    }
+
+    /**
+     * Grade writes from any window are patched into the table row by row; a
+     * bulk change is merged with a delta refresh. The statistics panels follow
+     * once a burst of changes has settled.
+     */
+    private void subscribeToChanges() {
+        events.on(GradeRecorded.class, e -> gradeSaved(e.getGrade()));
+        events.on(GradeUpdated.class, e -> gradeSaved(e.getGrade()));
+        events.on(GradeDeleted.class, e -> {
+            if (tableModel.removeRow(e.getGradeId())) summaryRefresh.restart();
+        });
+        events.on(GradesChanged.class, e -> refreshChanges());
+        events.on(ChangesMissed.class, e -> refreshChanges());
+        events.on(SubjectAdded.class, e -> subjectAdded(e.getSubject()));
+        events.on(SubjectDeleted.class, e -> subjectDeleted(e.getSubjectId()));
+        events.on(ReferenceDataRefreshed.class, e -> tableModel.namesChanged());
+    }
+
+    private void gradeSaved(Grade g) {
+        if (!isShown(g)) return;
+        summaryRefresh.restart();
+        int row = tableModel.indexOfGrade(g.getGradeId());
+        int size = tableModel.getRowCount();
+        // Past the last loaded row of an unfinished load: it arrives with its page
+        if (row < 0 && !loadComplete && (size == 0 || g.getGradeId() > tableModel.getGradeId(size - 1))) return;
+        // A blind write doesn't know the new version; the next delta brings it
+        if (g.getVersion() == Grade.UNKNOWN_VERSION && loadComplete) refreshChanges();
+        if (tableModel.getLayout() == GradeTableModel.Layout.STUDENT) {
+            tableModel.upsertRow(g, null);
+            return;
+        }
+        String name = row >= 0 ? tableModel.getStudentName(row) : tableModel.findStudentName(g.getStudentId());
+        if (name != null) {
+            tableModel.upsertRow(g, name);
+            return;
+        }
+        // The student's first row in this table: read it back with the name
+        int generation = loadGeneration;
+        calls.track(asyncDAO.getGradeRow(g.getGradeId())).thenAccept(saved -> {
+            // Null if deleted since; its GradeDeleted event handles the table
+            if (generation != loadGeneration || saved == null) return;
+            tableModel.upsertRow(saved.getGrade(), saved.getStudentName());
+        });
+    }
+
+    private boolean isShown(Grade g) {
+        switch (loggedInUser.getRole()) {
+            case STUDENT: return g.getStudentId() == loggedInUser.getUserId();
+            case TEACHER: return filterSubjectIds.contains(g.getSubjectId());
+            default: return true;
+        }
+    }
+
+    private void subjectAdded(Subject s) {
+        if (loggedInUser.getRole() == Role.TEACHER && s.getTeacherId() != loggedInUser.getUserId()) return;
+        filterSubjectIds.add(s.getSubjectId());
+        cmbSubjectFilter.addItem(s.getSubjectName());
+        rankSubjectIds.add(s.getSubjectId());
+        cmbRankScope.addItem(s.getSubjectName());
+    }
+
+    /**
+     * Drops the subject from the pickers; its grades go with the GradesChanged that follows.
+     */
+    private void subjectDeleted(int subjectId) {
+        int index = filterSubjectIds.indexOf(subjectId);
+        if (index >= 0) {
+            filterSubjectIds.remove(index);
+            cmbSubjectFilter.removeItemAt(index + 1);
+        }
+        index = rankSubjectIds.indexOf(subjectId);
+        if (index >= 0) {
+            rankSubjectIds.remove(index);
+            cmbRankScope.removeItemAt(index + 1);
+        }
+    }
+
+    /**
+     * The table follows the save through the grade events.
+     */
     private void openEditor(Grade g) {
         new GradeEditorForm(this, g, loggedInUser).setVisible(true);
-        loadGradesData();
+    }
+
+    private void openClassEditor() {
+        new GradeEditorForm(this, loggedInUser).setVisible(true);
     }
 
     private void editSelected() {
         int row = gradeTable.getSelectedRow();
-        if (row != -1) {
-            Grade g = gradeDAO.getGradeById((int) tableModel.getValueAt(row, 0));
-            if (g != null) openEditor(g);
+        if (row == -1) return;
+        // The table row holds every column of the grade, so there is nothing to
+        // fetch unless a blind write left its version unknown
+        int r = gradeTable.convertRowIndexToModel(row);
+        if (tableModel.getVersion(r) == Grade.UNKNOWN_VERSION) {
+            calls.track(asyncDAO.getGradeById(tableModel.getGradeId(r))).thenAccept(g -> {
+                if (g != null) openEditor(g);
+            });
+            return;
         }
+        openEditor(new Grade(tableModel.getGradeId(r), tableModel.getStudentId(r), tableModel.getSubjectId(r),
+                tableModel.getGradeValue(r), tableModel.getEpochDay(r), GradeType.values()[tableModel.getTypeCode(r)],
+                tableModel.getVersion(r)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.strawhatacademy.ui;
+
+import com.strawhatacademy.dao.GradeHistogram;
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+
+/**
+ * Bar chart of a GradeHistogram in 5-point buckets, with the median marked.
+ */
+public class HistogramPanel extends JComponent {
+
+    private static final int BINS_PER_BUCKET = (int) Math.round(5 / GradeHistogram.BIN_WIDTH);
+    private static final Color BAR = new Color(70, 130, 180);
+    private static final Color MEDIAN = new Color(200, 60, 60);
+
+    private GradeHistogram histogram;
+
+    public HistogramPanel() {
+        setPreferredSize(new Dimension(0, 120));
+    }
+
+    /**
+     * @param histogram The distribution to draw, or null to clear the chart.
+     */
+    public void setHistogram(GradeHistogram histogram) {
+        this.histogram = histogram;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        FontMetrics fm = g.getFontMetrics();
+        int left = 4, right = getWidth() - 4;
+        int top = 4, bottom = getHeight() - fm.getHeight() - 2;
+        if (histogram == null || histogram.getCount() == 0 || right <= left || bottom <= top) {
+            g.setColor(getForeground());
+            g.drawString("No recorded grades", left, top + fm.getAscent());
+            return;
+        }
+
+        long[] buckets = histogram.buckets(BINS_PER_BUCKET);
+        long highest = 1;
+        for (long b : buckets) highest = Math.max(highest, b);
+        double barWidth = (double) (right - left) / buckets.length;
+
+        g.setColor(BAR);
+        for (int i = 0; i < buckets.length; i++) {
+            int x = left + (int) (i * barWidth);
+            int h = (int) ((bottom - top) * buckets[i] / highest);
+            g.fillRect(x, bottom - h, Math.max(1, (int) barWidth - 1), h);
+        }
+
+        g.setColor(MEDIAN);
+        int medianX = left + (int) ((right - left) * histogram.median() / (GradeHistogram.BINS * GradeHistogram.BIN_WIDTH));
+        g.drawLine(medianX, top, medianX, bottom);
+
+        g.setColor(getForeground());
+        g.drawLine(left, bottom, right, bottom);
+        for (int mark = 0; mark <= 100; mark += 25) {
+            String label = Integer.toString(mark);
+            int x = left + (right - left) * mark / 100 - fm.stringWidth(label) / 2;
+            g.drawString(label, Math.max(0, Math.min(x, getWidth() - fm.stringWidth(label))), getHeight() - fm.getDescent());
+        }
+    }
+}
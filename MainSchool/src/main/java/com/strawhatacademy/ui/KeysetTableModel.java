@@ -0,0 +1,302 @@
+package com.strawhatacademy.ui;
+
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A read-only table model that loads rows page by page as the table scrolls.
+ * Pages are fetched with keyset pagination ("key > lastKey ORDER BY key LIMIT n"),
+ * so every fetch is an index range scan no matter how deep the user has scrolled.
+ * Only maxResidentPages pages are kept in memory; an evicted page is fetched again
+ * from its remembered start key when it scrolls back into view. Rows can only be
+ * shown in key order, so views that sort or filter all rows (the grade view) use
+ * GradeTableModel instead.
+ * Fetches are asynchronous: the source's futures must complete on the EDT, and
+ * rows of a page that is still loading render as empty cells until it arrives.
+ * A failed fetch is retried on its own after a growing delay, not on every repaint.
+ * Single rows written elsewhere are patched in with rowAdded/rowRemoved/rowChanged
+ * instead of a reload.
+ *
+ * @param <T> The row type returned by the DAO.
+ */
+public class KeysetTableModel<T> extends AbstractTableModel {
+
+    /**
+     * Fetches up to limit rows whose key is greater than afterKey, in key order.
+     */
+    public interface PageSource<T> {
+        CompletableFuture<List<T>> fetchAfter(int afterKey, int limit);
+    }
+
+    /**
+     * Maps a row object onto its key and table cells.
+     */
+    public interface RowAdapter<T> {
+        int keyOf(T row);
+        Object valueAt(T row, int column);
+    }
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int DEFAULT_RESIDENT_PAGES = 10;
+    // Retry delay after a failed fetch, doubled per consecutive failure
+    private static final int MIN_RETRY_MS = 1_000;
+    private static final int MAX_RETRY_MS = 30_000;
+
+    private final String[] columnNames;
+    private final PageSource<T> source;
+    private final RowAdapter<T> adapter;
+    private final int pageSize;
+    private final int maxResidentPages;
+
+    // pageStartKeys.get(p) is the exclusive lower key bound of page p
+    private final List<Integer> pageStartKeys = new ArrayList<>();
+    private final Map<Integer, List<T>> resident;
+    private final Set<Integer> inFlight = new HashSet<>();
+    // Pages whose fetch failed and the retry timer that will fetch them again
+    private final Map<Integer, Timer> retrying = new HashMap<>();
+    private int consecutiveFailures;
+    private int rowCount;
+    private boolean exhausted;
+    // Bumped by reload() so pages requested before it are ignored when they arrive
+    private int generation;
+
+    public KeysetTableModel(String[] columnNames, PageSource<T> source, RowAdapter<T> adapter) {
+        this(columnNames, source, adapter, DEFAULT_PAGE_SIZE, DEFAULT_RESIDENT_PAGES);
+    }
+
+    public KeysetTableModel(String[] columnNames, PageSource<T> source, RowAdapter<T> adapter,
+                            int pageSize, int maxResidentPages) {
+        this.columnNames = columnNames;
+        this.source = source;
+        this.adapter = adapter;
+        this.pageSize = pageSize;
+        this.maxResidentPages = Math.max(2, maxResidentPages);
+        this.resident = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > KeysetTableModel.this.maxResidentPages;
+            }
+        };
+    }
+
+    /**
+     * Drops everything and requests the first page again.
+     */
+    public void reload() {
+        generation++;
+        pageStartKeys.clear();
+        resident.clear();
+        inFlight.clear();
+        for (Timer t : retrying.values()) t.stop();
+        retrying.clear();
+        consecutiveFailures = 0;
+        rowCount = 0;
+        exhausted = false;
+        fireTableDataChanged();
+        request(0, 0);
+    }
+
+    /**
+     * Shows a row created after loading. A key past the end is appended once the
+     * end has been loaded (and otherwise arrives with its page); anywhere else
+     * the pages from the one that covers it are fetched again.
+     */
+    public void rowAdded(T row) {
+        int key = adapter.keyOf(row);
+        int page = pageOf(key);
+        if (page < 0) return;
+        boolean last = page == pageStartKeys.size() - 1;
+        List<T> rows = resident.get(page);
+        int offset = rows == null ? -1 : offsetOf(rows, key);
+        if (rows != null && offset < rows.size() && adapter.keyOf(rows.get(offset)) == key) return;
+        if (last && !exhausted && rows != null && offset == rows.size()) return;
+        // Every page but the last is full, so only the last can grow in place
+        if (last && exhausted && rows != null && rows.size() < pageSize) {
+            rows = new ArrayList<>(rows);
+            rows.add(offset, row);
+            resident.put(page, rows);
+            rowCount++;
+            fireTableRowsInserted(page * pageSize + offset, page * pageSize + offset);
+        } else {
+            refetchFrom(page);
+        }
+    }
+
+    /**
+     * Drops a deleted row: in place on the last page, otherwise by fetching the
+     * pages from the one that held it again.
+     */
+    public void rowRemoved(int key) {
+        int page = pageOf(key);
+        if (page < 0) return;
+        List<T> rows = resident.get(page);
+        int offset = rows == null ? -1 : offsetOf(rows, key);
+        if (rows != null && (offset == rows.size() || adapter.keyOf(rows.get(offset)) != key)) return;
+        if (page == pageStartKeys.size() - 1 && exhausted && rows != null) {
+            rows = new ArrayList<>(rows);
+            rows.remove(offset);
+            resident.put(page, rows);
+            rowCount--;
+            fireTableRowsDeleted(page * pageSize + offset, page * pageSize + offset);
+        } else {
+            refetchFrom(page);
+        }
+    }
+
+    /**
+     * Repaints the row with the given key if it is loaded, e.g. after state the
+     * adapter reads from outside the row object changed.
+     */
+    public void rowChanged(int key) {
+        int page = pageOf(key);
+        List<T> rows = page < 0 ? null : resident.get(page);
+        if (rows == null) return;
+        int offset = offsetOf(rows, key);
+        if (offset < rows.size() && adapter.keyOf(rows.get(offset)) == key) {
+            fireTableRowsUpdated(page * pageSize + offset, page * pageSize + offset);
+        }
+    }
+
+    /**
+     * @return The known page whose key range holds key, or -1 before the first page has loaded.
+     */
+    private int pageOf(int key) {
+        int lo = 0, hi = pageStartKeys.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (pageStartKeys.get(mid) < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    /**
+     * @return The position of the first row whose key is not below key.
+     */
+    private int offsetOf(List<T> rows, int key) {
+        int lo = 0, hi = rows.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (adapter.keyOf(rows.get(mid)) < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Forgets the given page and everything after it and requests it again;
+     * the rows before it keep their place.
+     */
+    private void refetchFrom(int page) {
+        int afterKey = pageStartKeys.get(page);
+        generation++;
+        inFlight.clear();
+        while (pageStartKeys.size() > page) {
+            int last = pageStartKeys.size() - 1;
+            resident.remove(last);
+            pageStartKeys.remove(last);
+        }
+        exhausted = false;
+        int kept = page * pageSize;
+        if (rowCount > kept) {
+            int old = rowCount;
+            rowCount = kept;
+            fireTableRowsDeleted(kept, old - 1);
+        }
+        request(page, afterKey);
+    }
+
+    @Override
+    public int getRowCount() { return rowCount; }
+
+    @Override
+    public int getColumnCount() { return columnNames.length; }
+
+    @Override
+    public String getColumnName(int column) { return columnNames[column]; }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRow(rowIndex);
+        return row == null ? null : adapter.valueAt(row, columnIndex);
+    }
+
+    /**
+     * @return The row at the given index, or null while its page is being (re)fetched.
+     */
+    public T getRow(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= rowCount) return null;
+        int page = rowIndex / pageSize;
+        int lastPage = pageStartKeys.size() - 1;
+        // Reaching the last known page pulls in the next one
+        if (page == lastPage && !exhausted) {
+            List<T> last = resident.get(lastPage);
+            if (last != null && !last.isEmpty()) request(lastPage + 1, adapter.keyOf(last.get(last.size() - 1)));
+        }
+        List<T> rows = resident.get(page);
+        if (rows == null) {
+            request(page, pageStartKeys.get(page));
+            return null;
+        }
+        int offset = rowIndex - page * pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    private void request(int page, int afterKey) {
+        if (retrying.containsKey(page) || !inFlight.add(page)) return;
+        int requestedIn = generation;
+        source.fetchAfter(afterKey, pageSize).whenComplete((rows, error) -> {
+            if (requestedIn != generation) return;
+            inFlight.remove(page);
+            if (error == null) {
+                consecutiveFailures = 0;
+                pageLoaded(page, afterKey, rows);
+            } else if (!PendingCalls.isCancellation(error)) {
+                scheduleRetry(page, afterKey);
+            }
+        });
+    }
+
+    private void scheduleRetry(int page, int afterKey) {
+        int delay = MIN_RETRY_MS << Math.min(consecutiveFailures++, 5);
+        Timer timer = new Timer(Math.min(delay, MAX_RETRY_MS), e -> {
+            retrying.remove(page);
+            request(page, afterKey);
+        });
+        timer.setRepeats(false);
+        retrying.put(page, timer);
+        timer.start();
+    }
+
+    private void pageLoaded(int page, int afterKey, List<T> rows) {
+        if (page < pageStartKeys.size()) {
+            // An evicted page came back
+            resident.put(page, rows);
+            int first = page * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (last >= first) fireTableRowsUpdated(first, last);
+            return;
+        }
+        if (page != pageStartKeys.size() || exhausted) return;
+        if (rows.isEmpty() && page > 0) {
+            exhausted = true;
+            return;
+        }
+        pageStartKeys.add(afterKey);
+        resident.put(page, rows);
+        if (rows.size() < pageSize) exhausted = true;
+        if (!rows.isEmpty()) {
+            int first = rowCount;
+            rowCount += rows.size();
+            fireTableRowsInserted(first, rowCount - 1);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.strawhatacademy.ui;
 
-import com.strawhatacademy.dao.UserDAO;
+import com.strawhatacademy.dao.AsyncDAO;
 import com.strawhatacademy.model.User;
 import com.strawhatacademy.model.Role;
 import javax.swing.*;
@@ -14,8 +14,9 @@ public class LoginForm extends JFrame {
     private JButton btnRegister;
     private JLabel lblMessage;
     
-    // DAO instance (made final as recommended)
-    private final UserDAO userDAO = new UserDAO(); 
+    // DAO calls run off the EDT; pending ones are dropped if the window closes
+    private final AsyncDAO asyncDAO = AsyncDAO.getInstance();
+    private final PendingCalls calls = new PendingCalls(this, null);
 
     public LoginForm() {
         initComponents();
@@ -85,9 +86,20 @@ public class LoginForm extends JFrame {
             return;
         }
 
-        // Call DAO to authenticate
-        User loggedInUser = userDAO.login(username, password);
-        
+        // Authenticate in the background; the form stays responsive meanwhile
+        btnLogin.setEnabled(false);
+        lblMessage.setText("Signing in...");
+        calls.track(asyncDAO.login(username, password)).whenComplete((loggedInUser, error) -> {
+            btnLogin.setEnabled(true);
+            if (error != null) {
+                if (!PendingCalls.isCancellation(error)) lblMessage.setText("Error: " + error.getMessage());
+                return;
+            }
+            onLoginResult(loggedInUser);
+        });
+    }
+
+    private void onLoginResult(User loggedInUser) {
         if (loggedInUser != null) {
             lblMessage.setText("Login successful! Redirecting...");
             
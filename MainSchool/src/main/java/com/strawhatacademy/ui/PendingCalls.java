@@ -0,0 +1,78 @@
+package com.strawhatacademy.ui;
+
+import javax.swing.JLabel;
+import java.awt.Cursor;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Tracks the asynchronous DAO calls a window has in flight. While any are
+ * running the window shows a wait cursor and a "Loading..." status; when the
+ * window is disposed every outstanding call is cancelled so its result is dropped.
+ * All methods are called on the EDT.
+ */
+public class PendingCalls {
+
+    private final Window window;
+    private final JLabel status;
+    private final Set<CompletableFuture<?>> pending = new HashSet<>();
+
+    /**
+     * @param window The window whose lifetime bounds the calls.
+     * @param status Optional label used as the loading indicator; may be null.
+     */
+    public PendingCalls(Window window, JLabel status) {
+        this.window = window;
+        this.status = status;
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                cancelAll();
+            }
+        });
+    }
+
+    /**
+     * Registers a call so it shows as loading and is cancelled with the window.
+     * @return The same future, for chaining.
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> call) {
+        if (call.isDone()) return call;
+        pending.add(call);
+        updateIndicator();
+        call.whenComplete((value, error) -> {
+            pending.remove(call);
+            updateIndicator();
+        });
+        return call;
+    }
+
+    public void cancelAll() {
+        for (CompletableFuture<?> call : new ArrayList<>(pending)) {
+            call.cancel(false);
+        }
+        pending.clear();
+        updateIndicator();
+    }
+
+    private void updateIndicator() {
+        boolean busy = !pending.isEmpty();
+        window.setCursor(Cursor.getPredefinedCursor(busy ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+        if (status != null) status.setText(busy ? "Loading..." : " ");
+    }
+
+    /**
+     * @return true if the failure is just the window having been closed.
+     */
+    public static boolean isCancellation(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof CancellationException;
+    }
+}
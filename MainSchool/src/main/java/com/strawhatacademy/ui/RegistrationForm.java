@@ -1,6 +1,6 @@
 package com.strawhatacademy.ui;
 
-import com.strawhatacademy.dao.UserDAO;
+import com.strawhatacademy.dao.AsyncDAO;
 import com.strawhatacademy.model.User;
 import com.strawhatacademy.model.Role;
 import javax.swing.*;
@@ -15,8 +15,9 @@ public class RegistrationForm extends JFrame {
     private JButton btnRegister;
     private JLabel lblStatus;
     
-    // DAO instance for database interaction
-    private final UserDAO userDAO = new UserDAO(); 
+    // DAO calls run off the EDT; pending ones are dropped if the window closes
+    private final AsyncDAO asyncDAO = AsyncDAO.getInstance();
+    private final PendingCalls calls = new PendingCalls(this, null);
 
     public RegistrationForm() {
         initComponents();
@@ -91,14 +92,19 @@ public class RegistrationForm extends JFrame {
             }
 
             User newUser = new User(0, username, role, firstName, lastName);
-            boolean success = userDAO.registerUser(newUser, password);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this, "Registration Successful for " + role + "!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                this.dispose(); 
-            } else {
-                lblStatus.setText("Registration failed. Username may exist or connection failed.");
-            }
+            btnRegister.setEnabled(false);
+            lblStatus.setText("Registering...");
+            calls.track(asyncDAO.registerUser(newUser, password)).whenComplete((success, error) -> {
+                btnRegister.setEnabled(true);
+                if (error != null) {
+                    if (!PendingCalls.isCancellation(error)) lblStatus.setText("An unexpected system error occurred.");
+                } else if (success) {
+                    JOptionPane.showMessageDialog(this, "Registration Successful for " + role + "!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    this.dispose();
+                } else {
+                    lblStatus.setText("Registration failed. Username may exist or connection failed.");
+                }
+            });
         } catch (Exception ex) {
             lblStatus.setText("An unexpected system error occurred.");
             ex.printStackTrace(); 
@@ -1,42 +1,48 @@
 package com.strawhatacademy.ui;
 
-import com.strawhatacademy.dao.SubjectDAO;
-import com.strawhatacademy.dao.UserDAO;
+import com.strawhatacademy.dao.AsyncDAO;
+import com.strawhatacademy.dao.EnrollmentResult;
+import com.strawhatacademy.event.ChangesMissed;
+import com.strawhatacademy.event.ReferenceDataRefreshed;
+import com.strawhatacademy.event.StudentEnrolled;
+import com.strawhatacademy.event.StudentUnenrolled;
+import com.strawhatacademy.event.SubjectAdded;
+import com.strawhatacademy.event.SubjectDeleted;
 import com.strawhatacademy.model.Role;
 import com.strawhatacademy.model.Subject;
 import com.strawhatacademy.model.User;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class SubjectsViewForm extends JFrame {
 
     private final User loggedInUser;
-    private final SubjectDAO subjectDAO = new SubjectDAO();
-    private final UserDAO userDAO = new UserDAO();
+    private final AsyncDAO asyncDAO = AsyncDAO.getInstance();
+    private final JLabel lblStatus = new JLabel(" ");
+    private final PendingCalls calls;
+    private final EventSubscriptions events;
 
     private JTable subjectTable;
-    private DefaultTableModel tableModel;
+    private KeysetTableModel<Subject> tableModel;
     private JLabel lblTitle;
-    private Map<Integer, String> teacherNameMap;
+    // Subjects the logged-in student is enrolled in; only touched on the EDT
+    private final Set<Integer> enrolledSubjectIds = new HashSet<>();
 
     public SubjectsViewForm(User user) {
         this.loggedInUser = user;
-        loadTeacherCache(); 
+        this.calls = new PendingCalls(this, lblStatus);
+        this.events = new EventSubscriptions(this);
         initComponents();
+        subscribeToChanges();
         loadSubjectData();
         this.setLocationRelativeTo(null);
         this.setTitle("Subjects View");
     }
 
-    private void loadTeacherCache() {
-        teacherNameMap = userDAO.getAllUsers().stream()
-            .collect(Collectors.toMap(User::getUserId, u -> u.getFirstName() + " " + u.getLastName()));
-    }
-
     private void initComponents() {
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setSize(800, 500);
@@ -48,20 +54,36 @@ public class SubjectsViewForm extends JFrame {
 
         String[] columnNames;
         if (loggedInUser.getRole() == Role.STUDENT) {
-            columnNames = new String[]{"Subject ID", "Subject Name", "Assigned Teacher ID"};
+            columnNames = new String[]{"Subject ID", "Subject Name", "Assigned Teacher ID", "Enrolled"};
             lblTitle.setText("All Available Subjects");
         } else {
             columnNames = new String[]{"Subject ID", "Subject Name", "Instructor", "Status"};
             lblTitle.setText(loggedInUser.getRole() == Role.ADMIN ? "Admin: Subject Management" : "Your Assigned Subjects");
         }
 
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override public boolean isCellEditable(int row, int column) { return false; }
-        };
+        boolean allSubjects = loggedInUser.getRole() == Role.STUDENT || loggedInUser.getRole() == Role.ADMIN;
+        boolean student = loggedInUser.getRole() == Role.STUDENT;
+        int userId = loggedInUser.getUserId();
+        tableModel = new KeysetTableModel<>(columnNames,
+            (after, limit) -> calls.track(allSubjects ? asyncDAO.getSubjectsPage(after, limit)
+                                                      : asyncDAO.getTeacherSubjectsPage(userId, after, limit)),
+            new KeysetTableModel.RowAdapter<Subject>() {
+                @Override public int keyOf(Subject s) { return s.getSubjectId(); }
+                @Override public Object valueAt(Subject s, int col) {
+                    switch (col) {
+                        case 0: return s.getSubjectId();
+                        case 1: return s.getSubjectName();
+                        case 2: return student ? s.getTeacherId() : asyncDAO.getTeacherNameIfPresent(s.getTeacherId());
+                        case 3: return !student ? "N/A" : enrolledSubjectIds.contains(s.getSubjectId()) ? "Yes" : "";
+                        default: return "N/A";
+                    }
+                }
+            });
         subjectTable = new JTable(tableModel);
         add(new JScrollPane(subjectTable), BorderLayout.CENTER);
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(lblStatus);
         
         // Show Admin/Teacher buttons
         if (loggedInUser.getRole() == Role.ADMIN || loggedInUser.getRole() == Role.TEACHER) {
@@ -69,8 +91,14 @@ public class SubjectsViewForm extends JFrame {
             JButton btnRemove = new JButton("Remove Subject");
             btnAdd.addActionListener(e -> addNewSubject());
             btnRemove.addActionListener(e -> removeSelectedSubject());
+            JButton btnRoster = new JButton("View Roster");
+            btnRoster.addActionListener(e -> showRoster());
+            JButton btnCapacity = new JButton("Set Capacity");
+            btnCapacity.addActionListener(e -> editCapacity());
             buttonPanel.add(btnAdd);
             buttonPanel.add(btnRemove);
+            buttonPanel.add(btnRoster);
+            buttonPanel.add(btnCapacity);
         } 
         
         // --- NEW: Show Student Enroll Button ---
@@ -78,6 +106,9 @@ public class SubjectsViewForm extends JFrame {
             JButton btnEnroll = new JButton("Enroll in Selected Subject");
             btnEnroll.addActionListener(e -> handleEnrollment());
             buttonPanel.add(btnEnroll);
+            JButton btnDrop = new JButton("Drop Selected Subject");
+            btnDrop.addActionListener(e -> handleUnenrollment());
+            buttonPanel.add(btnDrop);
         }
 
         add(buttonPanel, BorderLayout.SOUTH);
@@ -85,55 +116,189 @@ public class SubjectsViewForm extends JFrame {
 
     private void handleEnrollment() {
         int selectedRow = subjectTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this, "Please select a subject to enroll in.");
             return;
         }
 
         int subjectId = (int) tableModel.getValueAt(selectedRow, 0);
         String subjectName = (String) tableModel.getValueAt(selectedRow, 1);
+        if (enrolledSubjectIds.contains(subjectId)) {
+            JOptionPane.showMessageDialog(this, "You are already enrolled in " + subjectName + ".");
+            return;
+        }
 
         int confirm = JOptionPane.showConfirmDialog(this, "Enroll in " + subjectName + "?", "Confirm", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            if (subjectDAO.enrollStudent(loggedInUser.getUserId(), subjectId)) {
-                JOptionPane.showMessageDialog(this, "Successfully enrolled in " + subjectName + "!");
-            } else {
-                JOptionPane.showMessageDialog(this, "Enrollment failed. You might already be enrolled.");
+            submit(asyncDAO.enrollStudent(loggedInUser.getUserId(), subjectId), result -> {
+                // A new enrollment arrives as a StudentEnrolled event
+                if (result == EnrollmentResult.ALREADY_ENROLLED && enrolledSubjectIds.add(subjectId)) {
+                    tableModel.rowChanged(subjectId);
+                }
+                JOptionPane.showMessageDialog(this, enrollmentMessage(result, subjectName));
+            });
+        }
+    }
+
+    private static String enrollmentMessage(EnrollmentResult result, String subjectName) {
+        switch (result) {
+            case ENROLLED: return "Successfully enrolled in " + subjectName + "!";
+            case WAITLISTED: return subjectName + " is full. You are on the waitlist and will be enrolled when a seat frees up.";
+            case ALREADY_ENROLLED: return "You are already enrolled in " + subjectName + ".";
+            case ALREADY_WAITLISTED: return "You are already on the waitlist for " + subjectName + ".";
+            case IN_PROGRESS: return "Your enrollment in " + subjectName + " is still being processed.";
+            default: return "Enrollment failed. Please try again.";
+        }
+    }
+
+    private void handleUnenrollment() {
+        int selectedRow = subjectTable.getSelectedRow();
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
+            JOptionPane.showMessageDialog(this, "Please select a subject to drop.");
+            return;
+        }
+
+        int subjectId = (int) tableModel.getValueAt(selectedRow, 0);
+        String subjectName = (String) tableModel.getValueAt(selectedRow, 1);
+
+        int confirm = JOptionPane.showConfirmDialog(this, "Drop " + subjectName + "? Your recorded grades are kept.", "Confirm", JOptionPane.YES_NO_OPTION);
+        if (confirm == JOptionPane.YES_OPTION) {
+            submit(asyncDAO.unenrollStudent(loggedInUser.getUserId(), subjectId), dropped -> {
+                if (!dropped) JOptionPane.showMessageDialog(this, "You are not enrolled in " + subjectName + ".");
+            });
+        }
+    }
+
+    private void showRoster() {
+        int row = subjectTable.getSelectedRow();
+        if (row == -1 || tableModel.getValueAt(row, 0) == null) {
+            JOptionPane.showMessageDialog(this, "Please select a subject.");
+            return;
+        }
+        int subjectId = (int) tableModel.getValueAt(row, 0);
+        String subjectName = (String) tableModel.getValueAt(row, 1);
+        submit(asyncDAO.getRoster(subjectId), students -> {
+            StringBuilder sb = new StringBuilder();
+            for (User s : students) {
+                sb.append(s.getUserId()).append("  ").append(s.getFirstName()).append(' ').append(s.getLastName()).append('\n');
             }
+            JTextArea text = new JTextArea(students.isEmpty() ? "No students enrolled." : sb.toString(), 15, 30);
+            text.setEditable(false);
+            JOptionPane.showMessageDialog(this, new JScrollPane(text),
+                    subjectName + " - " + students.size() + " enrolled", JOptionPane.PLAIN_MESSAGE);
+        });
+    }
+
+    private void editCapacity() {
+        int row = subjectTable.getSelectedRow();
+        if (row == -1 || tableModel.getValueAt(row, 0) == null) {
+            JOptionPane.showMessageDialog(this, "Please select a subject.");
+            return;
         }
+        int subjectId = (int) tableModel.getValueAt(row, 0);
+        String subjectName = (String) tableModel.getValueAt(row, 1);
+        submit(asyncDAO.getSeats(subjectId), seats -> {
+            if (seats == null) {
+                JOptionPane.showMessageDialog(this, "Could not load the seats of " + subjectName + ".");
+                return;
+            }
+            String current = seats.isLimited()
+                    ? seats.getEnrolled() + " of " + seats.getCapacity() + " seats taken, " + seats.getSeatsLeft() + " free"
+                    : seats.getEnrolled() + " enrolled, no limit";
+            String input = JOptionPane.showInputDialog(this,
+                    subjectName + ": " + current + ", " + seats.getWaitlisted() + " on the waitlist.\n"
+                    + "New capacity (leave empty for no limit):",
+                    seats.isLimited() ? String.valueOf(seats.getCapacity()) : "");
+            if (input == null) return;
+            Integer capacity;
+            try {
+                capacity = input.isBlank() ? null : Integer.valueOf(input.trim());
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(this, "Capacity must be a whole number.");
+                return;
+            }
+            if (capacity != null && capacity < 0) {
+                JOptionPane.showMessageDialog(this, "Capacity must not be negative.");
+                return;
+            }
+            submit(asyncDAO.setCapacity(subjectId, capacity), updated -> {
+                if (!updated) JOptionPane.showMessageDialog(this, "Could not update the capacity of " + subjectName + ".");
+            });
+        });
     }
 
     private void addNewSubject() {
         String name = JOptionPane.showInputDialog(this, "Enter Subject Name:");
         if (name != null && !name.trim().isEmpty()) {
-            if (subjectDAO.addSubject(name.trim(), loggedInUser.getUserId())) {
-                loadSubjectData();
-            }
+            submit(asyncDAO.addSubject(name.trim(), loggedInUser.getUserId()), added -> {
+                if (!added) JOptionPane.showMessageDialog(this, "Could not add the subject.");
+            });
         }
     }
 
     private void removeSelectedSubject() {
         int row = subjectTable.getSelectedRow();
-        if (row != -1) {
+        if (row != -1 && tableModel.getValueAt(row, 0) != null) {
             int id = (int) tableModel.getValueAt(row, 0);
-            if (subjectDAO.deleteSubject(id)) {
-                loadSubjectData();
-            } else {
-                JOptionPane.showMessageDialog(this, "Cannot remove subject with existing grades.");
-            }
+            submit(asyncDAO.deleteSubject(id), deleted -> {
+                if (!deleted) JOptionPane.showMessageDialog(this, "Cannot remove subject with existing grades.");
+            });
         }
     }
 
-    private void loadSubjectData() {
-        tableModel.setRowCount(0);
-        List<Subject> subjects = (loggedInUser.getRole() == Role.STUDENT || loggedInUser.getRole() == Role.ADMIN) 
-                                ? subjectDAO.getAllSubjects() : subjectDAO.getTeacherSubjects(loggedInUser.getUserId());
-        for (Subject s : subjects) {
-            if (loggedInUser.getRole() == Role.STUDENT) {
-                tableModel.addRow(new Object[]{s.getSubjectId(), s.getSubjectName(), s.getTeacherId()});
-            } else {
-                tableModel.addRow(new Object[]{s.getSubjectId(), s.getSubjectName(), teacherNameMap.get(s.getTeacherId()), "N/A"});
+    /**
+     * Runs onDone with the result of a user action, or tells the user why it failed.
+     */
+    private <T> void submit(CompletableFuture<T> call, Consumer<T> onDone) {
+        calls.track(call).whenComplete((result, error) -> {
+            if (error == null) {
+                onDone.accept(result);
+            } else if (!PendingCalls.isCancellation(error)) {
+                JOptionPane.showMessageDialog(this, "Error: " + error.getMessage());
             }
+        });
+    }
+
+    /**
+     * Subjects and the student's enrollments written from any window or client
+     * (including waitlist promotions) are patched into the loaded rows instead of reloading.
+     */
+    private void subscribeToChanges() {
+        int userId = loggedInUser.getUserId();
+        boolean ownOnly = loggedInUser.getRole() == Role.TEACHER;
+        events.on(ChangesMissed.class, e -> loadSubjectData());
+        // Teacher names are rendered from the cache, which reloads in the background
+        events.on(ReferenceDataRefreshed.class, e -> subjectTable.repaint());
+        events.on(SubjectAdded.class, e -> {
+            if (!ownOnly || e.getSubject().getTeacherId() == userId) tableModel.rowAdded(e.getSubject());
+        });
+        events.on(SubjectDeleted.class, e -> {
+            enrolledSubjectIds.remove(e.getSubjectId());
+            tableModel.rowRemoved(e.getSubjectId());
+        });
+        if (loggedInUser.getRole() != Role.STUDENT) return;
+        events.on(StudentEnrolled.class, e -> {
+            if (e.getStudentId() == userId && enrolledSubjectIds.add(e.getSubjectId())) tableModel.rowChanged(e.getSubjectId());
+        });
+        events.on(StudentUnenrolled.class, e -> {
+            if (e.getStudentId() == userId && enrolledSubjectIds.remove(e.getSubjectId())) tableModel.rowChanged(e.getSubjectId());
+        });
+    }
+
+    /**
+     * Reloads the first page; later pages are fetched as the table scrolls.
+     * Teacher names (or a student's enrollments) are loaded first so rendering
+     * never queries on the EDT.
+     */
+    private void loadSubjectData() {
+        if (loggedInUser.getRole() == Role.STUDENT) {
+            calls.track(asyncDAO.getEnrolledSubjectIds(loggedInUser.getUserId())).thenAccept(ids -> {
+                enrolledSubjectIds.clear();
+                enrolledSubjectIds.addAll(ids);
+                tableModel.reload();
+            });
+            return;
         }
+        calls.track(asyncDAO.preloadReferenceData()).thenRun(tableModel::reload);
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.strawhatacademy.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to object values.
+ * Uses open addressing with linear probing over parallel arrays, so lookups
+ * neither box the key nor allocate entry objects. Null values are not allowed;
+ * get() returns null for a missing key.
+ * Not thread-safe.
+ *
+ * @param <V> The value type.
+ */
+public class IntObjectMap<V> {
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public IntObjectMap() {
+        this(16);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / 0.6f)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * 0.6f);
+    }
+
+    private static int slot(int key, int mask) {
+        // Fibonacci hashing spreads sequential database ids across the table
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = slot(key, mask);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) return (V) v;
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return The previous value for the key, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new NullPointerException("IntObjectMap does not accept null values");
+        int i = slot(key, mask);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) rehash(keys.length << 1);
+        return null;
+    }
+
+    /**
+     * @return The removed value, or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = slot(key, mask);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Backward-shift deletion keeps probe chains intact without tombstones.
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            Object v = values[i];
+            if (v == null) break;
+            int home = slot(keys[i], mask);
+            // Move the entry into the gap if the gap lies on its probe path
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = v;
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            Object v = oldValues[j];
+            if (v == null) continue;
+            int i = slot(oldKeys[j], mask);
+            while (values[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = v;
+        }
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Receives each entry of the map.
+     */
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) consumer.accept(keys[i], (V) values[i]);
+        }
+    }
+}
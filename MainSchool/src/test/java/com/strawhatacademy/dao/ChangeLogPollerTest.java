@@ -0,0 +1,187 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.event.DomainEvent;
+import com.strawhatacademy.event.EventBus;
+import com.strawhatacademy.event.GradeDeleted;
+import com.strawhatacademy.event.GradeRecorded;
+import com.strawhatacademy.event.GradeUpdated;
+import com.strawhatacademy.event.StudentEnrolled;
+import com.strawhatacademy.event.StudentUnenrolled;
+import com.strawhatacademy.event.SubjectAdded;
+import com.strawhatacademy.event.SubjectDeleted;
+import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.GradeType;
+import com.strawhatacademy.model.Role;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * The change feed as another client sees it. Writes made over a connection
+ * outside the pool carry no @client_id, so the poller in this JVM treats them as
+ * another client's and must publish each one; this client's own writes must not
+ * be published a second time.
+ */
+class ChangeLogPollerTest {
+
+    private static final long STEP_TIMEOUT_MS = 15_000;
+
+    static {
+        // Read once when ChangeLogPoller is initialised, which this class does first
+        System.setProperty("strawhat.changes.pollIntervalMs", "100");
+    }
+
+    // Every event published in this JVM, as "Type id ..." lines, with how often it was seen
+    private static final Map<String, LongAdder> seen = new ConcurrentHashMap<>();
+    private static EventBus.Subscription subscription;
+    private static int teacherId;
+    private static int studentId;
+
+    @BeforeAll
+    static void startPoller() throws SQLException {
+        TestDatabase.start();
+        teacherId = TestDatabase.createUser(Role.TEACHER);
+        studentId = TestDatabase.createUser(Role.STUDENT);
+        subscription = EventBus.getInstance().subscribe(DomainEvent.class,
+                e -> seen.computeIfAbsent(describe(e), k -> new LongAdder()).increment());
+        ChangeLogPoller.start();
+        // The poller starts from the newest change at its first poll; write until it reports one
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STEP_TIMEOUT_MS);
+        while (System.nanoTime() < deadline) {
+            int probe = remoteInsert("INSERT INTO subjects (subject_name, teacher_id) VALUES ('Poller probe', " + teacherId + ")");
+            boolean reported = await("SubjectAdded " + probe, 1_000);
+            remoteUpdate("DELETE FROM subjects WHERE subject_id = " + probe);
+            if (reported) return;
+        }
+        fail("The poller never reported a change");
+    }
+
+    @AfterAll
+    static void stopPoller() {
+        ChangeLogPoller.shutdown();
+        if (subscription != null) subscription.cancel();
+    }
+
+    @Test
+    void everyRemoteChangeIsPublished() throws SQLException {
+        int subjectId = remoteInsert("INSERT INTO subjects (subject_name, teacher_id) VALUES ('Feed subject', " + teacherId + ")");
+        expect("SubjectAdded " + subjectId);
+
+        remoteUpdate("INSERT INTO enrollments (subject_id, student_id, enrolled_on) VALUES ("
+                + subjectId + ", " + studentId + ", CURDATE())");
+        expect("StudentEnrolled " + subjectId + " " + studentId);
+
+        int gradeId = remoteInsert("INSERT INTO grades (student_id, subject_id, grade_value, date_recorded, type) VALUES ("
+                + studentId + ", " + subjectId + ", 80, CURDATE(), 'Exam')");
+        expect("GradeRecorded " + gradeId + " 80.0");
+
+        remoteUpdate("UPDATE grades SET grade_value = 91.5, version = version + 1 WHERE grade_id = " + gradeId);
+        expect("GradeUpdated " + gradeId + " 91.5");
+
+        remoteUpdate("DELETE FROM grades WHERE grade_id = " + gradeId);
+        expect("GradeDeleted " + gradeId);
+
+        remoteUpdate("DELETE FROM enrollments WHERE subject_id = " + subjectId + " AND student_id = " + studentId);
+        expect("StudentUnenrolled " + subjectId + " " + studentId);
+
+        remoteUpdate("DELETE FROM subjects WHERE subject_id = " + subjectId);
+        expect("SubjectDeleted " + subjectId);
+    }
+
+    @Test
+    void ownWritesAreNotPublishedAgain() throws SQLException {
+        int subjectId = TestDatabase.createSubject(teacherId);
+        try {
+            GradeWriteResult created = new GradeDAO().upsertGrade(
+                    new Grade(0, studentId, subjectId, 70, LocalDate.now(), GradeType.QUIZ));
+            assertEquals(GradeWriteResult.Status.INSERTED, created.getStatus());
+            String line = "GradeRecorded " + created.getGrade().getGradeId() + " 70.0";
+
+            // Once a later remote change is reported, the poller has read past this write
+            int marker = remoteInsert("INSERT INTO subjects (subject_name, teacher_id) VALUES ('Feed marker', " + teacherId + ")");
+            expect("SubjectAdded " + marker);
+            remoteUpdate("DELETE FROM subjects WHERE subject_id = " + marker);
+
+            assertEquals(1, seen.get(line).sum(), line + " published once, in-process");
+        } finally {
+            new SubjectDAO().deleteSubject(subjectId);
+        }
+    }
+
+    private static void expect(String line) {
+        assertTrue(await(line, STEP_TIMEOUT_MS), line + " not published within " + STEP_TIMEOUT_MS + " ms");
+    }
+
+    private static boolean await(String line, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!seen.containsKey(line)) {
+            if (System.nanoTime() >= deadline) return false;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs an INSERT as another client.
+     * @return The generated id.
+     */
+    private static int remoteInsert(String sql) throws SQLException {
+        try (Connection conn = TestDatabase.otherClient();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No generated key for " + sql);
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private static void remoteUpdate(String sql) throws SQLException {
+        try (Connection conn = TestDatabase.otherClient();
+             Statement st = conn.createStatement()) {
+            st.executeUpdate(sql);
+        }
+    }
+
+    private static String describe(DomainEvent e) {
+        if (e instanceof SubjectAdded) return "SubjectAdded " + ((SubjectAdded) e).getSubject().getSubjectId();
+        if (e instanceof SubjectDeleted) return "SubjectDeleted " + ((SubjectDeleted) e).getSubjectId();
+        if (e instanceof GradeRecorded) {
+            Grade g = ((GradeRecorded) e).getGrade();
+            return "GradeRecorded " + g.getGradeId() + " " + g.getGradeValue();
+        }
+        if (e instanceof GradeUpdated) {
+            Grade g = ((GradeUpdated) e).getGrade();
+            return "GradeUpdated " + g.getGradeId() + " " + g.getGradeValue();
+        }
+        if (e instanceof GradeDeleted) return "GradeDeleted " + ((GradeDeleted) e).getGradeId();
+        if (e instanceof StudentEnrolled) {
+            StudentEnrolled s = (StudentEnrolled) e;
+            return "StudentEnrolled " + s.getSubjectId() + " " + s.getStudentId();
+        }
+        if (e instanceof StudentUnenrolled) {
+            StudentUnenrolled s = (StudentUnenrolled) e;
+            return "StudentUnenrolled " + s.getSubjectId() + " " + s.getStudentId();
+        }
+        return e.getClass().getSimpleName();
+    }
+}
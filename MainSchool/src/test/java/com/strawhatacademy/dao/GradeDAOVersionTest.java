@@ -0,0 +1,146 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.Grade;
+import com.strawhatacademy.model.GradeType;
+import com.strawhatacademy.model.Role;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Concurrent editors of one grade: optimistic updates through updateGrade and
+ * blind writes through upsertGrade.
+ */
+class GradeDAOVersionTest {
+
+    private static final int WRITERS = 8;
+    private static final int SAVES = 10;
+    private static final double STEP = 0.01;
+
+    private static int teacherId;
+    private static int studentId;
+
+    private final SubjectDAO subjects = new SubjectDAO();
+    private final GradeDAO grades = new GradeDAO();
+    private int subjectId;
+    private int gradeId;
+
+    @BeforeAll
+    static void createUsers() {
+        TestDatabase.start();
+        teacherId = TestDatabase.createUser(Role.TEACHER);
+        studentId = TestDatabase.createUser(Role.STUDENT);
+    }
+
+    @BeforeEach
+    void createGrade() {
+        subjectId = TestDatabase.createSubject(teacherId);
+        GradeWriteResult created = grades.upsertGrade(
+                new Grade(0, studentId, subjectId, 0, LocalDate.now(), GradeType.EXAM));
+        assertEquals(GradeWriteResult.Status.INSERTED, created.getStatus());
+        assertEquals(0, created.getGrade().getVersion());
+        gradeId = created.getGrade().getGradeId();
+    }
+
+    @AfterEach
+    void deleteSubject() {
+        subjects.deleteSubject(subjectId);
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        LongAdder errors = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < WRITERS; w++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < SAVES; i++) {
+                        while (true) {
+                            Grade g = grades.getGradeById(gradeId);
+                            if (g == null) {
+                                errors.increment();
+                                return null;
+                            }
+                            g.setGradeValue(Math.round((g.getGradeValue() + STEP) * 100) / 100.0);
+                            GradeWriteResult.Status status = grades.updateGrade(g).getStatus();
+                            if (status == GradeWriteResult.Status.UPDATED) break;
+                            if (status != GradeWriteResult.Status.CONFLICT) {
+                                errors.increment();
+                                return null;
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        Grade end = grades.getGradeById(gradeId);
+        assertEquals(0, errors.sum(), "failed saves");
+        assertNotNull(end);
+        assertEquals(WRITERS * SAVES * STEP, end.getGradeValue(), 1e-9, "value");
+        assertEquals(WRITERS * SAVES, end.getVersion(), "version");
+    }
+
+    @Test
+    void staleEditorGetsConflictWithTheSavedRow() {
+        Grade stale = grades.getGradeById(gradeId);
+        Grade fresh = grades.getGradeById(gradeId);
+        fresh.setGradeValue(50);
+        assertEquals(GradeWriteResult.Status.UPDATED, grades.updateGrade(fresh).getStatus());
+
+        stale.setGradeValue(10);
+        GradeWriteResult second = grades.updateGrade(stale);
+        assertEquals(GradeWriteResult.Status.CONFLICT, second.getStatus());
+        assertEquals(50, second.getGrade().getGradeValue(), 1e-9);
+        assertEquals(1, second.getGrade().getVersion());
+    }
+
+    @Test
+    void concurrentUpsertsEachBumpTheVersion() throws InterruptedException {
+        // Distinct values, so every upsert changes the row and bumps its version
+        Set<Integer> gradeIds = ConcurrentHashMap.newKeySet();
+        Set<Integer> versions = ConcurrentHashMap.newKeySet();
+        Set<GradeWriteResult.Status> statuses = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < SAVES; i++) {
+                        double value = 1 + writer * SAVES + i;
+                        GradeWriteResult r = grades.upsertGrade(
+                                new Grade(0, studentId, subjectId, value, LocalDate.now(), GradeType.EXAM));
+                        statuses.add(r.getStatus());
+                        if (r.getGrade() != null) {
+                            gradeIds.add(r.getGrade().getGradeId());
+                            versions.add(r.getGrade().getVersion());
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(Set.of(GradeWriteResult.Status.UPDATED), statuses);
+        // The existing row's id comes back through LAST_INSERT_ID; the version is left to a read
+        assertEquals(Set.of(gradeId), gradeIds);
+        assertEquals(Set.of(Grade.UNKNOWN_VERSION), versions);
+        assertEquals(WRITERS * SAVES, grades.getGradeById(gradeId).getVersion());
+    }
+}
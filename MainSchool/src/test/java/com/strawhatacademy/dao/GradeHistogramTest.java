@@ -0,0 +1,114 @@
+package com.strawhatacademy.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Accuracy of GradeHistogram on synthetic data (no database needed). Builds one
+ * histogram per subject, merges them, removes a share of the grades again, and
+ * compares every percentile with the exact nearest-rank value of the remaining
+ * grades.
+ */
+class GradeHistogramTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 1};
+    private static final int[] SIZES = {1, 7, 1000, 200_000};
+    private static final int SUBJECTS = 40;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void uniform() { checkSizes("uniform"); }
+
+    @Test
+    void normal() { checkSizes("normal"); }
+
+    @Test
+    void bimodal() { checkSizes("bimodal"); }
+
+    @Test
+    void skewed() { checkSizes("skewed"); }
+
+    @Test
+    void constant() { checkSizes("constant"); }
+
+    @Test
+    void negativeValuesAreClampedIntoTheFirstBin() {
+        GradeHistogram h = new GradeHistogram();
+        h.add(-40);
+        h.add(10);
+        assertEquals(0, GradeHistogram.binOf(-40));
+        assertEquals(1, h.getBinCount(0));
+        assertEquals(1, h.countBelow(10));
+        // Reported as bin 0's midpoint, 40.125 away from the grade
+        assertEquals(GradeHistogram.BIN_WIDTH / 2, h.quantile(0), 1e-9);
+        h.remove(-40);
+        assertEquals(0, h.getBinCount(0));
+    }
+
+    private void checkSizes(String shape) {
+        for (int n : SIZES) check(shape, n);
+    }
+
+    private void check(String shape, int n) {
+        GradeHistogram[] perSubject = new GradeHistogram[SUBJECTS];
+        List<List<Integer>> cents = new ArrayList<>();
+        for (int s = 0; s < SUBJECTS; s++) {
+            perSubject[s] = new GradeHistogram();
+            cents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            int s = random.nextInt(SUBJECTS);
+            int value = sample(shape);
+            perSubject[s].add(value / 100.0);
+            cents.get(s).add(value);
+        }
+        // Remove about a tenth of each subject's grades again, as deletes would
+        for (int s = 0; s < SUBJECTS; s++) {
+            List<Integer> values = cents.get(s);
+            Collections.shuffle(values, random);
+            for (int k = values.size() / 10; k > 0; k--) {
+                perSubject[s].remove(values.remove(values.size() - 1) / 100.0);
+            }
+        }
+
+        GradeHistogram merged = new GradeHistogram();
+        List<Integer> all = new ArrayList<>();
+        for (int s = 0; s < SUBJECTS; s++) {
+            merged.merge(perSubject[s]);
+            all.addAll(cents.get(s));
+        }
+        Collections.sort(all);
+        String label = shape + " n=" + n;
+        assertEquals(all.size(), merged.getCount(), label + " count");
+
+        for (double q : QUANTILES) {
+            if (all.isEmpty()) break;
+            int rank = Math.max(1, (int) Math.ceil(q * all.size()));
+            double exact = all.get(rank - 1) / 100.0;
+            double error = Math.abs(merged.quantile(q) - exact);
+            assertTrue(error <= GradeHistogram.MAX_ERROR + 1e-9, label + " q=" + q + " off by " + error);
+        }
+    }
+
+    /**
+     * A grade in cents (0..9999) drawn from the named distribution.
+     */
+    private int sample(String shape) {
+        double value;
+        switch (shape) {
+            case "uniform": value = random.nextDouble() * 100; break;
+            case "normal": value = 75 + random.nextGaussian() * 10; break;
+            case "bimodal": value = random.nextBoolean() ? 55 + random.nextGaussian() * 5 : 88 + random.nextGaussian() * 4; break;
+            case "skewed": value = 100 - Math.abs(random.nextGaussian()) * 12; break;
+            default: value = 87.25;
+        }
+        return (int) Math.max(0, Math.min(9999, Math.round(value * 100)));
+    }
+}
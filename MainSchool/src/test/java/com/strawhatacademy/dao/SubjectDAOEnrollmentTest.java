@@ -0,0 +1,114 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.Role;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Registration rush: every student clicks "enroll" twice at the same moment in a
+ * subject with fewer seats than students, then a quarter of those who got in
+ * drop out at once.
+ */
+class SubjectDAOEnrollmentTest {
+
+    private static final int STUDENTS = 24;
+    private static final int CAPACITY = 8;
+
+    private static final List<Integer> students = new ArrayList<>();
+    private static int teacherId;
+
+    private final SubjectDAO subjects = new SubjectDAO();
+    private int subjectId;
+
+    @BeforeAll
+    static void createUsers() {
+        TestDatabase.start();
+        teacherId = TestDatabase.createUser(Role.TEACHER);
+        for (int i = 0; i < STUDENTS; i++) students.add(TestDatabase.createUser(Role.STUDENT));
+    }
+
+    @BeforeEach
+    void createSubject() {
+        subjectId = TestDatabase.createSubject(teacherId);
+        assertTrue(subjects.setCapacity(subjectId, CAPACITY));
+    }
+
+    @AfterEach
+    void deleteSubject() {
+        subjects.deleteSubject(subjectId);
+    }
+
+    @Test
+    void rushFillsTheSeatsAndWaitlistsEveryoneElse() throws InterruptedException {
+        Map<EnrollmentResult, Long> results = rush();
+
+        SubjectSeats seats = subjects.getSeats(subjectId);
+        assertEquals(CAPACITY, seats.getEnrolled(), "enrolled");
+        assertEquals(STUDENTS - CAPACITY, seats.getWaitlisted(), "waitlisted");
+        assertEquals(0, seats.getSeatsLeft(), "seats left");
+        assertEquals(CAPACITY, count(results, EnrollmentResult.ENROLLED), "ENROLLED results");
+        assertEquals(0, count(results, EnrollmentResult.FAILED), "FAILED results");
+        assertEquals(CAPACITY, subjects.getRosterStudentIds(subjectId).size(), "roster size");
+    }
+
+    @Test
+    void droppedSeatsGoToTheWaitlist() throws InterruptedException {
+        rush();
+        List<Integer> roster = subjects.getRosterStudentIds(subjectId);
+        List<Integer> leaving = new ArrayList<>(roster.subList(0, CAPACITY / 4));
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int studentId : leaving) pool.submit(() -> subjects.unenrollStudent(studentId, subjectId));
+        }
+
+        SubjectSeats seats = subjects.getSeats(subjectId);
+        assertEquals(CAPACITY, seats.getEnrolled(), "enrolled after drops");
+        assertEquals(STUDENTS - leaving.size() - CAPACITY, seats.getWaitlisted(), "still waitlisted");
+        assertEquals(0, seats.getSeatsLeft(), "seats left after drops");
+        List<Integer> after = subjects.getRosterStudentIds(subjectId);
+        for (int studentId : leaving) assertFalse(after.contains(studentId), "student " + studentId + " dropped");
+    }
+
+    /**
+     * Every student enrolls twice, all released at once.
+     * @return How many calls got each result.
+     */
+    private Map<EnrollmentResult, Long> rush() throws InterruptedException {
+        Map<EnrollmentResult, LongAdder> outcomes = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int studentId : students) {
+                for (int click = 0; click < 2; click++) {
+                    pool.submit(() -> {
+                        start.await();
+                        EnrollmentResult r = subjects.enrollStudent(studentId, subjectId);
+                        outcomes.computeIfAbsent(r, k -> new LongAdder()).increment();
+                        return null;
+                    });
+                }
+            }
+            start.countDown();
+        }
+        Map<EnrollmentResult, Long> counts = new EnumMap<>(EnrollmentResult.class);
+        outcomes.forEach((r, n) -> counts.put(r, n.sum()));
+        return counts;
+    }
+
+    private static long count(Map<EnrollmentResult, Long> results, EnrollmentResult result) {
+        return results.getOrDefault(result, 0L);
+    }
+}
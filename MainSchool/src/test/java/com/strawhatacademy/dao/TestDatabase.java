@@ -0,0 +1,83 @@
+package com.strawhatacademy.dao;
+
+import com.strawhatacademy.model.Role;
+import com.strawhatacademy.model.Subject;
+import com.strawhatacademy.model.User;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A throwaway MariaDB, the server XAMPP ships, loaded with strawhat_academy.sql
+ * through the image's init directory (the mysql client understands the dump's
+ * DELIMITER blocks). DatabaseConnection is pointed at it before its pool starts.
+ * One container serves every test class in the run and is removed when the JVM
+ * exits. Needs Docker.
+ */
+final class TestDatabase {
+
+    private static final MariaDBContainer<?> DB = new MariaDBContainer<>(DockerImageName.parse("mariadb:10.4"))
+            .withDatabaseName("strawhat_academy")
+            .withCopyFileToContainer(MountableFile.forHostPath(Paths.get("..", "strawhat_academy.sql")),
+                    "/docker-entrypoint-initdb.d/strawhat_academy.sql");
+
+    private static final AtomicInteger NAMES = new AtomicInteger();
+    private static String url;
+
+    private TestDatabase() {}
+
+    /**
+     * Starts the container on the first call. Call it before any DAO is used.
+     */
+    static synchronized void start() {
+        if (url != null) return;
+        DB.start();
+        url = "jdbc:mysql://" + DB.getHost() + ":" + DB.getMappedPort(3306) + "/strawhat_academy";
+        System.setProperty("strawhat.db.url", url);
+        System.setProperty("strawhat.db.user", DB.getUsername());
+        System.setProperty("strawhat.db.password", DB.getPassword());
+    }
+
+    /**
+     * A connection outside the pool, without @client_id: to ChangeLogPoller its
+     * writes come from another client.
+     */
+    static Connection otherClient() throws SQLException {
+        return DriverManager.getConnection(url, DB.getUsername(), DB.getPassword());
+    }
+
+    /**
+     * Registers a user with a unique username.
+     * @return Their user_id.
+     */
+    static int createUser(Role role) {
+        String username = role.name().toLowerCase() + "_" + NAMES.incrementAndGet();
+        UserDAO users = new UserDAO();
+        assertTrue(users.registerUser(new User(0, username, role, "Test", username), "secret"), "registered " + username);
+        User user = users.login(username, "secret");
+        assertNotNull(user, "logged in " + username);
+        return user.getUserId();
+    }
+
+    /**
+     * Adds a subject with a unique name.
+     * @return Its subject_id.
+     */
+    static int createSubject(int teacherId) {
+        SubjectDAO subjects = new SubjectDAO();
+        String name = "Test subject " + NAMES.incrementAndGet();
+        assertTrue(subjects.addSubject(name, teacherId), "added " + name);
+        for (Subject s : subjects.getTeacherSubjects(teacherId)) {
+            if (s.getSubjectName().equals(name)) return s.getSubjectId();
+        }
+        throw new AssertionError(name + " not found after adding it");
+    }
+}
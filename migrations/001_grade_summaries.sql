@@ -0,0 +1,155 @@
+--
+-- Running grade aggregates per student and per subject.
+--
+-- grade_summary_student / grade_summary_subject hold count, sum, sum of squares,
+-- min and max of the recorded grades (enrollment 'Registered' rows and NULL
+-- values are not counted), so any average or standard deviation is a single
+-- primary-key read. Triggers on `grades` keep them up to date inside the same
+-- transaction as the write. Deleting a subject or user removes its grades
+-- explicitly first, because rows removed by a foreign-key cascade do not fire
+-- triggers. GradeSummaryVerifier reconciles both tables against `grades`.
+--
+
+CREATE TABLE `grade_summary_student` (
+  `student_id` int(11) NOT NULL,
+  `grade_count` int(11) NOT NULL,
+  `grade_sum` decimal(14,2) NOT NULL,
+  `grade_sum_sq` decimal(18,4) NOT NULL,
+  `min_value` decimal(4,2) NOT NULL,
+  `max_value` decimal(4,2) NOT NULL,
+  PRIMARY KEY (`student_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+CREATE TABLE `grade_summary_subject` (
+  `subject_id` int(11) NOT NULL,
+  `grade_count` int(11) NOT NULL,
+  `grade_sum` decimal(14,2) NOT NULL,
+  `grade_sum_sq` decimal(18,4) NOT NULL,
+  `min_value` decimal(4,2) NOT NULL,
+  `max_value` decimal(4,2) NOT NULL,
+  PRIMARY KEY (`subject_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+INSERT INTO `grade_summary_student`
+SELECT `student_id`, COUNT(*), SUM(`grade_value`), SUM(`grade_value` * `grade_value`), MIN(`grade_value`), MAX(`grade_value`)
+FROM `grades` WHERE `type` <> 'Registered' AND `grade_value` IS NOT NULL GROUP BY `student_id`;
+
+INSERT INTO `grade_summary_subject`
+SELECT `subject_id`, COUNT(*), SUM(`grade_value`), SUM(`grade_value` * `grade_value`), MIN(`grade_value`), MAX(`grade_value`)
+FROM `grades` WHERE `type` <> 'Registered' AND `grade_value` IS NOT NULL GROUP BY `subject_id`;
+
+DELIMITER $$
+
+CREATE PROCEDURE `grade_summary_add` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_value` DECIMAL(4,2))
+BEGIN
+  INSERT INTO `grade_summary_student` VALUES (p_student_id, 1, p_value, p_value * p_value, p_value, p_value)
+  ON DUPLICATE KEY UPDATE
+    `grade_count` = `grade_count` + 1,
+    `grade_sum` = `grade_sum` + p_value,
+    `grade_sum_sq` = `grade_sum_sq` + p_value * p_value,
+    `min_value` = LEAST(`min_value`, p_value),
+    `max_value` = GREATEST(`max_value`, p_value);
+  INSERT INTO `grade_summary_subject` VALUES (p_subject_id, 1, p_value, p_value * p_value, p_value, p_value)
+  ON DUPLICATE KEY UPDATE
+    `grade_count` = `grade_count` + 1,
+    `grade_sum` = `grade_sum` + p_value,
+    `grade_sum_sq` = `grade_sum_sq` + p_value * p_value,
+    `min_value` = LEAST(`min_value`, p_value),
+    `max_value` = GREATEST(`max_value`, p_value);
+END$$
+
+-- Called after the row is gone (or already changed), so a recomputed min/max reads the current grades
+CREATE PROCEDURE `grade_summary_remove` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_value` DECIMAL(4,2))
+BEGIN
+  UPDATE `grade_summary_student`
+  SET `grade_count` = `grade_count` - 1,
+      `grade_sum` = `grade_sum` - p_value,
+      `grade_sum_sq` = `grade_sum_sq` - p_value * p_value
+  WHERE `student_id` = p_student_id;
+  DELETE FROM `grade_summary_student` WHERE `student_id` = p_student_id AND `grade_count` <= 0;
+  UPDATE `grade_summary_student`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id AND `type` <> 'Registered'),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id AND `type` <> 'Registered')
+  WHERE `student_id` = p_student_id AND (p_value <= `min_value` OR p_value >= `max_value`);
+
+  UPDATE `grade_summary_subject`
+  SET `grade_count` = `grade_count` - 1,
+      `grade_sum` = `grade_sum` - p_value,
+      `grade_sum_sq` = `grade_sum_sq` - p_value * p_value
+  WHERE `subject_id` = p_subject_id;
+  DELETE FROM `grade_summary_subject` WHERE `subject_id` = p_subject_id AND `grade_count` <= 0;
+  UPDATE `grade_summary_subject`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id AND `type` <> 'Registered'),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id AND `type` <> 'Registered')
+  WHERE `subject_id` = p_subject_id AND (p_value <= `min_value` OR p_value >= `max_value`);
+END$$
+
+-- A grade changed value in place: apply only the delta
+CREATE PROCEDURE `grade_summary_change` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_old` DECIMAL(4,2), IN `p_new` DECIMAL(4,2))
+BEGIN
+  UPDATE `grade_summary_student`
+  SET `grade_sum` = `grade_sum` - p_old + p_new,
+      `grade_sum_sq` = `grade_sum_sq` - p_old * p_old + p_new * p_new
+  WHERE `student_id` = p_student_id;
+  UPDATE `grade_summary_student`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id AND `type` <> 'Registered'),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id AND `type` <> 'Registered')
+  WHERE `student_id` = p_student_id
+    AND (p_old <= `min_value` OR p_old >= `max_value` OR p_new < `min_value` OR p_new > `max_value`);
+
+  UPDATE `grade_summary_subject`
+  SET `grade_sum` = `grade_sum` - p_old + p_new,
+      `grade_sum_sq` = `grade_sum_sq` - p_old * p_old + p_new * p_new
+  WHERE `subject_id` = p_subject_id;
+  UPDATE `grade_summary_subject`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id AND `type` <> 'Registered'),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id AND `type` <> 'Registered')
+  WHERE `subject_id` = p_subject_id
+    AND (p_old <= `min_value` OR p_old >= `max_value` OR p_new < `min_value` OR p_new > `max_value`);
+END$$
+
+CREATE TRIGGER `grades_summary_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  IF NEW.`type` <> 'Registered' AND NEW.`grade_value` IS NOT NULL THEN
+    CALL grade_summary_add(NEW.`student_id`, NEW.`subject_id`, NEW.`grade_value`);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_summary_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  DECLARE old_counted BOOLEAN DEFAULT OLD.`type` <> 'Registered' AND OLD.`grade_value` IS NOT NULL;
+  DECLARE new_counted BOOLEAN DEFAULT NEW.`type` <> 'Registered' AND NEW.`grade_value` IS NOT NULL;
+  IF old_counted AND new_counted
+     AND OLD.`student_id` = NEW.`student_id` AND OLD.`subject_id` = NEW.`subject_id` THEN
+    IF OLD.`grade_value` <> NEW.`grade_value` THEN
+      CALL grade_summary_change(NEW.`student_id`, NEW.`subject_id`, OLD.`grade_value`, NEW.`grade_value`);
+    END IF;
+  ELSE
+    IF old_counted THEN
+      CALL grade_summary_remove(OLD.`student_id`, OLD.`subject_id`, OLD.`grade_value`);
+    END IF;
+    IF new_counted THEN
+      CALL grade_summary_add(NEW.`student_id`, NEW.`subject_id`, NEW.`grade_value`);
+    END IF;
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_summary_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  IF OLD.`type` <> 'Registered' AND OLD.`grade_value` IS NOT NULL THEN
+    CALL grade_summary_remove(OLD.`student_id`, OLD.`subject_id`, OLD.`grade_value`);
+  END IF;
+END$$
+
+-- Cascaded deletes skip triggers, so remove the grades first through a normal DELETE
+CREATE TRIGGER `subjects_delete_grades` BEFORE DELETE ON `subjects` FOR EACH ROW
+BEGIN
+  DELETE FROM `grades` WHERE `subject_id` = OLD.`subject_id`;
+END$$
+
+CREATE TRIGGER `users_delete_grades` BEFORE DELETE ON `users` FOR EACH ROW
+BEGIN
+  DELETE FROM `grades` WHERE `student_id` = OLD.`user_id`;
+END$$
+
+DELIMITER ;
@@ -0,0 +1,67 @@
+--
+-- Grade distributions per subject and assessment type.
+--
+-- grade_histograms counts recorded grades in fixed bins of 0.25 points
+-- (bin = FLOOR(grade_value * 4), 0..399), one row per non-empty bin of each
+-- (subject, type). That is at most 400 rows per pair however many grades there
+-- are, any percentile is read back to within half a bin (0.125 points), and
+-- histograms of several subjects or types merge by summing counts per bin.
+-- Triggers on `grades` maintain it in the same transaction as the write,
+-- alongside the running summaries from 001; GradeSummaryVerifier reconciles it.
+--
+
+CREATE TABLE `grade_histograms` (
+  `subject_id` int(11) NOT NULL,
+  `type` enum('Exam','Quiz','Project','Final') NOT NULL,
+  `bin` smallint(6) NOT NULL,
+  `grade_count` int(11) NOT NULL,
+  PRIMARY KEY (`subject_id`,`type`,`bin`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+INSERT INTO `grade_histograms`
+SELECT `subject_id`, `type`, LEAST(GREATEST(FLOOR(`grade_value` * 4), 0), 399), COUNT(*)
+FROM `grades` WHERE `type` <> 'Registered' AND `grade_value` IS NOT NULL
+GROUP BY `subject_id`, `type`, LEAST(GREATEST(FLOOR(`grade_value` * 4), 0), 399);
+
+DELIMITER $$
+
+-- p_delta is +1 for a grade entering the bin and -1 for one leaving it
+CREATE PROCEDURE `grade_histogram_add` (IN `p_subject_id` INT, IN `p_type` VARCHAR(10), IN `p_value` DECIMAL(4,2), IN `p_delta` INT)
+BEGIN
+  DECLARE v_bin SMALLINT DEFAULT LEAST(GREATEST(FLOOR(p_value * 4), 0), 399);
+  INSERT INTO `grade_histograms` VALUES (p_subject_id, p_type, v_bin, p_delta)
+  ON DUPLICATE KEY UPDATE `grade_count` = `grade_count` + p_delta;
+  IF p_delta < 0 THEN
+    DELETE FROM `grade_histograms`
+    WHERE `subject_id` = p_subject_id AND `type` = p_type AND `bin` = v_bin AND `grade_count` <= 0;
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  IF NEW.`type` <> 'Registered' AND NEW.`grade_value` IS NOT NULL THEN
+    CALL grade_histogram_add(NEW.`subject_id`, NEW.`type`, NEW.`grade_value`, 1);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  IF NOT (OLD.`subject_id` = NEW.`subject_id` AND OLD.`type` = NEW.`type`
+          AND FLOOR(OLD.`grade_value` * 4) <=> FLOOR(NEW.`grade_value` * 4)) THEN
+    IF OLD.`type` <> 'Registered' AND OLD.`grade_value` IS NOT NULL THEN
+      CALL grade_histogram_add(OLD.`subject_id`, OLD.`type`, OLD.`grade_value`, -1);
+    END IF;
+    IF NEW.`type` <> 'Registered' AND NEW.`grade_value` IS NOT NULL THEN
+      CALL grade_histogram_add(NEW.`subject_id`, NEW.`type`, NEW.`grade_value`, 1);
+    END IF;
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  IF OLD.`type` <> 'Registered' AND OLD.`grade_value` IS NOT NULL THEN
+    CALL grade_histogram_add(OLD.`subject_id`, OLD.`type`, OLD.`grade_value`, -1);
+  END IF;
+END$$
+
+DELIMITER ;
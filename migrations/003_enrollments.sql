@@ -0,0 +1,154 @@
+--
+-- Enrollments in their own table instead of 'Registered' placeholder grades.
+--
+-- Enrolling used to insert a grades row with grade_value 0.0 and type
+-- 'Registered', so every grade query, average and scan had to filter it out.
+-- `enrollments` holds one row per (subject, student): the primary key serves a
+-- subject's roster and the (student_id, subject_id) key a student's subjects,
+-- both read from the index alone. Existing placeholders move over, as does
+-- every pair that already has grades, and 'Registered' leaves the `type` enum.
+-- The summary procedures and `grades` triggers from 001 and 002 are recreated
+-- without the now meaningless 'Registered' test.
+--
+
+CREATE TABLE `enrollments` (
+  `subject_id` int(11) NOT NULL,
+  `student_id` int(11) NOT NULL,
+  `enrolled_on` date NOT NULL,
+  PRIMARY KEY (`subject_id`,`student_id`),
+  KEY `student_subject` (`student_id`,`subject_id`),
+  CONSTRAINT `enrollments_ibfk_1` FOREIGN KEY (`subject_id`) REFERENCES `subjects` (`subject_id`) ON DELETE CASCADE,
+  CONSTRAINT `enrollments_ibfk_2` FOREIGN KEY (`student_id`) REFERENCES `users` (`user_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+INSERT INTO `enrollments` (`subject_id`, `student_id`, `enrolled_on`)
+SELECT `subject_id`, `student_id`, MIN(`date_recorded`)
+FROM `grades` GROUP BY `subject_id`, `student_id`;
+
+DELETE FROM `grades` WHERE `type` = 'Registered';
+
+ALTER TABLE `grades`
+  MODIFY `type` enum('Exam','Quiz','Project','Final') NOT NULL;
+
+DROP PROCEDURE IF EXISTS `grade_summary_remove`;
+DROP PROCEDURE IF EXISTS `grade_summary_change`;
+DROP TRIGGER IF EXISTS `grades_summary_after_insert`;
+DROP TRIGGER IF EXISTS `grades_summary_after_update`;
+DROP TRIGGER IF EXISTS `grades_summary_after_delete`;
+DROP TRIGGER IF EXISTS `grades_histogram_after_insert`;
+DROP TRIGGER IF EXISTS `grades_histogram_after_update`;
+DROP TRIGGER IF EXISTS `grades_histogram_after_delete`;
+
+DELIMITER $$
+
+-- Called after the row is gone (or already changed), so a recomputed min/max reads the current grades
+CREATE PROCEDURE `grade_summary_remove` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_value` DECIMAL(4,2))
+BEGIN
+  UPDATE `grade_summary_student`
+  SET `grade_count` = `grade_count` - 1,
+      `grade_sum` = `grade_sum` - p_value,
+      `grade_sum_sq` = `grade_sum_sq` - p_value * p_value
+  WHERE `student_id` = p_student_id;
+  DELETE FROM `grade_summary_student` WHERE `student_id` = p_student_id AND `grade_count` <= 0;
+  UPDATE `grade_summary_student`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id)
+  WHERE `student_id` = p_student_id AND (p_value <= `min_value` OR p_value >= `max_value`);
+
+  UPDATE `grade_summary_subject`
+  SET `grade_count` = `grade_count` - 1,
+      `grade_sum` = `grade_sum` - p_value,
+      `grade_sum_sq` = `grade_sum_sq` - p_value * p_value
+  WHERE `subject_id` = p_subject_id;
+  DELETE FROM `grade_summary_subject` WHERE `subject_id` = p_subject_id AND `grade_count` <= 0;
+  UPDATE `grade_summary_subject`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id)
+  WHERE `subject_id` = p_subject_id AND (p_value <= `min_value` OR p_value >= `max_value`);
+END$$
+
+-- A grade changed value in place: apply only the delta
+CREATE PROCEDURE `grade_summary_change` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_old` DECIMAL(4,2), IN `p_new` DECIMAL(4,2))
+BEGIN
+  UPDATE `grade_summary_student`
+  SET `grade_sum` = `grade_sum` - p_old + p_new,
+      `grade_sum_sq` = `grade_sum_sq` - p_old * p_old + p_new * p_new
+  WHERE `student_id` = p_student_id;
+  UPDATE `grade_summary_student`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id)
+  WHERE `student_id` = p_student_id
+    AND (p_old <= `min_value` OR p_old >= `max_value` OR p_new < `min_value` OR p_new > `max_value`);
+
+  UPDATE `grade_summary_subject`
+  SET `grade_sum` = `grade_sum` - p_old + p_new,
+      `grade_sum_sq` = `grade_sum_sq` - p_old * p_old + p_new * p_new
+  WHERE `subject_id` = p_subject_id;
+  UPDATE `grade_summary_subject`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id)
+  WHERE `subject_id` = p_subject_id
+    AND (p_old <= `min_value` OR p_old >= `max_value` OR p_new < `min_value` OR p_new > `max_value`);
+END$$
+
+CREATE TRIGGER `grades_summary_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  IF NEW.`grade_value` IS NOT NULL THEN
+    CALL grade_summary_add(NEW.`student_id`, NEW.`subject_id`, NEW.`grade_value`);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_summary_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  DECLARE old_counted BOOLEAN DEFAULT OLD.`grade_value` IS NOT NULL;
+  DECLARE new_counted BOOLEAN DEFAULT NEW.`grade_value` IS NOT NULL;
+  IF old_counted AND new_counted
+     AND OLD.`student_id` = NEW.`student_id` AND OLD.`subject_id` = NEW.`subject_id` THEN
+    IF OLD.`grade_value` <> NEW.`grade_value` THEN
+      CALL grade_summary_change(NEW.`student_id`, NEW.`subject_id`, OLD.`grade_value`, NEW.`grade_value`);
+    END IF;
+  ELSE
+    IF old_counted THEN
+      CALL grade_summary_remove(OLD.`student_id`, OLD.`subject_id`, OLD.`grade_value`);
+    END IF;
+    IF new_counted THEN
+      CALL grade_summary_add(NEW.`student_id`, NEW.`subject_id`, NEW.`grade_value`);
+    END IF;
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_summary_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  IF OLD.`grade_value` IS NOT NULL THEN
+    CALL grade_summary_remove(OLD.`student_id`, OLD.`subject_id`, OLD.`grade_value`);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  IF NEW.`grade_value` IS NOT NULL THEN
+    CALL grade_histogram_add(NEW.`subject_id`, NEW.`type`, NEW.`grade_value`, 1);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  IF NOT (OLD.`subject_id` = NEW.`subject_id` AND OLD.`type` = NEW.`type`
+          AND FLOOR(OLD.`grade_value` * 4) <=> FLOOR(NEW.`grade_value` * 4)) THEN
+    IF OLD.`grade_value` IS NOT NULL THEN
+      CALL grade_histogram_add(OLD.`subject_id`, OLD.`type`, OLD.`grade_value`, -1);
+    END IF;
+    IF NEW.`grade_value` IS NOT NULL THEN
+      CALL grade_histogram_add(NEW.`subject_id`, NEW.`type`, NEW.`grade_value`, 1);
+    END IF;
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  IF OLD.`grade_value` IS NOT NULL THEN
+    CALL grade_histogram_add(OLD.`subject_id`, OLD.`type`, OLD.`grade_value`, -1);
+  END IF;
+END$$
+
+DELIMITER ;
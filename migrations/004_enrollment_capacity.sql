@@ -0,0 +1,36 @@
+--
+-- Subject capacity and waitlist.
+--
+-- subjects.capacity caps enrollments (NULL = unlimited). The free seats of a
+-- capped subject are split over a few `subject_seats` stripes so a
+-- registration rush does not queue every enrollment behind one row lock:
+-- SubjectDAO starts at the student's home stripe and takes a seat with a
+-- conditional `seats_left = seats_left - 1 ... AND seats_left > 0` update,
+-- which can never drive a stripe below zero. The total over the stripes is
+-- the number of free seats. When every stripe is empty the student joins
+-- `waitlist`, which is served in waitlist_id order as seats are released.
+--
+
+ALTER TABLE `subjects`
+  ADD `capacity` int(11) DEFAULT NULL;
+
+CREATE TABLE `subject_seats` (
+  `subject_id` int(11) NOT NULL,
+  `stripe` tinyint(4) NOT NULL,
+  `seats_left` int(11) NOT NULL,
+  PRIMARY KEY (`subject_id`,`stripe`),
+  CONSTRAINT `subject_seats_ibfk_1` FOREIGN KEY (`subject_id`) REFERENCES `subjects` (`subject_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+CREATE TABLE `waitlist` (
+  `waitlist_id` int(11) NOT NULL AUTO_INCREMENT,
+  `subject_id` int(11) NOT NULL,
+  `student_id` int(11) NOT NULL,
+  `requested_at` datetime NOT NULL DEFAULT current_timestamp(),
+  PRIMARY KEY (`waitlist_id`),
+  UNIQUE KEY `subject_student` (`subject_id`,`student_id`),
+  KEY `subject_queue` (`subject_id`,`waitlist_id`),
+  KEY `student_id` (`student_id`),
+  CONSTRAINT `waitlist_ibfk_1` FOREIGN KEY (`subject_id`) REFERENCES `subjects` (`subject_id`) ON DELETE CASCADE,
+  CONSTRAINT `waitlist_ibfk_2` FOREIGN KEY (`student_id`) REFERENCES `users` (`user_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -0,0 +1,12 @@
+--
+-- Optimistic concurrency for grade edits.
+--
+-- Every write to a grade bumps `version`. GradeDAO.updateGrade only applies an
+-- edit `WHERE grade_id = ? AND version = ?`, the version the editor read, so a
+-- second teacher saving over a grade changed since they opened it gets a
+-- conflict (and the current value) instead of silently overwriting it. No row
+-- lock is held while an editor is open.
+--
+
+ALTER TABLE `grades`
+  ADD `version` int(11) NOT NULL DEFAULT 0;
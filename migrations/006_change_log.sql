@@ -0,0 +1,82 @@
+--
+-- Cross-client change notification.
+--
+-- Every desktop client keeps its own caches and open views, which used to go
+-- stale when another client wrote to the shared database. Triggers now append
+-- one `change_log` row per grade, subject and enrollment change, numbered by
+-- the auto-increment `seq`. ChangeLogPoller in each client reads the rows after
+-- the last seq it has seen (a primary-key range scan that is empty when
+-- nothing changed) and refreshes only what they name.
+--
+-- Each client sets @client_id on its pooled connections and the triggers
+-- record it, so a client skips its own changes, which it has already applied.
+-- Writes from other tools leave client_id NULL. Rows older than the retention
+-- period are pruned by the clients (`changed_at` index).
+--
+
+CREATE TABLE `change_log` (
+  `seq` bigint(20) UNSIGNED NOT NULL AUTO_INCREMENT,
+  `entity` enum('grade','subject','enrollment') NOT NULL,
+  `op` enum('insert','update','delete') NOT NULL,
+  `entity_id` int(11) NOT NULL,
+  `subject_id` int(11) DEFAULT NULL,
+  `student_id` int(11) DEFAULT NULL,
+  `client_id` varchar(36) DEFAULT NULL,
+  `changed_at` timestamp(6) NOT NULL DEFAULT current_timestamp(6),
+  PRIMARY KEY (`seq`),
+  KEY `changed_at` (`changed_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+DELIMITER $$
+CREATE TRIGGER `grades_log_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('grade', 'insert', NEW.`grade_id`, NEW.`subject_id`, NEW.`student_id`, @client_id);
+END$$
+
+CREATE TRIGGER `grades_log_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  -- An upsert that matched an identical grade fires the trigger without changing anything
+  IF NOT (OLD.`grade_value` <=> NEW.`grade_value` AND OLD.`date_recorded` <=> NEW.`date_recorded`
+          AND OLD.`type` <=> NEW.`type` AND OLD.`version` <=> NEW.`version`) THEN
+    INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+    VALUES ('grade', 'update', NEW.`grade_id`, NEW.`subject_id`, NEW.`student_id`, @client_id);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_log_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('grade', 'delete', OLD.`grade_id`, OLD.`subject_id`, OLD.`student_id`, @client_id);
+END$$
+
+CREATE TRIGGER `subjects_log_after_insert` AFTER INSERT ON `subjects` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `client_id`)
+  VALUES ('subject', 'insert', NEW.`subject_id`, NEW.`subject_id`, @client_id);
+END$$
+
+CREATE TRIGGER `subjects_log_after_update` AFTER UPDATE ON `subjects` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `client_id`)
+  VALUES ('subject', 'update', NEW.`subject_id`, NEW.`subject_id`, @client_id);
+END$$
+
+CREATE TRIGGER `subjects_log_after_delete` AFTER DELETE ON `subjects` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `client_id`)
+  VALUES ('subject', 'delete', OLD.`subject_id`, OLD.`subject_id`, @client_id);
+END$$
+
+CREATE TRIGGER `enrollments_log_after_insert` AFTER INSERT ON `enrollments` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('enrollment', 'insert', NEW.`subject_id`, NEW.`subject_id`, NEW.`student_id`, @client_id);
+END$$
+
+CREATE TRIGGER `enrollments_log_after_delete` AFTER DELETE ON `enrollments` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('enrollment', 'delete', OLD.`subject_id`, OLD.`subject_id`, OLD.`student_id`, @client_id);
+END$$
+DELIMITER ;
@@ -0,0 +1,17 @@
+--
+-- Last-modified tracking for grades.
+--
+-- Grade windows stay open all day and refresh themselves with only the rows
+-- that changed: GradeDAO.getGradeChanges* reads grades with `updated_at` at or
+-- after a watermark (a range scan on the new index) plus the deletions the
+-- change_log triggers of migration 006 recorded since then, which serve as
+-- tombstones. The cost of a refresh follows the number of changes, not the
+-- size of the gradebook.
+--
+-- `updated_at` is set by the server on insert and on every update that changes
+-- a column, including the upsert path, so no write path has to maintain it.
+--
+
+ALTER TABLE `grades`
+  ADD `updated_at` timestamp(6) NOT NULL DEFAULT current_timestamp(6) ON UPDATE current_timestamp(6),
+  ADD KEY `updated_at` (`updated_at`);
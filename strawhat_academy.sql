@@ -21,6 +21,140 @@ SET time_zone = "+00:00";
 -- Database: `strawhat_academy`
 --
 
+--
+-- Procedures
+--
+DELIMITER $$
+CREATE PROCEDURE `grade_summary_add` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_value` DECIMAL(4,2))
+BEGIN
+  INSERT INTO `grade_summary_student` VALUES (p_student_id, 1, p_value, p_value * p_value, p_value, p_value)
+  ON DUPLICATE KEY UPDATE
+    `grade_count` = `grade_count` + 1,
+    `grade_sum` = `grade_sum` + p_value,
+    `grade_sum_sq` = `grade_sum_sq` + p_value * p_value,
+    `min_value` = LEAST(`min_value`, p_value),
+    `max_value` = GREATEST(`max_value`, p_value);
+  INSERT INTO `grade_summary_subject` VALUES (p_subject_id, 1, p_value, p_value * p_value, p_value, p_value)
+  ON DUPLICATE KEY UPDATE
+    `grade_count` = `grade_count` + 1,
+    `grade_sum` = `grade_sum` + p_value,
+    `grade_sum_sq` = `grade_sum_sq` + p_value * p_value,
+    `min_value` = LEAST(`min_value`, p_value),
+    `max_value` = GREATEST(`max_value`, p_value);
+END$$
+
+-- Called after the row is gone (or already changed), so a recomputed min/max reads the current grades
+CREATE PROCEDURE `grade_summary_remove` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_value` DECIMAL(4,2))
+BEGIN
+  UPDATE `grade_summary_student`
+  SET `grade_count` = `grade_count` - 1,
+      `grade_sum` = `grade_sum` - p_value,
+      `grade_sum_sq` = `grade_sum_sq` - p_value * p_value
+  WHERE `student_id` = p_student_id;
+  DELETE FROM `grade_summary_student` WHERE `student_id` = p_student_id AND `grade_count` <= 0;
+  UPDATE `grade_summary_student`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id)
+  WHERE `student_id` = p_student_id AND (p_value <= `min_value` OR p_value >= `max_value`);
+
+  UPDATE `grade_summary_subject`
+  SET `grade_count` = `grade_count` - 1,
+      `grade_sum` = `grade_sum` - p_value,
+      `grade_sum_sq` = `grade_sum_sq` - p_value * p_value
+  WHERE `subject_id` = p_subject_id;
+  DELETE FROM `grade_summary_subject` WHERE `subject_id` = p_subject_id AND `grade_count` <= 0;
+  UPDATE `grade_summary_subject`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id)
+  WHERE `subject_id` = p_subject_id AND (p_value <= `min_value` OR p_value >= `max_value`);
+END$$
+
+-- A grade changed value in place: apply only the delta
+CREATE PROCEDURE `grade_summary_change` (IN `p_student_id` INT, IN `p_subject_id` INT, IN `p_old` DECIMAL(4,2), IN `p_new` DECIMAL(4,2))
+BEGIN
+  UPDATE `grade_summary_student`
+  SET `grade_sum` = `grade_sum` - p_old + p_new,
+      `grade_sum_sq` = `grade_sum_sq` - p_old * p_old + p_new * p_new
+  WHERE `student_id` = p_student_id;
+  UPDATE `grade_summary_student`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `student_id` = p_student_id)
+  WHERE `student_id` = p_student_id
+    AND (p_old <= `min_value` OR p_old >= `max_value` OR p_new < `min_value` OR p_new > `max_value`);
+
+  UPDATE `grade_summary_subject`
+  SET `grade_sum` = `grade_sum` - p_old + p_new,
+      `grade_sum_sq` = `grade_sum_sq` - p_old * p_old + p_new * p_new
+  WHERE `subject_id` = p_subject_id;
+  UPDATE `grade_summary_subject`
+  SET `min_value` = (SELECT MIN(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id),
+      `max_value` = (SELECT MAX(`grade_value`) FROM `grades` WHERE `subject_id` = p_subject_id)
+  WHERE `subject_id` = p_subject_id
+    AND (p_old <= `min_value` OR p_old >= `max_value` OR p_new < `min_value` OR p_new > `max_value`);
+END$$
+
+-- p_delta is +1 for a grade entering the bin and -1 for one leaving it
+CREATE PROCEDURE `grade_histogram_add` (IN `p_subject_id` INT, IN `p_type` VARCHAR(10), IN `p_value` DECIMAL(4,2), IN `p_delta` INT)
+BEGIN
+  DECLARE v_bin SMALLINT DEFAULT LEAST(GREATEST(FLOOR(p_value * 4), 0), 399);
+  INSERT INTO `grade_histograms` VALUES (p_subject_id, p_type, v_bin, p_delta)
+  ON DUPLICATE KEY UPDATE `grade_count` = `grade_count` + p_delta;
+  IF p_delta < 0 THEN
+    DELETE FROM `grade_histograms`
+    WHERE `subject_id` = p_subject_id AND `type` = p_type AND `bin` = v_bin AND `grade_count` <= 0;
+  END IF;
+END$$
+DELIMITER ;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `change_log`
+--
+-- One row per grade, subject and enrollment change, written by triggers and
+-- polled by every client (see migrations/006_change_log.sql)
+--
+
+CREATE TABLE `change_log` (
+  `seq` bigint(20) UNSIGNED NOT NULL,
+  `entity` enum('grade','subject','enrollment') NOT NULL,
+  `op` enum('insert','update','delete') NOT NULL,
+  `entity_id` int(11) NOT NULL,
+  `subject_id` int(11) DEFAULT NULL,
+  `student_id` int(11) DEFAULT NULL,
+  `client_id` varchar(36) DEFAULT NULL,
+  `changed_at` timestamp(6) NOT NULL DEFAULT current_timestamp(6)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `enrollments`
+--
+
+CREATE TABLE `enrollments` (
+  `subject_id` int(11) NOT NULL,
+  `student_id` int(11) NOT NULL,
+  `enrolled_on` date NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+--
+-- Triggers `enrollments`
+--
+DELIMITER $$
+CREATE TRIGGER `enrollments_log_after_insert` AFTER INSERT ON `enrollments` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('enrollment', 'insert', NEW.`subject_id`, NEW.`subject_id`, NEW.`student_id`, @client_id);
+END$$
+
+CREATE TRIGGER `enrollments_log_after_delete` AFTER DELETE ON `enrollments` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('enrollment', 'delete', OLD.`subject_id`, OLD.`subject_id`, OLD.`student_id`, @client_id);
+END$$
+DELIMITER ;
+
 -- --------------------------------------------------------
 
 --
@@ -33,7 +167,143 @@ CREATE TABLE `grades` (
   `subject_id` int(11) NOT NULL,
   `grade_value` decimal(4,2) DEFAULT NULL,
   `date_recorded` date NOT NULL,
-  `type` enum('Exam','Quiz','Project','Final','Registered') NOT NULL DEFAULT 'Registered'
+  `type` enum('Exam','Quiz','Project','Final') NOT NULL,
+  `version` int(11) NOT NULL DEFAULT 0,
+  `updated_at` timestamp(6) NOT NULL DEFAULT current_timestamp(6) ON UPDATE current_timestamp(6)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+--
+-- Triggers `grades`
+--
+DELIMITER $$
+CREATE TRIGGER `grades_summary_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  IF NEW.`grade_value` IS NOT NULL THEN
+    CALL grade_summary_add(NEW.`student_id`, NEW.`subject_id`, NEW.`grade_value`);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_summary_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  DECLARE old_counted BOOLEAN DEFAULT OLD.`grade_value` IS NOT NULL;
+  DECLARE new_counted BOOLEAN DEFAULT NEW.`grade_value` IS NOT NULL;
+  IF old_counted AND new_counted
+     AND OLD.`student_id` = NEW.`student_id` AND OLD.`subject_id` = NEW.`subject_id` THEN
+    IF OLD.`grade_value` <> NEW.`grade_value` THEN
+      CALL grade_summary_change(NEW.`student_id`, NEW.`subject_id`, OLD.`grade_value`, NEW.`grade_value`);
+    END IF;
+  ELSE
+    IF old_counted THEN
+      CALL grade_summary_remove(OLD.`student_id`, OLD.`subject_id`, OLD.`grade_value`);
+    END IF;
+    IF new_counted THEN
+      CALL grade_summary_add(NEW.`student_id`, NEW.`subject_id`, NEW.`grade_value`);
+    END IF;
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_summary_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  IF OLD.`grade_value` IS NOT NULL THEN
+    CALL grade_summary_remove(OLD.`student_id`, OLD.`subject_id`, OLD.`grade_value`);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  IF NEW.`grade_value` IS NOT NULL THEN
+    CALL grade_histogram_add(NEW.`subject_id`, NEW.`type`, NEW.`grade_value`, 1);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  IF NOT (OLD.`subject_id` = NEW.`subject_id` AND OLD.`type` = NEW.`type`
+          AND FLOOR(OLD.`grade_value` * 4) <=> FLOOR(NEW.`grade_value` * 4)) THEN
+    IF OLD.`grade_value` IS NOT NULL THEN
+      CALL grade_histogram_add(OLD.`subject_id`, OLD.`type`, OLD.`grade_value`, -1);
+    END IF;
+    IF NEW.`grade_value` IS NOT NULL THEN
+      CALL grade_histogram_add(NEW.`subject_id`, NEW.`type`, NEW.`grade_value`, 1);
+    END IF;
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_histogram_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  IF OLD.`grade_value` IS NOT NULL THEN
+    CALL grade_histogram_add(OLD.`subject_id`, OLD.`type`, OLD.`grade_value`, -1);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_log_after_insert` AFTER INSERT ON `grades` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('grade', 'insert', NEW.`grade_id`, NEW.`subject_id`, NEW.`student_id`, @client_id);
+END$$
+
+CREATE TRIGGER `grades_log_after_update` AFTER UPDATE ON `grades` FOR EACH ROW
+BEGIN
+  -- An upsert that matched an identical grade fires the trigger without changing anything
+  IF NOT (OLD.`grade_value` <=> NEW.`grade_value` AND OLD.`date_recorded` <=> NEW.`date_recorded`
+          AND OLD.`type` <=> NEW.`type` AND OLD.`version` <=> NEW.`version`) THEN
+    INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+    VALUES ('grade', 'update', NEW.`grade_id`, NEW.`subject_id`, NEW.`student_id`, @client_id);
+  END IF;
+END$$
+
+CREATE TRIGGER `grades_log_after_delete` AFTER DELETE ON `grades` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `student_id`, `client_id`)
+  VALUES ('grade', 'delete', OLD.`grade_id`, OLD.`subject_id`, OLD.`student_id`, @client_id);
+END$$
+DELIMITER ;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `grade_histograms`
+--
+-- Recorded grades per 0.25-point bin of each (subject, type), maintained by the `grades` triggers
+--
+
+CREATE TABLE `grade_histograms` (
+  `subject_id` int(11) NOT NULL,
+  `type` enum('Exam','Quiz','Project','Final') NOT NULL,
+  `bin` smallint(6) NOT NULL,
+  `grade_count` int(11) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `grade_summary_student`
+--
+-- Running aggregates of recorded grades, maintained by the `grades` triggers
+--
+
+CREATE TABLE `grade_summary_student` (
+  `student_id` int(11) NOT NULL,
+  `grade_count` int(11) NOT NULL,
+  `grade_sum` decimal(14,2) NOT NULL,
+  `grade_sum_sq` decimal(18,4) NOT NULL,
+  `min_value` decimal(4,2) NOT NULL,
+  `max_value` decimal(4,2) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `grade_summary_subject`
+--
+
+CREATE TABLE `grade_summary_subject` (
+  `subject_id` int(11) NOT NULL,
+  `grade_count` int(11) NOT NULL,
+  `grade_sum` decimal(14,2) NOT NULL,
+  `grade_sum_sq` decimal(18,4) NOT NULL,
+  `min_value` decimal(4,2) NOT NULL,
+  `max_value` decimal(4,2) NOT NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
 -- --------------------------------------------------------
@@ -59,6 +329,20 @@ INSERT INTO `profiles` (`profile_id`, `user_id`, `first_name`, `last_name`, `reg
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `subject_seats`
+--
+-- Free seats of each capped subject, split over stripes (see migrations/004_enrollment_capacity.sql)
+--
+
+CREATE TABLE `subject_seats` (
+  `subject_id` int(11) NOT NULL,
+  `stripe` tinyint(4) NOT NULL,
+  `seats_left` int(11) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `subjects`
 --
@@ -66,9 +350,38 @@ INSERT INTO `profiles` (`profile_id`, `user_id`, `first_name`, `last_name`, `reg
 CREATE TABLE `subjects` (
   `subject_id` int(11) NOT NULL,
   `subject_name` varchar(100) NOT NULL,
-  `teacher_id` int(11) DEFAULT NULL
+  `teacher_id` int(11) DEFAULT NULL,
+  `capacity` int(11) DEFAULT NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
+--
+-- Triggers `subjects`
+--
+DELIMITER $$
+CREATE TRIGGER `subjects_delete_grades` BEFORE DELETE ON `subjects` FOR EACH ROW
+BEGIN
+  DELETE FROM `grades` WHERE `subject_id` = OLD.`subject_id`;
+END$$
+
+CREATE TRIGGER `subjects_log_after_insert` AFTER INSERT ON `subjects` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `client_id`)
+  VALUES ('subject', 'insert', NEW.`subject_id`, NEW.`subject_id`, @client_id);
+END$$
+
+CREATE TRIGGER `subjects_log_after_update` AFTER UPDATE ON `subjects` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `client_id`)
+  VALUES ('subject', 'update', NEW.`subject_id`, NEW.`subject_id`, @client_id);
+END$$
+
+CREATE TRIGGER `subjects_log_after_delete` AFTER DELETE ON `subjects` FOR EACH ROW
+BEGIN
+  INSERT INTO `change_log` (`entity`, `op`, `entity_id`, `subject_id`, `client_id`)
+  VALUES ('subject', 'delete', OLD.`subject_id`, OLD.`subject_id`, @client_id);
+END$$
+DELIMITER ;
+
 -- --------------------------------------------------------
 
 --
@@ -89,17 +402,73 @@ CREATE TABLE `users` (
 INSERT INTO `users` (`user_id`, `username`, `password_hash`, `role`) VALUES
 (1, 'admin', 'admin123', 'Admin');
 
+--
+-- Triggers `users`
+--
+DELIMITER $$
+CREATE TRIGGER `users_delete_grades` BEFORE DELETE ON `users` FOR EACH ROW
+BEGIN
+  DELETE FROM `grades` WHERE `student_id` = OLD.`user_id`;
+END$$
+DELIMITER ;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `waitlist`
+--
+
+CREATE TABLE `waitlist` (
+  `waitlist_id` int(11) NOT NULL,
+  `subject_id` int(11) NOT NULL,
+  `student_id` int(11) NOT NULL,
+  `requested_at` datetime NOT NULL DEFAULT current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
 --
 -- Indexes for dumped tables
 --
 
+--
+-- Indexes for table `change_log`
+--
+ALTER TABLE `change_log`
+  ADD PRIMARY KEY (`seq`),
+  ADD KEY `changed_at` (`changed_at`);
+
+--
+-- Indexes for table `enrollments`
+--
+ALTER TABLE `enrollments`
+  ADD PRIMARY KEY (`subject_id`,`student_id`),
+  ADD KEY `student_subject` (`student_id`,`subject_id`);
+
 --
 -- Indexes for table `grades`
 --
 ALTER TABLE `grades`
   ADD PRIMARY KEY (`grade_id`),
   ADD UNIQUE KEY `unique_grade_per_student_subject_type` (`student_id`,`subject_id`,`type`),
-  ADD KEY `subject_id` (`subject_id`);
+  ADD KEY `subject_id` (`subject_id`),
+  ADD KEY `updated_at` (`updated_at`);
+
+--
+-- Indexes for table `grade_histograms`
+--
+ALTER TABLE `grade_histograms`
+  ADD PRIMARY KEY (`subject_id`,`type`,`bin`);
+
+--
+-- Indexes for table `grade_summary_student`
+--
+ALTER TABLE `grade_summary_student`
+  ADD PRIMARY KEY (`student_id`);
+
+--
+-- Indexes for table `grade_summary_subject`
+--
+ALTER TABLE `grade_summary_subject`
+  ADD PRIMARY KEY (`subject_id`);
 
 --
 -- Indexes for table `profiles`
@@ -108,6 +477,12 @@ ALTER TABLE `profiles`
   ADD PRIMARY KEY (`profile_id`),
   ADD KEY `user_id` (`user_id`);
 
+--
+-- Indexes for table `subject_seats`
+--
+ALTER TABLE `subject_seats`
+  ADD PRIMARY KEY (`subject_id`,`stripe`);
+
 --
 -- Indexes for table `subjects`
 --
@@ -123,10 +498,25 @@ ALTER TABLE `users`
   ADD PRIMARY KEY (`user_id`),
   ADD UNIQUE KEY `username` (`username`);
 
+--
+-- Indexes for table `waitlist`
+--
+ALTER TABLE `waitlist`
+  ADD PRIMARY KEY (`waitlist_id`),
+  ADD UNIQUE KEY `subject_student` (`subject_id`,`student_id`),
+  ADD KEY `subject_queue` (`subject_id`,`waitlist_id`),
+  ADD KEY `student_id` (`student_id`);
+
 --
 -- AUTO_INCREMENT for dumped tables
 --
 
+--
+-- AUTO_INCREMENT for table `change_log`
+--
+ALTER TABLE `change_log`
+  MODIFY `seq` bigint(20) UNSIGNED NOT NULL AUTO_INCREMENT;
+
 --
 -- AUTO_INCREMENT for table `grades`
 --
@@ -151,10 +541,23 @@ ALTER TABLE `subjects`
 ALTER TABLE `users`
   MODIFY `user_id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=14;
 
+--
+-- AUTO_INCREMENT for table `waitlist`
+--
+ALTER TABLE `waitlist`
+  MODIFY `waitlist_id` int(11) NOT NULL AUTO_INCREMENT;
+
 --
 -- Constraints for dumped tables
 --
 
+--
+-- Constraints for table `enrollments`
+--
+ALTER TABLE `enrollments`
+  ADD CONSTRAINT `enrollments_ibfk_1` FOREIGN KEY (`subject_id`) REFERENCES `subjects` (`subject_id`) ON DELETE CASCADE,
+  ADD CONSTRAINT `enrollments_ibfk_2` FOREIGN KEY (`student_id`) REFERENCES `users` (`user_id`) ON DELETE CASCADE;
+
 --
 -- Constraints for table `grades`
 --
@@ -168,11 +571,24 @@ ALTER TABLE `grades`
 ALTER TABLE `profiles`
   ADD CONSTRAINT `profiles_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`user_id`) ON DELETE CASCADE;
 
+--
+-- Constraints for table `subject_seats`
+--
+ALTER TABLE `subject_seats`
+  ADD CONSTRAINT `subject_seats_ibfk_1` FOREIGN KEY (`subject_id`) REFERENCES `subjects` (`subject_id`) ON DELETE CASCADE;
+
 --
 -- Constraints for table `subjects`
 --
 ALTER TABLE `subjects`
   ADD CONSTRAINT `subjects_ibfk_1` FOREIGN KEY (`teacher_id`) REFERENCES `users` (`user_id`) ON DELETE SET NULL;
+
+--
+-- Constraints for table `waitlist`
+--
+ALTER TABLE `waitlist`
+  ADD CONSTRAINT `waitlist_ibfk_1` FOREIGN KEY (`subject_id`) REFERENCES `subjects` (`subject_id`) ON DELETE CASCADE,
+  ADD CONSTRAINT `waitlist_ibfk_2` FOREIGN KEY (`student_id`) REFERENCES `users` (`user_id`) ON DELETE CASCADE;
 COMMIT;
 
 /*!40101 SET CHARACTER_SET_CLIENT=@OLD_CHARACTER_SET_CLIENT */;